@@ -0,0 +1,708 @@
+/*
+ * Copyright (C) 2011 bedatadriven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.gson.client;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonPrimitive;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Converts {@link JsonElement}s to and from CBOR (RFC 7049), a binary format with the same
+ * data model as JSON. Integers take one to nine bytes and other numbers are written as the
+ * shortest of a half, single or double precision float that holds them exactly, so numeric
+ * documents are smaller than their text and are decoded without parsing decimals.
+ *
+ * <p>This class only uses the public API of the {@code JsonElement} classes, and is compiled
+ * against Gson on the server and against the emulated classes in the browser, so both sides
+ * share one encoder and decoder. Both produce the same bytes for equal trees: {@code byte[]}
+ * on the server, and {@code byte[]} or a base64 string, which is cheaper to move through
+ * {@code XMLHttpRequest} and storage, in the browser.
+ *
+ * <p>Only the types that JSON can express are written. When decoding, byte strings, tags,
+ * indefinite lengths and map keys other than text are rejected, and "undefined" is read as
+ * null.
+ */
+public final class JsonCbor {
+
+  private static final int UNSIGNED = 0x00;
+  private static final int NEGATIVE = 0x20;
+  private static final int TEXT = 0x60;
+  private static final int ARRAY = 0x80;
+  private static final int MAP = 0xa0;
+  private static final int SIMPLE = 0xe0;
+
+  private static final int FALSE = SIMPLE | 20;
+  private static final int TRUE = SIMPLE | 21;
+  private static final int NULL = SIMPLE | 22;
+  private static final int UNDEFINED = SIMPLE | 23;
+  private static final int HALF = SIMPLE | 25;
+  private static final int SINGLE = SIMPLE | 26;
+  private static final int DOUBLE = SIMPLE | 27;
+
+  private static final double TWO_32 = 4294967296d;
+  private static final double TWO_52 = 4503599627370496d;
+  private static final double TWO_53 = 9007199254740992d;
+  private static final double TWO_64 = 18446744073709551616d;
+  private static final double MIN_NORMAL = 2.2250738585072014E-308;
+  private static final double LN2 = Math.log(2);
+
+  private static final String BASE64 =
+      "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+
+  /**
+   * The value of each base64 digit, indexed by character, or -1 for other ASCII characters.
+   */
+  private static final byte[] BASE64_DIGITS = new byte[128];
+
+  static {
+    for (int i = 0; i < BASE64_DIGITS.length; i++) {
+      BASE64_DIGITS[i] = -1;
+    }
+    for (int i = 0; i < BASE64.length(); i++) {
+      BASE64_DIGITS[BASE64.charAt(i)] = (byte) i;
+    }
+  }
+
+  private JsonCbor() {
+  }
+
+  /**
+   * Returns {@code element} encoded as CBOR. A null element is written as null.
+   */
+  public static byte[] encode(JsonElement element) {
+    Output out = new Output();
+    write(out, element);
+    byte[] bytes = new byte[out.length];
+    System.arraycopy(out.bytes, 0, bytes, 0, out.length);
+    return bytes;
+  }
+
+  /**
+   * Returns the element encoded as CBOR in {@code bytes}.
+   *
+   * @throws JsonParseException if {@code bytes} is not a single CBOR value of a type that JSON
+   *     can express
+   */
+  public static JsonElement decode(byte[] bytes) throws JsonParseException {
+    Input in = new Input(bytes);
+    JsonElement element = read(in);
+    if (in.position != bytes.length) {
+      throw new JsonParseException("Did not consume the entire input at byte " + in.position);
+    }
+    return element;
+  }
+
+  /**
+   * Returns {@code element} encoded as CBOR, in base64.
+   */
+  public static String encodeBase64(JsonElement element) {
+    return toBase64(encode(element));
+  }
+
+  /**
+   * Returns the element encoded as CBOR, in base64, in {@code base64}.
+   *
+   * @throws JsonParseException if {@code base64} is not base64, or not CBOR that
+   *     {@link #decode(byte[])} accepts
+   */
+  public static JsonElement decodeBase64(String base64) throws JsonParseException {
+    return decode(fromBase64(base64));
+  }
+
+  private static void write(Output out, JsonElement element) {
+    if (element == null || element.isJsonNull()) {
+      out.write(NULL);
+    } else if (element.isJsonPrimitive()) {
+      JsonPrimitive primitive = element.getAsJsonPrimitive();
+      if (primitive.isBoolean()) {
+        out.write(primitive.getAsBoolean() ? TRUE : FALSE);
+      } else if (primitive.isNumber()) {
+        writeNumber(out, primitive.getAsNumber());
+      } else {
+        writeText(out, primitive.getAsString());
+      }
+    } else if (element.isJsonArray()) {
+      JsonArray array = element.getAsJsonArray();
+      int size = array.size();
+      writeHead(out, ARRAY, size);
+      for (int i = 0; i < size; i++) {
+        write(out, array.get(i));
+      }
+    } else {
+      Set<Map.Entry<String, JsonElement>> members = element.getAsJsonObject().entrySet();
+      writeHead(out, MAP, members.size());
+      for (Map.Entry<String, JsonElement> member : members) {
+        writeText(out, member.getKey());
+        write(out, member.getValue());
+      }
+    }
+  }
+
+  /**
+   * Writes integers that a double holds exactly, and integers written as such by
+   * {@link Number#toString()} that fit in 64 bits, as CBOR integers, and other numbers as
+   * floats.
+   */
+  private static void writeNumber(Output out, Number number) {
+    double d = number.doubleValue();
+    if (d != Math.floor(d) || (d == 0 && 1 / d < 0)) {
+      writeFloat(out, d);
+    } else if (Math.abs(d) < TWO_53) {
+      if (d >= 0) {
+        writeHead(out, UNSIGNED, d);
+      } else {
+        writeHead(out, NEGATIVE, -1 - d);
+      }
+    } else if (Math.abs(d) > TWO_64 || !isIntegerText(number.toString())
+        || !writeInteger(out, number.toString())) {
+      writeFloat(out, d);
+    }
+  }
+
+  /**
+   * Writes the integer written in decimal as {@code text} as an eight byte CBOR integer. The
+   * digits are read here rather than by {@link Long#parseLong}, which GWT's emulation cannot do
+   * for {@link Long#MIN_VALUE}.
+   *
+   * @return false, having written nothing, if the integer does not fit in 64 bits
+   */
+  private static boolean writeInteger(Output out, String text) {
+    boolean negative = text.charAt(0) == '-';
+    // the magnitude, unsigned
+    long n = 0;
+    for (int i = negative ? 1 : 0; i < text.length(); i++) {
+      int digit = text.charAt(i) - '0';
+      // (2^64 - 1 - digit) / 10, unsigned
+      long limit = ((-1L - digit) >>> 1) / 5;
+      if ((n ^ Long.MIN_VALUE) > (limit ^ Long.MIN_VALUE)) {
+        return false;
+      }
+      n = n * 10 + digit;
+    }
+    if (negative) {
+      // the argument of a negative integer is -1 - value; its magnitude is at least 2^53
+      n--;
+    }
+    out.write((negative ? NEGATIVE : UNSIGNED) | 27);
+    writeInt32(out, (int) (n >>> 32));
+    writeInt32(out, (int) n);
+    return true;
+  }
+
+  private static boolean isIntegerText(String text) {
+    int i = text.startsWith("-") ? 1 : 0;
+    if (i == text.length()) {
+      return false;
+    }
+    for (; i < text.length(); i++) {
+      char c = text.charAt(i);
+      if (c < '0' || c > '9') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Writes the initial byte of a value of type {@code major}, and the argument {@code n}, an
+   * integer between 0 and 2^53, in as few bytes as it fits.
+   */
+  private static void writeHead(Output out, int major, double n) {
+    if (n < 24) {
+      out.write(major | (int) n);
+    } else if (n < 0x100) {
+      out.write(major | 24);
+      out.write((int) n);
+    } else if (n < 0x10000) {
+      out.write(major | 25);
+      writeInt16(out, (int) n);
+    } else if (n < TWO_32) {
+      out.write(major | 26);
+      writeInt32(out, toInt32(n));
+    } else {
+      double high = Math.floor(n / TWO_32);
+      out.write(major | 27);
+      writeInt32(out, (int) high);
+      writeInt32(out, toInt32(n - high * TWO_32));
+    }
+  }
+
+  /**
+   * Writes {@code d} as the shortest float that holds it exactly.
+   */
+  private static void writeFloat(Output out, double d) {
+    if (d != d) {
+      out.write(HALF);
+      writeInt16(out, 0x7e00);
+      return;
+    }
+    int sign = d < 0 || (d == 0 && 1 / d < 0) ? 1 : 0;
+    double a = Math.abs(d);
+    if (!writeFloat(out, HALF, sign, a, 5, 10) && !writeFloat(out, SINGLE, sign, a, 8, 23)) {
+      writeDouble(out, sign, a);
+    }
+  }
+
+  /**
+   * Writes {@code a}, which is positive or zero, as a float with the given widths and
+   * {@code sign}, if that float holds it exactly.
+   *
+   * @return false if nothing was written
+   */
+  private static boolean writeFloat(Output out, int initial, int sign, double a,
+      int exponentBits, int fractionBits) {
+    int bias = (1 << (exponentBits - 1)) - 1;
+    int biased;
+    double fraction;
+    if (a == Double.POSITIVE_INFINITY) {
+      biased = 2 * bias + 1;
+      fraction = 0;
+    } else {
+      // a as a multiple of the smallest subnormal
+      double subnormal = a * Math.pow(2, bias - 1 + fractionBits);
+      if (subnormal < Math.pow(2, fractionBits)) {
+        if (subnormal != Math.floor(subnormal)) {
+          return false;
+        }
+        biased = 0;
+        fraction = subnormal;
+      } else {
+        int exponent = exponent(a);
+        if (exponent > bias) {
+          return false;
+        }
+        fraction = (a / Math.pow(2, exponent) - 1) * Math.pow(2, fractionBits);
+        if (fraction != Math.floor(fraction)) {
+          return false;
+        }
+        biased = exponent + bias;
+      }
+    }
+    int bits = (((sign << exponentBits) | biased) << fractionBits) | (int) fraction;
+    out.write(initial);
+    if (initial == HALF) {
+      writeInt16(out, bits);
+    } else {
+      writeInt32(out, bits);
+    }
+    return true;
+  }
+
+  private static void writeDouble(Output out, int sign, double a) {
+    int biased;
+    double fraction;
+    if (a == Double.POSITIVE_INFINITY) {
+      biased = 0x7ff;
+      fraction = 0;
+    } else if (a < MIN_NORMAL) {
+      biased = 0;
+      fraction = a * Math.pow(2, 1022) * TWO_52;
+    } else {
+      int exponent = exponent(a);
+      biased = exponent + 1023;
+      fraction = (a / Math.pow(2, exponent) - 1) * TWO_52;
+    }
+    double high = Math.floor(fraction / TWO_32);
+    out.write(DOUBLE);
+    writeInt32(out, (sign << 31) | (biased << 20) | (int) high);
+    writeInt32(out, toInt32(fraction - high * TWO_32));
+  }
+
+  /**
+   * Returns the exponent of the highest power of two that is at most {@code a}, a positive
+   * normal double.
+   */
+  private static int exponent(double a) {
+    int exponent = (int) Math.floor(Math.log(a) / LN2);
+    double power = Math.pow(2, exponent);
+    if (power > a) {
+      exponent--;
+    } else if (power * 2 <= a) {
+      exponent++;
+    }
+    return exponent;
+  }
+
+  /**
+   * Writes {@code s} as UTF-8 text. Unpaired surrogates are encoded like other characters, so
+   * that every String survives the round trip.
+   */
+  private static void writeText(Output out, String s) {
+    if (s == null) {
+      out.write(NULL);
+      return;
+    }
+    int length = s.length();
+    int bytes = length;
+    for (int i = 0; i < length; i++) {
+      char c = s.charAt(i);
+      if (c >= 0x80) {
+        if (c < 0x800) {
+          bytes += 1;
+        } else if (isSurrogatePair(s, i)) {
+          bytes += 2;
+          i++;
+        } else {
+          bytes += 2;
+        }
+      }
+    }
+    writeHead(out, TEXT, bytes);
+    out.ensure(bytes);
+    byte[] buffer = out.bytes;
+    int position = out.length;
+    for (int i = 0; i < length; i++) {
+      int c = s.charAt(i);
+      if (c < 0x80) {
+        buffer[position++] = (byte) c;
+      } else if (c < 0x800) {
+        buffer[position++] = (byte) (0xc0 | c >> 6);
+        buffer[position++] = (byte) (0x80 | c & 0x3f);
+      } else if (isSurrogatePair(s, i)) {
+        c = 0x10000 + ((c - 0xd800) << 10) + (s.charAt(++i) - 0xdc00);
+        buffer[position++] = (byte) (0xf0 | c >> 18);
+        buffer[position++] = (byte) (0x80 | c >> 12 & 0x3f);
+        buffer[position++] = (byte) (0x80 | c >> 6 & 0x3f);
+        buffer[position++] = (byte) (0x80 | c & 0x3f);
+      } else {
+        buffer[position++] = (byte) (0xe0 | c >> 12);
+        buffer[position++] = (byte) (0x80 | c >> 6 & 0x3f);
+        buffer[position++] = (byte) (0x80 | c & 0x3f);
+      }
+    }
+    out.length = position;
+  }
+
+  private static boolean isSurrogatePair(String s, int i) {
+    char c = s.charAt(i);
+    if (c < 0xd800 || c > 0xdbff || i + 1 == s.length()) {
+      return false;
+    }
+    char next = s.charAt(i + 1);
+    return next >= 0xdc00 && next <= 0xdfff;
+  }
+
+  private static void writeInt16(Output out, int bits) {
+    out.write(bits >> 8);
+    out.write(bits);
+  }
+
+  private static void writeInt32(Output out, int bits) {
+    out.write(bits >> 24);
+    out.write(bits >> 16);
+    out.write(bits >> 8);
+    out.write(bits);
+  }
+
+  /**
+   * Returns the int with the same bits as {@code n}, an integer between 0 and 2^32.
+   */
+  private static int toInt32(double n) {
+    return n >= 2147483648d ? (int) (n - TWO_32) : (int) n;
+  }
+
+  private static JsonElement read(Input in) {
+    int initial = in.read();
+    int major = initial & 0xe0;
+    int info = initial & 0x1f;
+    switch (major) {
+      case UNSIGNED:
+      case NEGATIVE:
+        return readInteger(in, major, info);
+      case TEXT:
+        return new JsonPrimitive(readText(in, info));
+      case ARRAY: {
+        int size = readSize(in, info);
+        JsonArray array = new JsonArray();
+        for (int i = 0; i < size; i++) {
+          array.add(read(in));
+        }
+        return array;
+      }
+      case MAP: {
+        int size = readSize(in, info);
+        JsonObject object = new JsonObject();
+        for (int i = 0; i < size; i++) {
+          int key = in.read();
+          if ((key & 0xe0) != TEXT) {
+            throw new JsonParseException("Expected a text key at byte " + (in.position - 1));
+          }
+          String name = readText(in, key & 0x1f);
+          object.add(name, read(in));
+        }
+        return object;
+      }
+      case SIMPLE:
+        switch (initial) {
+          case FALSE:
+            return new JsonPrimitive(Boolean.FALSE);
+          case TRUE:
+            return new JsonPrimitive(Boolean.TRUE);
+          case NULL:
+          case UNDEFINED:
+            return new JsonNull();
+          case HALF:
+            return new JsonPrimitive(Double.valueOf(toDouble(in.readInt16(), 0, 5, 10)));
+          case SINGLE:
+            return new JsonPrimitive(Double.valueOf(toDouble(in.readInt32(), 0, 8, 23)));
+          case DOUBLE: {
+            int high = in.readInt32();
+            return new JsonPrimitive(Double.valueOf(toDouble(high, in.readInt32(), 11, 52)));
+          }
+        }
+        break;
+    }
+    throw new JsonParseException("Unsupported CBOR type 0x" + Integer.toHexString(initial)
+        + " at byte " + (in.position - 1));
+  }
+
+  private static JsonPrimitive readInteger(Input in, int major, int info) {
+    if (info == 27) {
+      int high = in.readInt32();
+      int low = in.readInt32();
+      if (high >= 0 && high < 0x200000) {
+        return createInteger(major, high * TWO_32 + unsigned(low));
+      }
+      if (high < 0) {
+        // beyond a long: keep the nearest double
+        double n = unsigned(high) * TWO_32 + unsigned(low);
+        return new JsonPrimitive(Double.valueOf(major == NEGATIVE ? -1 - n : n));
+      }
+      long n = ((long) high << 32) | (low & 0xffffffffL);
+      return new JsonPrimitive(Long.valueOf(major == NEGATIVE ? ~n : n));
+    }
+    return createInteger(major, readArgument(in, info));
+  }
+
+  private static JsonPrimitive createInteger(int major, double n) {
+    double value = major == NEGATIVE ? -1 - n : n;
+    if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+      return new JsonPrimitive(Integer.valueOf((int) value));
+    }
+    return new JsonPrimitive(Long.valueOf((long) value));
+  }
+
+  /**
+   * Reads the argument that follows an initial byte with additional information {@code info},
+   * up to 2^32.
+   */
+  private static double readArgument(Input in, int info) {
+    if (info < 24) {
+      return info;
+    }
+    switch (info) {
+      case 24:
+        return in.read();
+      case 25:
+        return in.readInt16();
+      case 26:
+        return unsigned(in.readInt32());
+    }
+    throw new JsonParseException("Unsupported length 0x" + Integer.toHexString(info)
+        + " at byte " + (in.position - 1));
+  }
+
+  /**
+   * Reads the length of a string, array or map, which cannot exceed the remaining input since
+   * every byte or element takes at least one byte.
+   */
+  private static int readSize(Input in, int info) {
+    double size = readArgument(in, info);
+    if (size > in.bytes.length - in.position) {
+      throw new JsonParseException("Unexpected end of input");
+    }
+    return (int) size;
+  }
+
+  private static String readText(Input in, int info) {
+    int size = readSize(in, info);
+    byte[] bytes = in.bytes;
+    int position = in.position;
+    int end = position + size;
+    char[] chars = new char[size];
+    int length = 0;
+    while (position < end) {
+      int c = bytes[position++] & 0xff;
+      if (c >= 0x80) {
+        int continuation;
+        if (c >= 0xf0) {
+          continuation = 3;
+          c &= 0x07;
+        } else if (c >= 0xe0) {
+          continuation = 2;
+          c &= 0x0f;
+        } else if (c >= 0xc0) {
+          continuation = 1;
+          c &= 0x1f;
+        } else {
+          throw new JsonParseException("Malformed UTF-8 at byte " + (position - 1));
+        }
+        if (position + continuation > end) {
+          throw new JsonParseException("Malformed UTF-8 at byte " + (position - 1));
+        }
+        for (int i = 0; i < continuation; i++) {
+          c = c << 6 | bytes[position++] & 0x3f;
+        }
+        if (c >= 0x10000) {
+          c -= 0x10000;
+          chars[length++] = (char) (0xd800 + (c >> 10));
+          c = 0xdc00 + (c & 0x3ff);
+        }
+      }
+      chars[length++] = (char) c;
+    }
+    in.position = end;
+    return new String(chars, 0, length);
+  }
+
+  /**
+   * Returns the float whose {@code exponentBits} exponent and {@code fractionBits} fraction
+   * bits are held, after a sign bit, by {@code high} and then {@code low}, or by the low bits
+   * of {@code high} alone for floats of up to 32 bits.
+   */
+  private static double toDouble(int high, int low, int exponentBits, int fractionBits) {
+    int highFractionBits = fractionBits > 32 ? fractionBits - 32 : fractionBits;
+    int bias = (1 << (exponentBits - 1)) - 1;
+    int biased = (high >>> highFractionBits) & (2 * bias + 1);
+    boolean negative = ((high >>> (highFractionBits + exponentBits)) & 1) == 1;
+    double fraction = high & ((1 << highFractionBits) - 1);
+    if (fractionBits > 32) {
+      fraction = fraction * TWO_32 + unsigned(low);
+    }
+    double value;
+    if (biased == 2 * bias + 1) {
+      value = fraction == 0 ? Double.POSITIVE_INFINITY : Double.NaN;
+    } else if (biased == 0) {
+      value = fraction * Math.pow(2, 1 - bias - fractionBits);
+    } else {
+      value = (1 + fraction / Math.pow(2, fractionBits)) * Math.pow(2, biased - bias);
+    }
+    return negative ? -value : value;
+  }
+
+  private static double unsigned(int bits) {
+    return bits < 0 ? bits + TWO_32 : bits;
+  }
+
+  private static String toBase64(byte[] bytes) {
+    StringBuilder base64 = new StringBuilder((bytes.length + 2) / 3 * 4);
+    for (int i = 0; i < bytes.length; i += 3) {
+      int remaining = bytes.length - i;
+      int bits = (bytes[i] & 0xff) << 16;
+      if (remaining > 1) {
+        bits |= (bytes[i + 1] & 0xff) << 8;
+      }
+      if (remaining > 2) {
+        bits |= bytes[i + 2] & 0xff;
+      }
+      base64.append(BASE64.charAt(bits >> 18));
+      base64.append(BASE64.charAt(bits >> 12 & 0x3f));
+      base64.append(remaining > 1 ? BASE64.charAt(bits >> 6 & 0x3f) : '=');
+      base64.append(remaining > 2 ? BASE64.charAt(bits & 0x3f) : '=');
+    }
+    return base64.toString();
+  }
+
+  private static byte[] fromBase64(String base64) {
+    int length = base64.length();
+    while (length > 0 && base64.charAt(length - 1) == '=') {
+      length--;
+    }
+    if (length % 4 == 1 || base64.length() - length > 2) {
+      throw new JsonParseException("Malformed base64");
+    }
+    byte[] bytes = new byte[length * 3 / 4];
+    int bits = 0;
+    int count = 0;
+    int position = 0;
+    for (int i = 0; i < length; i++) {
+      char c = base64.charAt(i);
+      int digit = c < BASE64_DIGITS.length ? BASE64_DIGITS[c] : -1;
+      if (digit < 0) {
+        throw new JsonParseException("Malformed base64 at character " + i);
+      }
+      bits = bits << 6 | digit;
+      if (++count == 4) {
+        bytes[position++] = (byte) (bits >> 16);
+        bytes[position++] = (byte) (bits >> 8);
+        bytes[position++] = (byte) bits;
+        bits = 0;
+        count = 0;
+      }
+    }
+    if (count == 3) {
+      bytes[position++] = (byte) (bits >> 10);
+      bytes[position] = (byte) (bits >> 2);
+    } else if (count == 2) {
+      bytes[position] = (byte) (bits >> 4);
+    }
+    return bytes;
+  }
+
+  /**
+   * A growable buffer of encoded bytes.
+   */
+  private static class Output {
+    private byte[] bytes = new byte[256];
+    private int length;
+
+    void ensure(int count) {
+      if (length + count > bytes.length) {
+        byte[] grown = new byte[Math.max(bytes.length * 2, length + count)];
+        System.arraycopy(bytes, 0, grown, 0, length);
+        bytes = grown;
+      }
+    }
+
+    void write(int b) {
+      if (length == bytes.length) {
+        ensure(1);
+      }
+      bytes[length++] = (byte) b;
+    }
+  }
+
+  private static class Input {
+    private final byte[] bytes;
+    private int position;
+
+    Input(byte[] bytes) {
+      this.bytes = bytes;
+    }
+
+    int read() {
+      if (position == bytes.length) {
+        throw new JsonParseException("Unexpected end of input");
+      }
+      return bytes[position++] & 0xff;
+    }
+
+    int readInt16() {
+      return read() << 8 | read();
+    }
+
+    int readInt32() {
+      return read() << 24 | read() << 16 | read() << 8 | read();
+    }
+  }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2011 bedatadriven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.gson;
+
+import com.google.gwt.core.client.JavaScriptObject;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The members to keep when parsing with {@link JsonParser#parse(String, FieldSelector)}.
+ * Each path names a member with its ancestors, separated by dots, such as {@code id} or
+ * {@code owner.name}. A {@code *} matches any member name. Arrays are transparent: a path
+ * applies to every element of an array it reaches, so {@code id} selects the {@code id} of
+ * every object in an array of records.
+ *
+ * <p>The selected members are kept with their whole values, and members that no path
+ * reaches are skipped. Selectors are immutable and can be reused for any number of
+ * documents.
+ */
+public final class FieldSelector {
+
+  private final String[] paths;
+
+  /**
+   * The paths as nested JavaScript objects read by {@link JsonParser}: {@code c} maps member
+   * names to their own node and {@code w} is the node for any other member, if a wildcard was
+   * given. A null node keeps the whole value.
+   */
+  final JavaScriptObject root;
+
+  /**
+   * @param paths the dot-separated paths of the members to keep.
+   * @throws IllegalArgumentException if a path has an empty member name.
+   */
+  public FieldSelector(String... paths) {
+    this.paths = new String[paths.length];
+    System.arraycopy(paths, 0, this.paths, 0, paths.length);
+    Node tree = new Node();
+    for (String path : paths) {
+      String[] names = path.split("\\.", -1);
+      for (String name : names) {
+        if (name.length() == 0) {
+          throw new IllegalArgumentException("Empty member name in path: " + path);
+        }
+      }
+      tree.add(names, 0);
+    }
+    root = tree.toJavaScript();
+  }
+
+  @Override
+  public String toString() {
+    return Arrays.toString(paths);
+  }
+
+  private static final class Node {
+    private final Map<String, Node> children = new LinkedHashMap<String, Node>();
+    private Node wildcard;
+
+    /**
+     * True if the whole value is kept, because a path ends here.
+     */
+    private boolean all;
+
+    void add(String[] names, int i) {
+      if (all) {
+        return;
+      }
+      if (i == names.length) {
+        keepAll();
+        return;
+      }
+      Node child;
+      if ("*".equals(names[i])) {
+        if (wildcard == null) {
+          wildcard = new Node();
+        }
+        child = wildcard;
+      } else {
+        child = children.get(names[i]);
+        if (child == null) {
+          child = new Node();
+          children.put(names[i], child);
+        }
+      }
+      child.add(names, i + 1);
+    }
+
+    /**
+     * Adds the paths below {@code other} to this node.
+     */
+    void merge(Node other) {
+      if (all) {
+        return;
+      }
+      if (other.all) {
+        keepAll();
+        return;
+      }
+      for (Map.Entry<String, Node> entry : other.children.entrySet()) {
+        Node child = children.get(entry.getKey());
+        if (child == null) {
+          child = new Node();
+          children.put(entry.getKey(), child);
+        }
+        child.merge(entry.getValue());
+      }
+      if (other.wildcard != null) {
+        if (wildcard == null) {
+          wildcard = new Node();
+        }
+        wildcard.merge(other.wildcard);
+      }
+    }
+
+    private void keepAll() {
+      all = true;
+      children.clear();
+      wildcard = null;
+    }
+
+    /**
+     * Converts this node, which does not keep its whole value. A member named by a path
+     * also matches the wildcard, so their paths are merged.
+     */
+    JavaScriptObject toJavaScript() {
+      JavaScriptObject named = JavaScriptObject.createObject();
+      for (Map.Entry<String, Node> entry : children.entrySet()) {
+        Node child = entry.getValue();
+        if (wildcard != null) {
+          child = new Node();
+          child.merge(entry.getValue());
+          child.merge(wildcard);
+        }
+        child.putInto(named, entry.getKey());
+      }
+      JavaScriptObject node = JavaScriptObject.createObject();
+      JsonElement.set(node, "c", named);
+      if (wildcard != null) {
+        wildcard.putInto(node, "w");
+      }
+      return node;
+    }
+
+    private void putInto(JavaScriptObject container, String key) {
+      if (all) {
+        JsonElement.setNull(container, key);
+      } else {
+        JsonElement.set(container, key, toJavaScript());
+      }
+    }
+  }
+}
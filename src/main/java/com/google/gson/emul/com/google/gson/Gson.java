@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2011 bedatadriven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.google.gson;
+
+import com.google.gwt.core.client.GWT;
+import com.google.gwt.core.client.JavaScriptObject;
+
+/**
+ * Converts Java objects to and from JSON. GWT has no runtime reflection, so the conversions
+ * are generated at compile time for the classes listed in the {@code gson.types}
+ * configuration property, and for the classes reachable from their fields:
+ *
+ * <pre>
+ * &lt;extend-configuration-property name="gson.types" value="com.example.shared.Order"/&gt;
+ * </pre>
+ *
+ * <p>Like Gson's defaults, every non-static, non-transient field is converted, under its
+ * {@link com.google.gson.annotations.SerializedName} if it has one, and null fields are left
+ * out. Fields may be primitives or their wrappers, Strings, enums, {@link JsonElement}s,
+ * {@code int[]}, {@code double[]} or {@code String[]}, lists, sets and maps with String keys
+ * of any of these, or other such classes, which need a no-argument constructor.
+ *
+ * <p>Objects are read straight from the JavaScript values of the parsed document, without
+ * building a tree of {@link JsonElement}s. Integers too long for a double are kept as
+ * written, so that {@code long} fields are read exactly.
+ */
+public final class Gson {
+
+  private static final ValueAdapters adapters = GWT.create(ValueAdapters.class);
+  private static final JsonParserImpl parser = GWT.create(JsonParserImpl.class);
+
+  public Gson() {
+  }
+
+  /**
+   * Serializes {@code src} to its JSON representation.
+   *
+   * @param src the object to serialize
+   * @return the JSON representation of {@code src}, or "null" if it is null
+   * @throws IllegalArgumentException if no adapter was generated for the class of {@code src}
+   */
+  public String toJson(Object src) {
+    return toJsonTree(src).toString();
+  }
+
+  /**
+   * Returns {@code jsonElement} as JSON text, or "null" if it is null.
+   */
+  public String toJson(JsonElement jsonElement) {
+    return jsonElement == null ? "null" : jsonElement.toString();
+  }
+
+  /**
+   * Converts {@code src} to a tree of {@link JsonElement}s.
+   *
+   * @param src the object to convert
+   * @return the tree, or {@link JsonNull} if {@code src} is null
+   * @throws IllegalArgumentException if no adapter was generated for the class of {@code src}
+   */
+  public JsonElement toJsonTree(Object src) {
+    if (src == null) {
+      return JsonNull.createJsonNull();
+    }
+    if (src instanceof JsonElement) {
+      return (JsonElement) src;
+    }
+    JavaScriptObject holder = JavaScriptObject.createArray();
+    adapters.get(src.getClass().getName()).write(src, holder, "0");
+    return JsonElement.wrap(holder, null, 0);
+  }
+
+  /**
+   * Deserializes {@code json} into an object of class {@code classOfT}.
+   *
+   * @param json the JSON text
+   * @param classOfT the class of the object
+   * @return the object, or null if {@code json} is null or "null"
+   * @throws JsonParseException if {@code json} is not valid JSON or does not match
+   *     {@code classOfT}
+   * @throws IllegalArgumentException if no adapter was generated for {@code classOfT}
+   */
+  public <T> T fromJson(String json, Class<T> classOfT) throws JsonParseException {
+    if (json == null) {
+      return null;
+    }
+    double start = JsonMetrics.startParse();
+    JavaScriptObject holder = JsonParser.hasLongDigitRun(json)
+        ? JsonParser.parseTokens(json) : parser.parseRaw(json);
+    JsonMetrics.endParse(json, start);
+    return read(holder, classOfT);
+  }
+
+  /**
+   * Deserializes the tree {@code json} into an object of class {@code classOfT}.
+   *
+   * @see #fromJson(String, Class)
+   */
+  public <T> T fromJson(JsonElement json, Class<T> classOfT) throws JsonParseException {
+    if (json == null) {
+      return null;
+    }
+    // a copy, so that the elements read into fields do not share their values with json
+    JavaScriptObject holder = JavaScriptObject.createArray();
+    json.deepCopy().putInto(holder, "0");
+    return read(holder, classOfT);
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T> T read(JavaScriptObject holder, Class<T> classOfT) {
+    ValueAdapter adapter = adapters.get(classOfT.getName());
+    if (ValueAdapter.isNull(holder, null, 0)) {
+      return null;
+    }
+    return (T) adapter.read(holder, null, 0);
+  }
+}
@@ -16,9 +16,7 @@
 
 package com.google.gson;
 
-import com.google.gwt.json.client.JSONArray;
-import com.google.gwt.json.client.JSONNull;
-import com.google.gwt.json.client.JSONValue;
+import com.google.gwt.core.client.JavaScriptObject;
 
 import java.util.Iterator;
 
@@ -31,32 +29,342 @@ import java.util.Iterator;
  * @author Joel Leitch
  */
 public final class JsonArray extends JsonElement implements Iterable<JsonElement> {
-  private final JSONArray elements;
+  private JavaScriptObject elements;
+
+  /**
+   * The wrappers already handed out for elements of this array, indexed like the array
+   * itself, so that repeated lookups return the same {@link JsonElement}. Created lazily and
+   * grown as elements are accessed or added.
+   */
+  private JsonElement[] wrappers;
+
+  /**
+   * The key list shared by the objects in this array, which are usually rows with the same
+   * members.
+   */
+  private JsonObject.Shape rowShape;
+
+  /**
+   * Counts the changes to this array and to the elements read from it, see
+   * {@link JsonElement#changed()}. The hash code is valid while {@code hashVersion} equals it.
+   */
+  private int version;
+  private int hash;
+  private int hashVersion = -1;
+
+  /**
+   * Track sharing with snapshots like the fields of the same names in {@link JsonObject}.
+   */
+  private boolean shared;
+  private boolean sharesElements;
+  private JsonElement owner;
+  private String ownerKey;
+  private int ownerIndex;
+
+  /**
+   * True once this array has been frozen, see {@link JsonElement#freeze()}.
+   */
+  private boolean frozen;
 
   /**
    * Creates an empty JsonArray.
    */
   public JsonArray() {
-    elements = new JSONArray();
+    elements = JavaScriptObject.createArray();
   }
 
-  JsonArray(JSONArray elements) {
+  JsonArray(JavaScriptObject elements) {
     this.elements = elements;
   }
 
+  @Override
+  public JsonArray deepCopy() {
+    return new JsonArray(deepCopy(elements));
+  }
+
+  /**
+   * Returns a copy of this array that shares its elements with this array until either of
+   * them, or anything below them, is changed, like {@link JsonObject#snapshot()}.
+   *
+   * @return a copy-on-write copy of this array.
+   */
+  @Override
+  public JsonArray snapshot() {
+    if (!frozen) {
+      share();
+    }
+    JsonArray copy = new JsonArray(elements);
+    copy.rowShape = rowShape;
+    copy.share();
+    return copy;
+  }
+
+  @Override
+  public JsonArray freeze() {
+    if (!frozen) {
+      frozen = true;
+      if (wrappers != null) {
+        for (JsonElement element : wrappers) {
+          if (element != null) {
+            element.freeze();
+          }
+        }
+      }
+    }
+    return this;
+  }
+
+  @Override
+  public boolean isFrozen() {
+    return frozen;
+  }
+
   /**
-   * Adds the specified element to self.
+   * Returns an array with the elements of this array and {@code element} at {@code index},
+   * leaving this array unchanged, like {@link JsonObject#with(String, JsonElement)}.
+   *
+   * @param index the position of the element to replace.
+   * @param element the new element.
+   * @return the new array.
+   * @throws IndexOutOfBoundsException if {@code index} is not below the size of this array.
+   */
+  public JsonArray with(int index, JsonElement element) {
+    JsonArray copy = snapshot();
+    copy.set(index, adopt(element));
+    return frozen ? copy.freeze() : copy;
+  }
+
+  /**
+   * Returns an array with the elements of this array followed by {@code element}, leaving this
+   * array unchanged, like {@link JsonObject#with(String, JsonElement)}.
+   *
+   * @param element the element to append.
+   * @return the new array.
+   */
+  public JsonArray withAdded(JsonElement element) {
+    JsonArray copy = snapshot();
+    copy.add(adopt(element));
+    return frozen ? copy.freeze() : copy;
+  }
+
+  /**
+   * Returns an array with the elements of this array except the one at {@code index}, leaving
+   * this array unchanged, like {@link JsonObject#with(String, JsonElement)}.
+   *
+   * @param index the position of the element to leave out.
+   * @return the new array.
+   * @throws IndexOutOfBoundsException if {@code index} is not below the size of this array.
+   */
+  public JsonArray without(int index) {
+    JsonArray copy = snapshot();
+    copy.remove(index);
+    return frozen ? copy.freeze() : copy;
+  }
+
+  /**
+   * Returns {@code element}, or a snapshot of it if later changes to it could show through.
+   */
+  private static JsonElement adopt(JsonElement element) {
+    return element == null || element.isFrozen() ? element : element.snapshot();
+  }
+
+  @Override
+  void setOwner(JsonElement owner, String key, int index) {
+    this.owner = owner;
+    this.ownerKey = key;
+    this.ownerIndex = index;
+  }
+
+  @Override
+  JsonElement attachTo(JsonElement owner, String key, int index) {
+    JsonArray element = this;
+    if (!frozen && this.owner != null && (this.owner != owner || ownerIndex != index
+        || (key == null ? ownerKey != null : !key.equals(ownerKey)))) {
+      element = snapshot();
+    }
+    element.setOwner(owner, key, index);
+    return element;
+  }
+
+  @Override
+  void changed() {
+    version++;
+    if (owner != null) {
+      owner.changed();
+    }
+  }
+
+  @Override
+  int getVersion() {
+    return version;
+  }
+
+  @Override
+  void share() {
+    shared = true;
+    sharesElements = true;
+    if (wrappers != null) {
+      for (JsonElement element : wrappers) {
+        if (element != null) {
+          element.share();
+        }
+      }
+    }
+  }
+
+  private void beforeChange() {
+    if (frozen) {
+      throw new UnsupportedOperationException("The array is frozen");
+    }
+    if (shared) {
+      JavaScriptObject original = elements;
+      elements = shallowCopy(original);
+      shared = false;
+      if (owner != null) {
+        owner.replaceShared(ownerKey, ownerIndex, original, elements);
+      }
+    }
+  }
+
+  @Override
+  void replaceShared(String key, int index, JavaScriptObject value, JavaScriptObject copy) {
+    beforeChange();
+    replace(elements, key, index, value, copy);
+  }
+
+  /**
+   * Called when elements are added, replaced or removed, after {@link #beforeChange()}.
+   */
+  private void elementsChanged() {
+    changed();
+    if (rowShape != null) {
+      rowShape.retire();
+      rowShape = null;
+    }
+  }
+
+  /**
+   * Adds the specified element to self. Like {@link JsonObject#add(String, JsonElement)}, an
+   * element that already belongs to another object or array is added as a snapshot.
    *
    * @param element the element that needs to be added to the array.
    */
   public void add(JsonElement element) {
     if (element == null) {
-      elements.set(elements.size(), JSONNull.getInstance());
-    } else {
-      elements.set(elements.size(), element.getAsGwtValue());
+      element = JsonNull.createJsonNull();
     }
+    beforeChange();
+    int index = size();
+    elementsChanged();
+    element = element.attachTo(this, null, index);
+    element.putInto(elements, String.valueOf(index));
+    cacheElement(index, element);
   }
 
+  /**
+   * Replaces the element at the specified position with the specified element.
+   *
+   * @param index index of the element to replace
+   * @param element element to be stored at the specified position
+   * @return the element previously at the specified position
+   * @throws IndexOutOfBoundsException if the specified index is outside the array bounds
+   */
+  public JsonElement set(int index, JsonElement element) {
+    checkIndex(index, size() - 1);
+    if (element == null) {
+      element = JsonNull.createJsonNull();
+    }
+    JsonElement previous = get(index);
+    beforeChange();
+    elementsChanged();
+    previous.setOwner(null, null, 0);
+    element = element.attachTo(this, null, index);
+    element.putInto(elements, String.valueOf(index));
+    cacheElement(index, element);
+    return previous;
+  }
+
+  /**
+   * Removes the element at the specified position in this array. Shifts any subsequent
+   * elements to the left (subtracts one from their indices).
+   *
+   * @param index the index of the element to be removed
+   * @return the element previously at the specified position
+   * @throws IndexOutOfBoundsException if the specified index is outside the array bounds
+   */
+  public JsonElement remove(int index) {
+    checkIndex(index, size() - 1);
+    JsonElement removed = get(index);
+    beforeChange();
+    elementsChanged();
+    splice(elements, index, 1);
+    for (int i = index + 1; i < wrappers.length; i++) {
+      moveWrapper(i, i - 1);
+    }
+    wrappers[wrappers.length - 1] = null;
+    removed.setOwner(null, null, 0);
+    return removed;
+  }
+
+  /**
+   * Inserts the specified element at the specified position, shifting the element currently
+   * at that position and any subsequent elements to the right.
+   *
+   * @throws IndexOutOfBoundsException if the index is negative or greater than {@link #size()}
+   */
+  void insert(int index, JsonElement element) {
+    int size = size();
+    checkIndex(index, size);
+    if (index == size) {
+      add(element);
+      return;
+    }
+    if (element == null) {
+      element = JsonNull.createJsonNull();
+    }
+    beforeChange();
+    elementsChanged();
+    splice(elements, index, 0);
+    if (wrappers != null) {
+      cacheElement(size, null);
+      for (int i = size - 1; i >= index; i--) {
+        moveWrapper(i, i + 1);
+      }
+    }
+    element = element.attachTo(this, null, index);
+    element.putInto(elements, String.valueOf(index));
+    cacheElement(index, element);
+  }
+
+  private void checkIndex(int index, int max) {
+    if (index < 0 || index > max) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+    }
+  }
+
+  /**
+   * Moves a cached wrapper along with its element, which the backing array has already moved.
+   */
+  private void moveWrapper(int from, int to) {
+    JsonElement element = wrappers[from];
+    if (element != null) {
+      element.setOwner(this, null, to);
+    }
+    wrappers[to] = element;
+  }
+
+  /**
+   * Removes {@code count} elements at {@code index}, or inserts an undefined element there if
+   * {@code count} is zero.
+   */
+  private static native void splice(JavaScriptObject array, int index, int count) /*-{
+    if (count == 0) {
+      array.splice(index, 0, undefined);
+    } else {
+      array.splice(index, count);
+    }
+  }-*/;
+
   /**
    * Adds all the elements of the specified array to self.
    *
@@ -79,7 +387,7 @@ public final class JsonArray extends JsonElement implements Iterable<JsonElement
    * @return the number of elements in the array.
    */
   public int size() {
-    return elements.size();
+    return length(elements);
   }
 
   /**
@@ -93,11 +401,11 @@ public final class JsonArray extends JsonElement implements Iterable<JsonElement
       private int i=0;
 
       public boolean hasNext() {
-        return i<elements.size();
+        return i<size();
       }
 
       public JsonElement next() {
-        return wrap(elements.get(i++));
+        return get(i++);
       }
 
       public void remove() {
@@ -115,9 +423,119 @@ public final class JsonArray extends JsonElement implements Iterable<JsonElement
    * {@link #size()} of the array.
    */
   public JsonElement get(int i) {
-    return wrap(elements.get(i));
+    if (wrappers != null && i < wrappers.length && wrappers[i] != null) {
+      return wrappers[i];
+    }
+    JsonElement element = wrap(elements, null, i);
+    if (element instanceof JsonObject) {
+      if (rowShape == null) {
+        rowShape = new JsonObject.Shape(elements);
+      }
+      ((JsonObject) element).shape = rowShape;
+    }
+    if (element != null) {
+      element.setOwner(this, null, i);
+      if (sharesElements) {
+        element.share();
+      }
+      if (frozen) {
+        element.freeze();
+      }
+      cacheElement(i, element);
+    }
+    return element;
+  }
+
+  private void cacheElement(int i, JsonElement element) {
+    if (wrappers == null || i >= wrappers.length) {
+      int capacity = Math.max(i + 1, size());
+      if (wrappers != null) {
+        capacity = Math.max(capacity, wrappers.length * 2);
+      }
+      JsonElement[] grown = new JsonElement[capacity];
+      if (wrappers != null) {
+        System.arraycopy(wrappers, 0, grown, 0, wrappers.length);
+      }
+      wrappers = grown;
+    }
+    wrappers[i] = element;
+  }
+
+  /**
+   * Copies the elements of this array into a new array of doubles, reading the backing
+   * JavaScript array directly rather than wrapping each element. Null elements become
+   * {@link Double#NaN}; any other element that is not a number is converted as
+   * {@code get(i).getAsDouble()} would.
+   *
+   * @return the elements of this array as doubles.
+   * @throws NumberFormatException if a string element is not a valid number.
+   * @throws UnsupportedOperationException if an element is an object or an array.
+   */
+  public double[] toDoubleArray() {
+    int size = size();
+    double[] values = new double[size];
+    for (int i = 0; i < size; i++) {
+      values[i] = doubleAt(i);
+    }
+    return values;
+  }
+
+  /**
+   * Copies the elements of this array into a new array of ints, like {@link #toDoubleArray()}
+   * and then cast as {@code (int)}. Null elements therefore become zero.
+   *
+   * @return the elements of this array as ints.
+   * @throws NumberFormatException if a string element is not a valid number.
+   * @throws UnsupportedOperationException if an element is an object or an array.
+   */
+  public int[] toIntArray() {
+    int size = size();
+    int[] values = new int[size];
+    for (int i = 0; i < size; i++) {
+      values[i] = (int) doubleAt(i);
+    }
+    return values;
   }
 
+  /**
+   * Copies the elements of this array into a new array of Strings, reading the backing
+   * JavaScript array directly rather than wrapping each element. Null elements become null;
+   * numbers and booleans are converted as {@code get(i).getAsString()} would.
+   *
+   * @return the elements of this array as Strings.
+   * @throws UnsupportedOperationException if an element is an object or an array.
+   */
+  public String[] toStringArray() {
+    int size = size();
+    String[] values = new String[size];
+    for (int i = 0; i < size; i++) {
+      values[i] = stringAt(i);
+    }
+    return values;
+  }
+
+  private native double doubleAt(int i) /*-{
+    var v = this.@com.google.gson.JsonArray::elements[i];
+    if (typeof v == "number") {
+      return v;
+    }
+    if (v === null) {
+      return NaN;
+    }
+    return this.@com.google.gson.JsonArray::get(I)(i).@com.google.gson.JsonElement::getAsDouble()();
+  }-*/;
+
+  private native String stringAt(int i) /*-{
+    var v = this.@com.google.gson.JsonArray::elements[i];
+    if (typeof v == "string") {
+      return v;
+    }
+    if (v === null) {
+      return null;
+    }
+    return this.@com.google.gson.JsonArray::get(I)(i).@com.google.gson.JsonElement::getAsString()();
+  }-*/;
+
   /**
    * convenience method to get this array as a {@link Number} if it contains a single element.
    *
@@ -128,8 +546,8 @@ public final class JsonArray extends JsonElement implements Iterable<JsonElement
    */
   @Override
   public Number getAsNumber() {
-    if (elements.size() == 1) {
-      return elements.get(0).isNumber().doubleValue();
+    if (size() == 1) {
+      return get(0).getAsNumber();
     }
     throw new IllegalStateException();
   }
@@ -144,8 +562,8 @@ public final class JsonArray extends JsonElement implements Iterable<JsonElement
    */
   @Override
   public String getAsString() {
-    if (elements.size() == 1) {
-      return elements.get(0).isString().stringValue();
+    if (size() == 1) {
+      return get(0).getAsString();
     }
     throw new IllegalStateException();
   }
@@ -160,8 +578,8 @@ public final class JsonArray extends JsonElement implements Iterable<JsonElement
    */
   @Override
   public double getAsDouble() {
-    if (elements.size() == 1) {
-      return elements.get(0).isNumber().doubleValue();
+    if (size() == 1) {
+      return get(0).getAsDouble();
     }
     throw new IllegalStateException();
   }
@@ -177,8 +595,8 @@ public final class JsonArray extends JsonElement implements Iterable<JsonElement
    */
   @Override
   public float getAsFloat() {
-    if (elements.size() == 1) {
-      return (float)elements.get(0).isNumber().doubleValue();
+    if (size() == 1) {
+      return (float)get(0).getAsDouble();
     }
     throw new IllegalStateException();
   }
@@ -193,8 +611,8 @@ public final class JsonArray extends JsonElement implements Iterable<JsonElement
    */
   @Override
   public long getAsLong() {
-    if (elements.size() == 1) {
-      return Long.parseLong(elements.get(0).isNumber().toString());
+    if (size() == 1) {
+      return get(0).getAsLong();
     }
     throw new IllegalStateException();
   }
@@ -209,24 +627,24 @@ public final class JsonArray extends JsonElement implements Iterable<JsonElement
    */
   @Override
   public int getAsInt() {
-    if (elements.size() == 1) {
-      return (int)elements.get(0).isNumber().doubleValue();
+    if (size() == 1) {
+      return (int)get(0).getAsDouble();
     }
     throw new IllegalStateException();
   }
 
   @Override
   public byte getAsByte() {
-    if (elements.size() == 1) {
-      return (byte)elements.get(0).isNumber().doubleValue();
+    if (size() == 1) {
+      return (byte)get(0).getAsDouble();
     }
     throw new IllegalStateException();
   }
 
   @Override
   public char getAsCharacter() {
-    if (elements.size() == 1) {
-      return elements.get(0).isString().stringValue().charAt(0);
+    if (size() == 1) {
+      return get(0).getAsCharacter();
     }
     throw new IllegalStateException();
   }
@@ -241,8 +659,8 @@ public final class JsonArray extends JsonElement implements Iterable<JsonElement
    */
   @Override
   public short getAsShort() {
-    if (elements.size() == 1) {
-      return (short)elements.get(0).isNumber().doubleValue();
+    if (size() == 1) {
+      return (short)get(0).getAsDouble();
     }
     throw new IllegalStateException();
   }
@@ -257,8 +675,8 @@ public final class JsonArray extends JsonElement implements Iterable<JsonElement
    */
   @Override
   public boolean getAsBoolean() {
-    if (elements.size() == 1) {
-      return elements.get(0).isBoolean().booleanValue();
+    if (size() == 1) {
+      return get(0).getAsBoolean();
     }
     throw new IllegalStateException();
   }
@@ -273,15 +691,52 @@ public final class JsonArray extends JsonElement implements Iterable<JsonElement
    */
   @Override
   Object getAsObject() {
-    if (elements.size() == 1) {
-      return new JsonObject(elements.get(0).isObject());
+    if (size() == 1) {
+      return get(0).getAsJsonObject();
     }
     throw new IllegalStateException();
   }
 
 
   @Override
-  JSONValue getAsGwtValue() {
-    return elements;
+  void putInto(JavaScriptObject container, String key) {
+    set(container, key, elements);
+  }
+
+  /**
+   * Returns true if {@code o} is a JsonArray with equal elements in the same order.
+   */
+  @Override
+  public boolean equals(Object o) {
+    if (o == this) {
+      return true;
+    }
+    if (!(o instanceof JsonArray)) {
+      return false;
+    }
+    JsonArray other = (JsonArray) o;
+    if (hashVersion == version && other.hashVersion == other.version && hash != other.hash) {
+      return false;
+    }
+    return deepEquals(elements, other.elements);
+  }
+
+  /**
+   * Returns a hash code computed from the whole tree below this array. It is kept until this
+   * array, or an element read from it, is changed.
+   */
+  @Override
+  public int hashCode() {
+    if (hashVersion != version) {
+      hash = deepHashCode(elements);
+      hashVersion = version;
+    }
+    return hash;
+  }
+
+  @Override
+  public String toString() {
+    JsonMetrics.stringified();
+    return stringify(elements);
   }
 }
@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2011 bedatadriven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.gson;
+
+import com.google.gson.client.JsonCbor;
+import com.google.gwt.core.client.JavaScriptObject;
+
+/**
+ * Moves {@link JsonCbor} bytes in and out of typed arrays, which {@code XMLHttpRequest} sends
+ * and receives as they are when its {@code responseType} is "arraybuffer". This saves the
+ * third that base64 adds to the size of the bytes, and the work of encoding and decoding it.
+ *
+ * <p>Typed arrays are missing from older browsers, so check {@link #isSupported()} and fall
+ * back to {@link JsonCbor#encodeBase64} and {@link JsonCbor#decodeBase64} there. This class
+ * exists only on the client.
+ */
+public final class JsonCborArrays {
+
+  private JsonCborArrays() {
+  }
+
+  /**
+   * Returns true if this browser has typed arrays.
+   */
+  public static native boolean isSupported() /*-{
+    return typeof $wnd.Uint8Array != "undefined";
+  }-*/;
+
+  /**
+   * Returns {@code element} encoded as CBOR in a new {@code Uint8Array}. A null element is
+   * written as null.
+   */
+  public static JavaScriptObject encode(JsonElement element) {
+    byte[] bytes = JsonCbor.encode(element);
+    JavaScriptObject array = create(bytes.length);
+    for (int i = 0; i < bytes.length; i++) {
+      set(array, i, bytes[i]);
+    }
+    return array;
+  }
+
+  /**
+   * Returns the element encoded as CBOR in {@code buffer}, an {@code ArrayBuffer} or a view
+   * of one such as a {@code Uint8Array}.
+   *
+   * @throws JsonParseException if the bytes are not CBOR that {@link JsonCbor#decode(byte[])}
+   *     accepts
+   */
+  public static JsonElement decode(JavaScriptObject buffer) throws JsonParseException {
+    JavaScriptObject array = view(buffer);
+    byte[] bytes = new byte[length(array)];
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] = get(array, i);
+    }
+    return JsonCbor.decode(bytes);
+  }
+
+  private static native JavaScriptObject create(int length) /*-{
+    return new $wnd.Uint8Array(length);
+  }-*/;
+
+  private static native JavaScriptObject view(JavaScriptObject buffer) /*-{
+    return buffer.buffer
+        ? new $wnd.Uint8Array(buffer.buffer, buffer.byteOffset, buffer.byteLength)
+        : new $wnd.Uint8Array(buffer);
+  }-*/;
+
+  private static native int length(JavaScriptObject array) /*-{
+    return array.length;
+  }-*/;
+
+  private static native void set(JavaScriptObject array, int index, byte value) /*-{
+    array[index] = value;
+  }-*/;
+
+  private static native byte get(JavaScriptObject array, int index) /*-{
+    return array[index] << 24 >> 24;
+  }-*/;
+}
@@ -0,0 +1,507 @@
+/*
+ * Copyright (C) 2011 bedatadriven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.gson;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Computes and applies JSON Patches (RFC 6902), so that a change to a document can be sent
+ * as the operations that make it rather than as the whole document.
+ *
+ * <p>Objects are compared member by member and arrays element by element, after skipping
+ * their common leading and trailing elements. When the elements of an array are objects
+ * with a unique id member, {@link #diff(JsonElement, JsonElement, String)} matches them by
+ * id instead, so that an element inserted, removed or moved within a large array takes one
+ * operation rather than changing every element after it.
+ */
+public final class JsonDiff {
+
+  private JsonDiff() {
+  }
+
+  /**
+   * Returns the operations that turn {@code source} into {@code target}, matching array
+   * elements by position.
+   *
+   * @param source the document before the change.
+   * @param target the document after the change.
+   * @return the patch, which is empty if the documents are equal.
+   */
+  public static JsonArray diff(JsonElement source, JsonElement target) {
+    return diff(source, target, null);
+  }
+
+  /**
+   * Returns the operations that turn {@code source} into {@code target}. Arrays whose
+   * elements all have a distinct value for the member {@code idMember} are matched by that
+   * value, and produce {@code move} operations for reordered elements. Other arrays are
+   * matched by position.
+   *
+   * <p>The values in the patch share their JavaScript values with {@code target} like a
+   * {@link JsonElement#snapshot()}, so later changes to either do not show in the other.
+   *
+   * @param source the document before the change.
+   * @param target the document after the change.
+   * @param idMember the name of the member that identifies array elements, or null.
+   * @return the patch, which is empty if the documents are equal.
+   */
+  public static JsonArray diff(JsonElement source, JsonElement target, String idMember) {
+    JsonArray patch = new JsonArray();
+    diff(patch, "", source, target, idMember);
+    return patch;
+  }
+
+  private static void diff(JsonArray patch, String path, JsonElement a, JsonElement b,
+      String idMember) {
+    if (a.equals(b)) {
+      return;
+    }
+    if (a.isJsonObject() && b.isJsonObject()) {
+      diffObjects(patch, path, a.getAsJsonObject(), b.getAsJsonObject(), idMember);
+    } else if (a.isJsonArray() && b.isJsonArray()) {
+      diffArrays(patch, path, a.getAsJsonArray(), b.getAsJsonArray(), idMember);
+    } else {
+      patch.add(operation("replace", path, b));
+    }
+  }
+
+  private static void diffObjects(JsonArray patch, String path, JsonObject a, JsonObject b,
+      String idMember) {
+    for (String key : a.keySet()) {
+      if (!b.has(key)) {
+        patch.add(operation("remove", childPath(path, key), null));
+      }
+    }
+    for (Map.Entry<String, JsonElement> member : b.entrySet()) {
+      String memberPath = childPath(path, member.getKey());
+      JsonElement previous = a.get(member.getKey());
+      if (previous == null) {
+        patch.add(operation("add", memberPath, member.getValue()));
+      } else {
+        diff(patch, memberPath, previous, member.getValue(), idMember);
+      }
+    }
+  }
+
+  private static void diffArrays(JsonArray patch, String path, JsonArray a, JsonArray b,
+      String idMember) {
+    int start = 0;
+    int endA = a.size();
+    int endB = b.size();
+    while (start < endA && start < endB && a.get(start).equals(b.get(start))) {
+      start++;
+    }
+    while (endA > start && endB > start && a.get(endA - 1).equals(b.get(endB - 1))) {
+      endA--;
+      endB--;
+    }
+    if (idMember != null) {
+      List<String> idsA = ids(a, start, endA, idMember);
+      List<String> idsB = ids(b, start, endB, idMember);
+      if (idsA != null && idsB != null) {
+        diffKeyed(patch, path, a, b, start, endB, idsA, idsB, idMember);
+        return;
+      }
+    }
+    int common = Math.min(endA, endB) - start;
+    for (int i = start; i < start + common; i++) {
+      diff(patch, path + "/" + i, a.get(i), b.get(i), idMember);
+    }
+    for (int i = endA - 1; i >= start + common; i--) {
+      patch.add(operation("remove", path + "/" + i, null));
+    }
+    for (int i = start + common; i < endB; i++) {
+      patch.add(operation("add", path + "/" + i, b.get(i)));
+    }
+  }
+
+  /**
+   * Matches the elements of {@code a} and {@code b} between {@code start} and their own ends
+   * by id. Elements missing from {@code b} are removed first, from the last. The longest run of
+   * the remaining elements that is already in the order of {@code b} stays in place, and the
+   * other elements of {@code b} are then moved or added, in order, right after the element
+   * that precedes them in {@code b}. This takes O(n log n) time for n elements, however many
+   * are moved.
+   *
+   * <p>Every position an element takes is known in advance: its own for the elements of
+   * {@code a}, and one right after its predecessor for the elements moved or added. The
+   * positions are numbered in array order, and a Fenwick tree over them counts the occupied
+   * ones, which gives the index of each element when its operation is written.
+   */
+  private static void diffKeyed(JsonArray patch, String path, JsonArray a, JsonArray b,
+      int start, int endB, List<String> idsA, List<String> idsB, String idMember) {
+    Map<String, Integer> kept = new HashMap<String, Integer>();
+    for (int k = 0; k < idsB.size(); k++) {
+      kept.put(idsB.get(k), k);
+    }
+    List<JsonElement> current = new ArrayList<JsonElement>();
+    Map<String, Integer> positions = new HashMap<String, Integer>();
+    for (int i = idsA.size() - 1; i >= 0; i--) {
+      if (!kept.containsKey(idsA.get(i))) {
+        patch.add(operation("remove", path + "/" + (start + i), null));
+      }
+    }
+    for (int i = 0; i < idsA.size(); i++) {
+      if (kept.containsKey(idsA.get(i))) {
+        positions.put(idsA.get(i), current.size());
+        current.add(a.get(start + i));
+      }
+    }
+
+    // the position in current of each element of b, or -1 for new elements
+    int n = idsB.size();
+    int[] from = new int[n];
+    for (int k = 0; k < n; k++) {
+      Integer position = positions.get(idsB.get(k));
+      from[k] = position == null ? -1 : position;
+    }
+    boolean[] stays = longestIncreasing(from);
+
+    // number the positions: those of current in order, each followed by the places of the
+    // elements of b that come after it in b until the next one that stays
+    int[] slotOfCurrent = new int[current.size()];
+    int[] slotOfB = new int[n];
+    int slots = 0;
+    int[] stayer = new int[current.size()];
+    Arrays.fill(stayer, -1);
+    for (int k = 0; k < n; k++) {
+      if (stays[k]) {
+        stayer[from[k]] = k;
+      }
+    }
+    for (int k = 0; k < n && !stays[k]; k++) {
+      slotOfB[k] = slots++;
+    }
+    for (int p = 0; p < current.size(); p++) {
+      slotOfCurrent[p] = slots++;
+      if (stayer[p] >= 0) {
+        slotOfB[stayer[p]] = slotOfCurrent[p];
+        for (int k = stayer[p] + 1; k < n && !stays[k]; k++) {
+          slotOfB[k] = slots++;
+        }
+      }
+    }
+
+    int[] occupied = new int[slots + 1];
+    for (int p = 0; p < current.size(); p++) {
+      count(occupied, slotOfCurrent[p], 1);
+    }
+    for (int k = 0; k < n; k++) {
+      JsonElement element = b.get(start + k);
+      if (from[k] >= 0 && !stays[k]) {
+        int fromIndex = start + countBefore(occupied, slotOfCurrent[from[k]]);
+        count(occupied, slotOfCurrent[from[k]], -1);
+        count(occupied, slotOfB[k], 1);
+        int toIndex = start + countBefore(occupied, slotOfB[k]);
+        if (fromIndex != toIndex) {
+          JsonObject move = operation("move", path + "/" + toIndex, null);
+          move.addProperty("from", path + "/" + fromIndex);
+          patch.add(move);
+        }
+      } else if (from[k] < 0) {
+        count(occupied, slotOfB[k], 1);
+      }
+      String elementPath = path + "/" + (start + countBefore(occupied, slotOfB[k]));
+      if (from[k] < 0) {
+        patch.add(operation("add", elementPath, element));
+      } else {
+        diff(patch, elementPath, current.get(from[k]), element, idMember);
+      }
+    }
+  }
+
+  /**
+   * Returns which of the non-negative {@code values} form a longest strictly increasing
+   * subsequence of them.
+   */
+  private static boolean[] longestIncreasing(int[] values) {
+    int[] tails = new int[values.length];
+    int[] previous = new int[values.length];
+    int length = 0;
+    for (int k = 0; k < values.length; k++) {
+      if (values[k] < 0) {
+        continue;
+      }
+      int low = 0;
+      int high = length;
+      while (low < high) {
+        int middle = (low + high) >>> 1;
+        if (values[tails[middle]] < values[k]) {
+          low = middle + 1;
+        } else {
+          high = middle;
+        }
+      }
+      previous[k] = low > 0 ? tails[low - 1] : -1;
+      tails[low] = k;
+      if (low == length) {
+        length++;
+      }
+    }
+    boolean[] in = new boolean[values.length];
+    for (int k = length > 0 ? tails[length - 1] : -1; k >= 0; k = previous[k]) {
+      in[k] = true;
+    }
+    return in;
+  }
+
+  /**
+   * Adds {@code delta} to the count of {@code slot} in the Fenwick tree {@code tree}.
+   */
+  private static void count(int[] tree, int slot, int delta) {
+    for (int i = slot + 1; i < tree.length; i += i & -i) {
+      tree[i] += delta;
+    }
+  }
+
+  /**
+   * Returns the sum of the counts of the slots before {@code slot} in the Fenwick tree
+   * {@code tree}.
+   */
+  private static int countBefore(int[] tree, int slot) {
+    int sum = 0;
+    for (int i = slot; i > 0; i -= i & -i) {
+      sum += tree[i];
+    }
+    return sum;
+  }
+
+  /**
+   * Returns the ids of the elements of {@code array} from {@code start} to {@code end}, as the
+   * JSON text of their {@code idMember}, or null if an element has no id or two share one.
+   */
+  private static List<String> ids(JsonArray array, int start, int end, String idMember) {
+    List<String> ids = new ArrayList<String>(end - start);
+    Set<String> seen = new HashSet<String>();
+    for (int i = start; i < end; i++) {
+      JsonElement element = array.get(i);
+      if (!element.isJsonObject() || !element.getAsJsonObject().has(idMember)) {
+        return null;
+      }
+      String id = element.getAsJsonObject().get(idMember).toString();
+      if (!seen.add(id)) {
+        return null;
+      }
+      ids.add(id);
+    }
+    return ids;
+  }
+
+  private static JsonObject operation(String op, String path, JsonElement value) {
+    JsonObject operation = new JsonObject();
+    operation.addProperty("op", op);
+    operation.addProperty("path", path);
+    if (value != null) {
+      operation.add("value", value);
+    }
+    return operation;
+  }
+
+  private static String childPath(String path, String key) {
+    return path + "/" + key.replace("~", "~0").replace("/", "~1");
+  }
+
+  /**
+   * Applies a patch to {@code target}, changing it in place through the methods of
+   * {@link JsonObject} and {@link JsonArray}. Values are copied out of the patch, which is left
+   * unchanged. All six operations of RFC 6902 are supported.
+   *
+   * <p>The operations are applied one at a time, so if one of them fails, the earlier ones
+   * remain applied. Take a {@link JsonElement#snapshot()} of the target first to be able to
+   * go back.
+   *
+   * @param patch the operations to apply.
+   * @param target the document to change.
+   * @return the changed document: {@code target} itself, unless an operation replaced the
+   *     whole document.
+   * @throws IllegalArgumentException if an operation is malformed, refers to a missing
+   *     member or element, or is a {@code test} that fails.
+   */
+  public static JsonElement apply(JsonArray patch, JsonElement target) {
+    JsonElement root = target;
+    for (JsonElement element : patch) {
+      if (!element.isJsonObject()) {
+        throw new IllegalArgumentException("Not a patch operation: " + element);
+      }
+      JsonObject operation = element.getAsJsonObject();
+      String op = string(operation, "op");
+      String path = string(operation, "path");
+      if ("add".equals(op)) {
+        root = add(root, path, value(operation).deepCopy());
+      } else if ("remove".equals(op)) {
+        remove(root, path);
+      } else if ("replace".equals(op)) {
+        root = replace(root, path, value(operation).deepCopy());
+      } else if ("move".equals(op)) {
+        String from = string(operation, "from");
+        if (path.startsWith(from + "/")) {
+          throw new IllegalArgumentException("Cannot move " + from + " into itself");
+        }
+        if (!from.equals(path)) {
+          JsonElement value = existing(root, from);
+          remove(root, from);
+          root = add(root, path, value);
+        }
+      } else if ("copy".equals(op)) {
+        root = add(root, path, existing(root, string(operation, "from")).deepCopy());
+      } else if ("test".equals(op)) {
+        if (!existing(root, path).equals(value(operation))) {
+          throw new IllegalArgumentException("Test failed: " + operation);
+        }
+      } else {
+        throw new IllegalArgumentException("Unknown patch operation: " + operation);
+      }
+    }
+    return root;
+  }
+
+  private static String string(JsonObject operation, String member) {
+    JsonElement value = operation.get(member);
+    if (value == null || !value.isJsonPrimitive()) {
+      throw new IllegalArgumentException("Missing \"" + member + "\": " + operation);
+    }
+    return value.getAsString();
+  }
+
+  private static JsonElement value(JsonObject operation) {
+    JsonElement value = operation.get("value");
+    if (value == null) {
+      throw new IllegalArgumentException("Missing \"value\": " + operation);
+    }
+    return value;
+  }
+
+  private static JsonElement add(JsonElement root, String path, JsonElement value) {
+    List<String> tokens = tokens(path);
+    if (tokens.isEmpty()) {
+      return value;
+    }
+    JsonElement parent = parent(root, path, tokens);
+    String token = tokens.get(tokens.size() - 1);
+    if (parent.isJsonObject()) {
+      parent.getAsJsonObject().add(token, value);
+    } else if ("-".equals(token)) {
+      parent.getAsJsonArray().add(value);
+    } else {
+      JsonArray array = parent.getAsJsonArray();
+      int index = index(token, path);
+      if (index > array.size()) {
+        throw new IllegalArgumentException("No such element: " + path);
+      }
+      array.insert(index, value);
+    }
+    return root;
+  }
+
+  private static void remove(JsonElement root, String path) {
+    List<String> tokens = tokens(path);
+    if (tokens.isEmpty()) {
+      throw new IllegalArgumentException("Cannot remove the whole document");
+    }
+    existing(root, path);
+    JsonElement parent = parent(root, path, tokens);
+    String token = tokens.get(tokens.size() - 1);
+    if (parent.isJsonObject()) {
+      parent.getAsJsonObject().remove(token);
+    } else {
+      parent.getAsJsonArray().remove(index(token, path));
+    }
+  }
+
+  private static JsonElement replace(JsonElement root, String path, JsonElement value) {
+    List<String> tokens = tokens(path);
+    if (tokens.isEmpty()) {
+      return value;
+    }
+    existing(root, path);
+    JsonElement parent = parent(root, path, tokens);
+    String token = tokens.get(tokens.size() - 1);
+    if (parent.isJsonObject()) {
+      parent.getAsJsonObject().add(token, value);
+    } else {
+      parent.getAsJsonArray().set(index(token, path), value);
+    }
+    return root;
+  }
+
+  /**
+   * Returns the object or array that holds the value at {@code path}.
+   */
+  private static JsonElement parent(JsonElement root, String path, List<String> tokens) {
+    JsonElement parent = root;
+    for (int i = 0; i < tokens.size() - 1 && parent != null; i++) {
+      parent = child(parent, tokens.get(i));
+    }
+    if (parent == null || !(parent.isJsonObject() || parent.isJsonArray())) {
+      throw new IllegalArgumentException("No such object or array: " + path);
+    }
+    return parent;
+  }
+
+  private static JsonElement existing(JsonElement root, String path) {
+    JsonElement element = root;
+    for (String token : tokens(path)) {
+      element = child(element, token);
+      if (element == null) {
+        throw new IllegalArgumentException("No such value: " + path);
+      }
+    }
+    return element;
+  }
+
+  private static JsonElement child(JsonElement parent, String token) {
+    if (parent.isJsonObject()) {
+      return parent.getAsJsonObject().get(token);
+    }
+    if (parent.isJsonArray() && token.matches("0|[1-9][0-9]*")) {
+      JsonArray array = parent.getAsJsonArray();
+      int index = Integer.parseInt(token);
+      return index < array.size() ? array.get(index) : null;
+    }
+    return null;
+  }
+
+  private static int index(String token, String path) {
+    if (!token.matches("0|[1-9][0-9]*")) {
+      throw new IllegalArgumentException("Not an array index: " + path);
+    }
+    return Integer.parseInt(token);
+  }
+
+  /**
+   * Splits a JSON Pointer into its unescaped reference tokens.
+   */
+  private static List<String> tokens(String path) {
+    List<String> tokens = new ArrayList<String>();
+    if (path.length() == 0) {
+      return tokens;
+    }
+    if (path.charAt(0) != '/') {
+      throw new IllegalArgumentException("Not a JSON Pointer: " + path);
+    }
+    for (String token : path.substring(1).split("/", -1)) {
+      tokens.add(token.replace("~1", "/").replace("~0", "~"));
+    }
+    return tokens;
+  }
+}
@@ -16,8 +16,8 @@
 
 package com.google.gson;
 
-import com.google.gwt.json.client.JSONValue;
-
+import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.core.client.JsArrayString;
 
 /**
  * A class representing an element of Json. It could either be a {@link JsonObject}, a
@@ -28,6 +28,52 @@ import com.google.gwt.json.client.JSONValue;
  */
 public abstract class JsonElement {
 
+  /**
+   * Returns a deep copy of this element. Immutable elements like primitives and nulls are not
+   * copied.
+   *
+   * @return a copy of this element that shares no mutable state with it.
+   */
+  public abstract JsonElement deepCopy();
+
+  /**
+   * Returns a copy of this element that shares its JavaScript values with this element until
+   * either of them, or anything below them, is changed. Only the objects and arrays on the
+   * path to a change are then copied. Taking a snapshot marks the elements already read from
+   * this one as shared, so it takes time in proportion to their number, but not to the size of
+   * the document. Immutable elements are returned as is.
+   *
+   * @return a copy-on-write copy of this element.
+   */
+  public JsonElement snapshot() {
+    return deepCopy();
+  }
+
+  /**
+   * Makes this element, and every element read from it, read-only: their mutators throw an
+   * {@link UnsupportedOperationException} from then on. A frozen document can be handed to
+   * any number of readers without copying it. Versions with a change are derived with
+   * {@link JsonObject#with(String, JsonElement)} and the similar methods of {@link JsonArray},
+   * which share every unchanged value with the original, and {@link #snapshot()} returns a
+   * changeable copy-on-write copy. Primitives and nulls are immutable already.
+   *
+   * <p>Freezing takes time in proportion to the number of elements already read from this
+   * one, not to the size of the document.
+   *
+   * @return this element.
+   */
+  public JsonElement freeze() {
+    return this;
+  }
+
+  /**
+   * Returns true if this element cannot be changed: always for primitives and nulls, and for
+   * objects and arrays once they, or the element they were read from, have been frozen.
+   */
+  public boolean isFrozen() {
+    return true;
+  }
+
   /**
    * provides check for verifying if this element is an array or not.
    *
@@ -292,26 +338,387 @@ public abstract class JsonElement {
     throw new UnsupportedOperationException();
   }
 
-  abstract JSONValue getAsGwtValue();
+  /**
+   * Stores the JavaScript value of this element as {@code container[key]}. Array elements are
+   * stored under their index.
+   */
+  abstract void putInto(JavaScriptObject container, String key);
 
+  /**
+   * Records that this element was read from {@code owner} under {@code key}, or under
+   * {@code index} if {@code key} is null, so that an object or array that copies its shared
+   * values before a change can store the copy there.
+   */
+  void setOwner(JsonElement owner, String key, int index) {
+  }
+
+  /**
+   * Returns the element to store in {@code owner} under {@code key}, or under {@code index} if
+   * {@code key} is null, and records that owner. Changes to an object or array are passed on
+   * to one owner only, so an element that already belongs to another container, or to another
+   * place in this one, is stored as a snapshot instead. Immutable elements are returned as is.
+   */
+  JsonElement attachTo(JsonElement owner, String key, int index) {
+    return this;
+  }
 
-  static JsonElement wrap(JSONValue value) {
-    if(value == null)
-      return null;
-    if(value.isNull() != null)
-      return JsonNull.createJsonNull();
-    if(value.isBoolean() != null || value.isNumber() != null || value.isString() != null)
-      return new JsonPrimitive(value);
-    if(value.isObject() != null)
-      return new JsonObject(value.isObject());
-    if(value.isArray() != null)
-      return new JsonArray(value.isArray());
+  /**
+   * Called when this element, or an element read from it, has changed. Objects and arrays count
+   * their versions with this, so that a change deep inside a tree reaches every container above
+   * it through their owners. Primitives are immutable and ignore this.
+   */
+  void changed() {
+  }
 
-    throw new IllegalArgumentException();
+  /**
+   * Returns the number of changes counted by {@link #changed()}. Primitives never change.
+   */
+  int getVersion() {
+    return 0;
   }
 
-  @Override
-  public String toString() {
-    return getAsGwtValue().toString();
+  /**
+   * Marks the JavaScript values of this element as shared with a snapshot. Primitives are
+   * immutable and ignore this.
+   */
+  void share() {
   }
+
+  /**
+   * Stores {@code copy} under {@code key} or {@code index} in place of {@code value}, the
+   * shared value a member has just copied, unless that member has been replaced since.
+   */
+  void replaceShared(String key, int index, JavaScriptObject value, JavaScriptObject copy) {
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * Returns the value stored as {@code container[key]}, or as {@code container[index]} if
+   * {@code key} is null, wrapped in the matching subclass of {@link JsonElement}. Returns
+   * null if there is no such value. Reads the raw JavaScript value directly, so primitives are
+   * unwrapped without any intermediate objects. Strings in the {@link JsonStringTable} share
+   * one primitive.
+   */
+  static JsonElement wrap(JavaScriptObject container, String key, int index) {
+    JsonElement element = wrapValue(container, key, index);
+    JsonMetrics.wrapped(element);
+    return element;
+  }
+
+  private static native JsonElement wrapValue(JavaScriptObject container, String key,
+      int index) /*-{
+    var v;
+    if (key == null) {
+      v = container[index];
+    } else if (Object.prototype.hasOwnProperty.call(container, key)) {
+      v = container[key];
+    }
+    switch (typeof v) {
+      case "string":
+        var interned = @com.google.gson.JsonStringTable::table;
+        if (interned !== null) {
+          var entry = interned[":" + v];
+          if (entry) {
+            return entry.p || (entry.p = @com.google.gson.JsonPrimitive::new(Ljava/lang/String;)(entry.s));
+          }
+        }
+        return @com.google.gson.JsonPrimitive::new(Ljava/lang/String;)(v);
+      case "number":
+        return @com.google.gson.JsonPrimitive::createNumber(D)(v);
+      case "boolean":
+        return @com.google.gson.JsonPrimitive::createBoolean(Z)(v);
+      case "object":
+        if (v === null) {
+          return @com.google.gson.JsonNull::INSTANCE;
+        }
+        if (v instanceof Number) {
+          return @com.google.gson.JsonPrimitive::createNumber(Ljava/lang/String;)(v.lexeme);
+        }
+        if (Object.prototype.toString.call(v) == "[object Array]") {
+          return @com.google.gson.JsonArray::new(Lcom/google/gwt/core/client/JavaScriptObject;)(v);
+        }
+        return @com.google.gson.JsonObject::new(Lcom/google/gwt/core/client/JavaScriptObject;)(v);
+    }
+    return null;
+  }-*/;
+
+  static native void set(JavaScriptObject container, String key, JavaScriptObject value) /*-{
+    container[key] = value;
+  }-*/;
+
+  static native void set(JavaScriptObject container, String key, String value) /*-{
+    container[key] = value;
+  }-*/;
+
+  static native void set(JavaScriptObject container, String key, double value) /*-{
+    container[key] = value;
+  }-*/;
+
+  static native void set(JavaScriptObject container, String key, boolean value) /*-{
+    container[key] = value;
+  }-*/;
+
+  /**
+   * Stores the number written as {@code lexeme}. Integers of magnitude 2^53 or more, which a
+   * double may not hold exactly, are stored as a {@code Number} object that keeps the lexeme,
+   * which {@link #wrap} and {@link #stringify} use instead of the rounded value.
+   */
+  static native void setNumber(JavaScriptObject container, String key, String lexeme) /*-{
+    var n = Number(lexeme);
+    if ((n >= 9007199254740992 || n <= -9007199254740992) && /^-?[0-9]+$/.test(lexeme)) {
+      n = new Number(n);
+      n.lexeme = lexeme;
+    }
+    container[key] = n;
+  }-*/;
+
+  static native void setNull(JavaScriptObject container, String key) /*-{
+    container[key] = null;
+  }-*/;
+
+  static native void remove(JavaScriptObject object, String key) /*-{
+    delete object[key];
+  }-*/;
+
+  static native boolean has(JavaScriptObject object, String key) /*-{
+    return Object.prototype.hasOwnProperty.call(object, key);
+  }-*/;
+
+  /**
+   * Returns the own enumerable keys of {@code object}, in enumeration order.
+   */
+  static native JsArrayString keys(JavaScriptObject object) /*-{
+    var keys = [];
+    for (var key in object) {
+      if (Object.prototype.hasOwnProperty.call(object, key)) {
+        keys.push(key);
+      }
+    }
+    return keys;
+  }-*/;
+
+  static native int count(JavaScriptObject object) /*-{
+    var count = 0;
+    for (var key in object) {
+      if (Object.prototype.hasOwnProperty.call(object, key)) {
+        count++;
+      }
+    }
+    return count;
+  }-*/;
+
+  static native boolean isEmpty(JavaScriptObject object) /*-{
+    for (var key in object) {
+      if (Object.prototype.hasOwnProperty.call(object, key)) {
+        return false;
+      }
+    }
+    return true;
+  }-*/;
+
+  /**
+   * Returns true if {@code a} and {@code b} are the same JSON value, comparing objects by their
+   * members regardless of order and arrays element by element.
+   */
+  static native boolean deepEquals(JavaScriptObject a, JavaScriptObject b) /*-{
+    var hasOwn = Object.prototype.hasOwnProperty;
+    var toString = Object.prototype.toString;
+    function equals(x, y) {
+      if (x === y) {
+        return true;
+      }
+      if (typeof x != "object" || typeof y != "object" || x === null || y === null) {
+        return x !== x && y !== y;
+      }
+      if (x instanceof Number || y instanceof Number) {
+        return x instanceof Number && y instanceof Number && x.lexeme === y.lexeme;
+      }
+      var isArray = toString.call(x) == "[object Array]";
+      if (isArray != (toString.call(y) == "[object Array]")) {
+        return false;
+      }
+      if (isArray) {
+        if (x.length != y.length) {
+          return false;
+        }
+        for (var i = 0; i < x.length; i++) {
+          if (!equals(x[i], y[i])) {
+            return false;
+          }
+        }
+        return true;
+      }
+      var count = 0;
+      for (var key in x) {
+        if (hasOwn.call(x, key)) {
+          if (!hasOwn.call(y, key) || !equals(x[key], y[key])) {
+            return false;
+          }
+          count++;
+        }
+      }
+      for (var key in y) {
+        if (hasOwn.call(y, key)) {
+          count--;
+        }
+      }
+      return count == 0;
+    }
+    return equals(a, b);
+  }-*/;
+
+  /**
+   * Returns a hash code of {@code value} that is consistent with
+   * {@link #deepEquals(JavaScriptObject, JavaScriptObject)}. Like {@code Map.hashCode()}, the
+   * members of an object are combined regardless of their order.
+   */
+  static native int deepHashCode(JavaScriptObject value) /*-{
+    var hasOwn = Object.prototype.hasOwnProperty;
+    var toString = Object.prototype.toString;
+    function hashString(s) {
+      var h = 0;
+      for (var i = 0; i < s.length; i++) {
+        h = (31 * h + s.charCodeAt(i)) | 0;
+      }
+      return h;
+    }
+    function hash(v) {
+      switch (typeof v) {
+        case "string":
+          return hashString(v);
+        case "number":
+          return v === (v | 0) ? v : hashString(String(v));
+        case "boolean":
+          return v ? 1231 : 1237;
+        case "object":
+          if (v === null) {
+            return 0;
+          }
+          if (v instanceof Number) {
+            return hashString(v.lexeme);
+          }
+          var h;
+          if (toString.call(v) == "[object Array]") {
+            h = 1;
+            for (var i = 0; i < v.length; i++) {
+              h = (31 * h + hash(v[i])) | 0;
+            }
+            return h;
+          }
+          h = 0;
+          for (var key in v) {
+            if (hasOwn.call(v, key)) {
+              h = (h + (hashString(key) ^ hash(v[key]))) | 0;
+            }
+          }
+          return h;
+      }
+      return 0;
+    }
+    return hash(value);
+  }-*/;
+
+  static native int length(JavaScriptObject array) /*-{
+    return array.length;
+  }-*/;
+
+  /**
+   * Returns a new object or array with the same members or elements as {@code value}, which
+   * are not themselves copied.
+   */
+  static native JavaScriptObject shallowCopy(JavaScriptObject value) /*-{
+    if (Object.prototype.toString.call(value) == "[object Array]") {
+      return value.slice(0);
+    }
+    var copy = {};
+    for (var key in value) {
+      if (Object.prototype.hasOwnProperty.call(value, key)) {
+        copy[key] = value[key];
+      }
+    }
+    return copy;
+  }-*/;
+
+  /**
+   * Returns a copy of the whole tree below {@code value}. Boxed numbers are immutable and
+   * are shared with the copy.
+   */
+  static native JavaScriptObject deepCopy(JavaScriptObject value) /*-{
+    var hasOwn = Object.prototype.hasOwnProperty;
+    var toString = Object.prototype.toString;
+    function copy(v) {
+      if (typeof v != "object" || v === null || v instanceof Number) {
+        return v;
+      }
+      var c;
+      if (toString.call(v) == "[object Array]") {
+        c = new Array(v.length);
+        for (var i = 0; i < v.length; i++) {
+          c[i] = copy(v[i]);
+        }
+        return c;
+      }
+      c = {};
+      for (var key in v) {
+        if (hasOwn.call(v, key)) {
+          c[key] = copy(v[key]);
+        }
+      }
+      return c;
+    }
+    return copy(value);
+  }-*/;
+
+  /**
+   * Stores {@code copy} as {@code container[key]}, or as {@code container[index]} if
+   * {@code key} is null, if that is still {@code value}.
+   */
+  static native void replace(JavaScriptObject container, String key, int index,
+      JavaScriptObject value, JavaScriptObject copy) /*-{
+    var k = key == null ? index : key;
+    if (container[k] === value) {
+      container[k] = copy;
+    }
+  }-*/;
+
+  /**
+   * Serializes a JavaScript object or array in the same format as the
+   * {@code com.google.gwt.json.client} classes, with a comma and a space between members.
+   */
+  static native String stringify(JavaScriptObject value) /*-{
+    var hasOwn = Object.prototype.hasOwnProperty;
+    var toString = Object.prototype.toString;
+    function write(v) {
+      switch (typeof v) {
+        case "string":
+          return @com.google.gwt.core.client.JsonUtils::escapeValue(Ljava/lang/String;)(v);
+        case "number":
+        case "boolean":
+          return String(v);
+        case "object":
+          if (v === null) {
+            return "null";
+          }
+          if (v instanceof Number) {
+            return v.lexeme;
+          }
+          var parts = [];
+          if (toString.call(v) == "[object Array]") {
+            for (var i = 0; i < v.length; i++) {
+              parts.push(write(v[i]));
+            }
+            return "[" + parts.join(",") + "]";
+          }
+          for (var key in v) {
+            if (hasOwn.call(v, key)) {
+              parts.push(@com.google.gwt.core.client.JsonUtils::escapeValue(Ljava/lang/String;)(key)
+                  + ":" + write(v[key]));
+            }
+          }
+          return "{" + parts.join(", ") + "}";
+      }
+      return "null";
+    }
+    return write(value);
+  }-*/;
 }
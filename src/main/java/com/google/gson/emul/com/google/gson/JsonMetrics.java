@@ -0,0 +1,174 @@
+/*
+ * Copyright (C) 2011 bedatadriven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.gson;
+
+import com.google.gwt.core.client.GWT;
+
+/**
+ * Running totals of the work done by the JSON classes: how many documents were parsed, how
+ * much text and time that took, and how often wrappers were allocated, {@code entrySet()}
+ * was iterated and trees were turned back into text.
+ *
+ * <p>Recording is off by default and compiled out entirely, so that the hooks cost nothing in
+ * permutations that do not use them. Turn it on in the module of the application with
+ *
+ * <pre>
+ *   &lt;set-property name="gson.metrics" value="true"/&gt;
+ * </pre>
+ *
+ * When it is off, the totals stay zero and listeners are never called.
+ */
+public final class JsonMetrics {
+
+  /**
+   * Receives each parse as it completes, for exporting the measurements elsewhere. The other
+   * totals can be read from {@link JsonMetrics#get()} at the same time.
+   */
+  public interface Listener {
+
+    /**
+     * Called after a document of {@code chars} characters was parsed in {@code millis}
+     * milliseconds.
+     */
+    void onParse(int chars, double millis);
+  }
+
+  private static final JsonMetricsImpl impl = GWT.create(JsonMetricsImpl.class);
+
+  private static final JsonMetrics totals = new JsonMetrics();
+
+  int parseCount;
+  double parsedChars;
+  double parseMillis;
+  int wrapperCount;
+  int entrySetCount;
+  int toStringCount;
+
+  private JsonMetrics() {
+  }
+
+  /**
+   * Returns true if this permutation records metrics.
+   */
+  public static boolean isEnabled() {
+    return impl.isEnabled();
+  }
+
+  /**
+   * Returns the totals recorded since the page was loaded or since {@link #reset()}. The
+   * returned object is live and keeps counting.
+   */
+  public static JsonMetrics get() {
+    return totals;
+  }
+
+  /**
+   * Sets all totals back to zero.
+   */
+  public static void reset() {
+    totals.parseCount = 0;
+    totals.parsedChars = 0;
+    totals.parseMillis = 0;
+    totals.wrapperCount = 0;
+    totals.entrySetCount = 0;
+    totals.toStringCount = 0;
+  }
+
+  public static void addListener(Listener listener) {
+    impl.addListener(listener);
+  }
+
+  public static void removeListener(Listener listener) {
+    impl.removeListener(listener);
+  }
+
+  /**
+   * Returns the number of documents parsed successfully by {@link JsonParser#parse(String)},
+   * {@link JsonParser#parse(String, FieldSelector)} and {@link Gson#fromJson(String, Class)}.
+   */
+  public int getParseCount() {
+    return parseCount;
+  }
+
+  /**
+   * Returns the total length of the parsed documents, in characters.
+   */
+  public double getParsedChars() {
+    return parsedChars;
+  }
+
+  /**
+   * Returns the total time spent in the parses counted by {@link #getParseCount()}.
+   */
+  public double getParseMillis() {
+    return parseMillis;
+  }
+
+  /**
+   * Returns the number of {@link JsonObject}s, {@link JsonArray}s and {@link JsonPrimitive}s
+   * created to wrap parsed or stored JavaScript values.
+   */
+  public int getWrapperCount() {
+    return wrapperCount;
+  }
+
+  /**
+   * Returns the number of iterators created over {@link JsonObject#entrySet()}, each of which
+   * lists the names of the members.
+   */
+  public int getEntrySetCount() {
+    return entrySetCount;
+  }
+
+  /**
+   * Returns the number of {@link JsonObject}s and {@link JsonArray}s turned into JSON text by
+   * {@code toString()}.
+   */
+  public int getToStringCount() {
+    return toStringCount;
+  }
+
+  @Override
+  public String toString() {
+    return "JsonMetrics[parses=" + parseCount + ", chars=" + parsedChars + ", millis="
+        + parseMillis + ", wrappers=" + wrapperCount + ", entrySets=" + entrySetCount
+        + ", toStrings=" + toStringCount + "]";
+  }
+
+  /**
+   * Returns the time at which a parse starts, to be passed to {@link #endParse}.
+   */
+  static double startParse() {
+    return impl.startParse();
+  }
+
+  static void endParse(String json, double start) {
+    impl.endParse(totals, json, start);
+  }
+
+  static void wrapped(JsonElement element) {
+    impl.wrapped(totals, element);
+  }
+
+  static void iteratedEntrySet() {
+    impl.iteratedEntrySet(totals);
+  }
+
+  static void stringified() {
+    impl.stringified(totals);
+  }
+}
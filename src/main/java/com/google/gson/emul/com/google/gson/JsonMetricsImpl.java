@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) 2011 bedatadriven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.gson;
+
+/**
+ * Records {@link JsonMetrics}. This default implementation records nothing, and once the
+ * compiler has inlined its empty methods the hooks that call them disappear. Permutations with
+ * the {@code gson.metrics} property set to true are bound to {@link JsonMetricsImplEnabled}
+ * instead, see {@code Gson.gwt.xml}.
+ */
+class JsonMetricsImpl {
+
+  boolean isEnabled() {
+    return false;
+  }
+
+  void addListener(JsonMetrics.Listener listener) {
+  }
+
+  void removeListener(JsonMetrics.Listener listener) {
+  }
+
+  double startParse() {
+    return 0;
+  }
+
+  void endParse(JsonMetrics totals, String json, double start) {
+  }
+
+  void wrapped(JsonMetrics totals, JsonElement element) {
+  }
+
+  void iteratedEntrySet(JsonMetrics totals) {
+  }
+
+  void stringified(JsonMetrics totals) {
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2011 bedatadriven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.gson;
+
+import com.google.gwt.core.client.Duration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link JsonMetricsImpl} for permutations with the {@code gson.metrics} property set to true.
+ */
+class JsonMetricsImplEnabled extends JsonMetricsImpl {
+
+  private final List<JsonMetrics.Listener> listeners = new ArrayList<JsonMetrics.Listener>();
+
+  @Override
+  boolean isEnabled() {
+    return true;
+  }
+
+  @Override
+  void addListener(JsonMetrics.Listener listener) {
+    if (listener == null) {
+      throw new NullPointerException();
+    }
+    listeners.add(listener);
+  }
+
+  @Override
+  void removeListener(JsonMetrics.Listener listener) {
+    listeners.remove(listener);
+  }
+
+  @Override
+  double startParse() {
+    return Duration.currentTimeMillis();
+  }
+
+  @Override
+  void endParse(JsonMetrics totals, String json, double start) {
+    double millis = Duration.currentTimeMillis() - start;
+    totals.parseCount++;
+    totals.parsedChars += json.length();
+    totals.parseMillis += millis;
+    for (JsonMetrics.Listener listener : new ArrayList<JsonMetrics.Listener>(listeners)) {
+      listener.onParse(json.length(), millis);
+    }
+  }
+
+  @Override
+  void wrapped(JsonMetrics totals, JsonElement element) {
+    if (element != null && element != JsonNull.INSTANCE) {
+      totals.wrapperCount++;
+    }
+  }
+
+  @Override
+  void iteratedEntrySet(JsonMetrics totals) {
+    totals.entrySetCount++;
+  }
+
+  @Override
+  void stringified(JsonMetrics totals) {
+    totals.toStringCount++;
+  }
+}
@@ -16,15 +16,12 @@
 
 package com.google.gson;
 
-import com.google.gwt.json.client.JSONNull;
-import com.google.gwt.json.client.JSONValue;
+import com.google.gwt.core.client.JavaScriptObject;
 
 public final class JsonNull extends JsonElement {
   
   public static final JsonNull INSTANCE = new JsonNull();
 
-  private JSONNull inner = JSONNull.getInstance();
-
   /**
    * Creates a new JsonNull object.
    */
@@ -32,9 +29,14 @@ public final class JsonNull extends JsonElement {
     // Do nothing
   }
 
+  @Override
+  public JsonNull deepCopy() {
+    return INSTANCE;
+  }
+
   @Override
   public String toString() {
-    return inner.toString();
+    return "null";
   }
 
   /**
@@ -42,7 +44,7 @@ public final class JsonNull extends JsonElement {
    */
   @Override
   public int hashCode() {
-    return inner.hashCode();
+    return JsonNull.class.hashCode();
   }
 
   /**
@@ -68,8 +70,8 @@ public final class JsonNull extends JsonElement {
   }
 
   @Override
-  JSONValue getAsGwtValue() {
-    return inner;
+  void putInto(JavaScriptObject container, String key) {
+    setNull(container, key);
   }
 }
 
@@ -16,13 +16,16 @@
 
 package com.google.gson;
 
-import com.google.gwt.json.client.JSONNull;
-import com.google.gwt.json.client.JSONObject;
-import com.google.gwt.json.client.JSONValue;
+import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.core.client.JsArrayString;
 
-import java.util.HashSet;
-import java.util.LinkedHashSet;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 /**
@@ -35,23 +38,264 @@ import java.util.Set;
  */
 public final class JsonObject extends JsonElement {
 
-  private final JSONObject inner;
+  private JavaScriptObject inner;
+
+  /**
+   * The wrappers already handed out for members of this object, so that repeated
+   * lookups of the same member return the same {@link JsonElement} rather than
+   * allocating a new one each time. Created lazily on first access.
+   */
+  private Map<String, JsonElement> members;
+
+  private Set<Map.Entry<String, JsonElement>> entrySet;
+  private Set<String> keySet;
+
+  /**
+   * The names of the members of this object, in enumeration order, or null if they have not
+   * been listed since the last member was added or removed. The array may be shared with
+   * other objects and is never modified.
+   */
+  private JsArrayString keyList;
+
+  /**
+   * Counts the changes to this object and to the elements read from it, see
+   * {@link JsonElement#changed()}. The hash code is valid while {@code hashVersion} equals it.
+   */
+  private int version;
+  private int hash;
+  private int hashVersion = -1;
+
+  /**
+   * The key list shared with the sibling objects of the array this object was read from, if
+   * any.
+   */
+  Shape shape;
+
+  /**
+   * True while {@code inner} is shared with a snapshot, so that it must be copied before it
+   * is changed.
+   */
+  private boolean shared;
+
+  /**
+   * True if the members of this object may be shared with a snapshot. This stays set after
+   * {@code inner} itself has been copied, since the copy still refers to the same members.
+   */
+  private boolean sharesMembers;
+
+  /**
+   * The object or array this object was read from and its key or index there, where a copy of
+   * {@code inner} replaces the shared one.
+   */
+  private JsonElement owner;
+  private String ownerKey;
+  private int ownerIndex;
+
+  /**
+   * True once this object has been frozen, see {@link JsonElement#freeze()}.
+   */
+  private boolean frozen;
+
+  /**
+   * Holds the member names shared by the objects of one array, typically its rows. When the
+   * first of them is listed, all the objects of the array are compared with it in one pass. If
+   * they have the same members in the same order, each of them takes this list from then on
+   * without enumerating its own keys. Otherwise objects reuse the list of the last one listed
+   * when it matches theirs. An object drops its shape when its members change, and the array
+   * replaces its shape when its elements change.
+   */
+  static final class Shape {
+    private final JavaScriptObject rows;
+    private JsArrayString keys;
+    private boolean checked;
+    private boolean uniform;
+
+    Shape(JavaScriptObject rows) {
+      this.rows = rows;
+    }
+
+    /**
+     * Called when elements of the array are added, replaced or removed. A shape that has been
+     * checked stays valid for the objects that use it, whose members did not change, but one
+     * that has not been checked yet is never trusted.
+     */
+    void retire() {
+      checked = true;
+    }
+
+    /**
+     * Returns the member names of {@code object}, one of the objects of the array.
+     */
+    JsArrayString keysOf(JavaScriptObject object) {
+      if (!checked) {
+        checked = true;
+        keys = JsonElement.keys(object);
+        uniform = hasUniformObjects(rows, keys);
+      } else if (!uniform && (keys == null || !hasKeys(object, keys))) {
+        keys = JsonElement.keys(object);
+      }
+      return keys;
+    }
+  }
 
   /**
    * Creates an empty JsonObject.
    */
   public JsonObject() {
-    inner = new JSONObject();
+    inner = JavaScriptObject.createObject();
   }
 
-  JsonObject(JSONObject inner) {
+  JsonObject(JavaScriptObject inner) {
     this.inner = inner;
   }
 
+  @Override
+  public JsonObject deepCopy() {
+    return new JsonObject(deepCopy(inner));
+  }
+
+  /**
+   * Returns a copy of this object that shares its members with this object until either of
+   * them, or anything below them, is changed. Only the objects and arrays on the path to a
+   * change are then copied, which makes this suited to keeping old versions of a large
+   * document, such as an undo history.
+   *
+   * @return a copy-on-write copy of this object.
+   */
+  @Override
+  public JsonObject snapshot() {
+    if (!frozen) {
+      share();
+    }
+    JsonObject copy = new JsonObject(inner);
+    copy.shape = shape;
+    copy.share();
+    return copy;
+  }
+
+  @Override
+  public JsonObject freeze() {
+    if (!frozen) {
+      frozen = true;
+      if (members != null) {
+        for (JsonElement member : members.values()) {
+          member.freeze();
+        }
+      }
+    }
+    return this;
+  }
+
+  @Override
+  public boolean isFrozen() {
+    return frozen;
+  }
+
+  /**
+   * Returns an object with the members of this object and {@code value} as {@code property},
+   * leaving this object unchanged. The other members are shared with this object as by
+   * {@link #snapshot()}, so this takes time in proportion to the number of members of this
+   * object, but not to the size of the values below them. The result is frozen if this object
+   * is.
+   *
+   * @param property name of the member.
+   * @param value the member, which is not affected by later changes to {@code value}.
+   * @return the new object.
+   */
+  public JsonObject with(String property, JsonElement value) {
+    JsonObject copy = snapshot();
+    copy.add(property, value == null || value.isFrozen() ? value : value.snapshot());
+    return frozen ? copy.freeze() : copy;
+  }
+
+  /**
+   * Returns an object with the members of this object except {@code property}, leaving this
+   * object unchanged, like {@link #with(String, JsonElement)}.
+   *
+   * @param property name of the member to leave out.
+   * @return the new object.
+   */
+  public JsonObject without(String property) {
+    JsonObject copy = snapshot();
+    copy.removeAll(Collections.singleton(property));
+    return frozen ? copy.freeze() : copy;
+  }
+
+  @Override
+  void setOwner(JsonElement owner, String key, int index) {
+    this.owner = owner;
+    this.ownerKey = key;
+    this.ownerIndex = index;
+  }
+
+  @Override
+  JsonElement attachTo(JsonElement owner, String key, int index) {
+    JsonObject element = this;
+    if (!frozen && this.owner != null && (this.owner != owner || ownerIndex != index
+        || (key == null ? ownerKey != null : !key.equals(ownerKey)))) {
+      element = snapshot();
+    }
+    element.setOwner(owner, key, index);
+    return element;
+  }
+
+  @Override
+  void changed() {
+    version++;
+    if (owner != null) {
+      owner.changed();
+    }
+  }
+
+  @Override
+  int getVersion() {
+    return version;
+  }
+
+  @Override
+  void share() {
+    shared = true;
+    shareMembers();
+  }
+
+  private void shareMembers() {
+    sharesMembers = true;
+    if (members != null) {
+      for (JsonElement member : members.values()) {
+        member.share();
+      }
+    }
+  }
+
+  /**
+   * Copies {@code inner} if it is shared with a snapshot, and stores the copy in the owner of
+   * this object in place of the shared one. Called before every change.
+   */
+  private void beforeChange() {
+    if (frozen) {
+      throw new UnsupportedOperationException("The object is frozen");
+    }
+    if (shared) {
+      JavaScriptObject original = inner;
+      inner = shallowCopy(original);
+      shared = false;
+      if (owner != null) {
+        owner.replaceShared(ownerKey, ownerIndex, original, inner);
+      }
+    }
+  }
+
+  @Override
+  void replaceShared(String key, int index, JavaScriptObject value, JavaScriptObject copy) {
+    beforeChange();
+    replace(inner, key, index, value, copy);
+  }
+
   /**
    * Adds a member, which is a name-value pair, to self. The name must be a String, but the value
    * can be an arbitrary JsonElement, thereby allowing you to build a full tree of JsonElements
-   * rooted at this node.
+   * rooted at this node. A value that already belongs to another object or array is added as a
+   * {@link JsonElement#snapshot()}, so that later changes to either of them are not shared.
    *
    * @param property name of the member.
    * @param value the member object.
@@ -60,25 +304,131 @@ public final class JsonObject extends JsonElement {
     assert property != null && property.length() != 0;
 
     if (value == null) {
-      inner.put(property, JSONNull.getInstance());
+      value = JsonNull.createJsonNull();
+    }
+    beforeChange();
+    if (!has(inner, property)) {
+      keysChanged();
     } else {
-      inner.put(property, value.getAsGwtValue());
+      detach(property);
     }
+    changed();
+    value = value.attachTo(this, property, 0);
+    value.putInto(inner, property);
+    cacheMember(property, value);
   }
 
   /**
    * Removes the {@code property} from this {@link JsonObject}.
    *
    * @param property name of the member that should be removed.
-   * @return the {@link JsonElement} object that is being removed.
+   * @return the {@link JsonElement} object that is being removed, or null if there was none.
    * @since 1.3
    */
   public JsonElement remove(String property) {
-    JsonElement toRemove = wrap(inner.get(property));
-    inner.put(property, null);
+    if (!has(inner, property)) {
+      return null;
+    }
+    JsonElement toRemove = get(property);
+    beforeChange();
+    keysChanged();
+    changed();
+    remove(inner, property);
+    detach(property);
     return toRemove;
   }
 
+  /**
+   * Adds all the members of {@code other} to this object, replacing any members with the same
+   * names. The values are copied in one pass without being wrapped, and are shared with
+   * {@code other} like the members of a {@link #snapshot()}.
+   *
+   * @param other the object whose members should be added.
+   */
+  public void putAll(JsonObject other) {
+    if (other == this) {
+      return;
+    }
+    beforeChange();
+    putAll(inner, other.inner);
+    keysChanged();
+    changed();
+    if (members != null) {
+      for (Iterator<Map.Entry<String, JsonElement>> it = members.entrySet().iterator();
+          it.hasNext(); ) {
+        Map.Entry<String, JsonElement> member = it.next();
+        if (has(other.inner, member.getKey())) {
+          member.getValue().setOwner(null, null, 0);
+          it.remove();
+        }
+      }
+    }
+    // a member passes its changes to one owner, so both objects copy the values before changing
+    if (!other.frozen) {
+      other.shareMembers();
+    }
+    sharesMembers = true;
+  }
+
+  /**
+   * Removes the members with the given names. Unlike {@link #remove(String)}, the removed
+   * values are not wrapped.
+   *
+   * @param properties the names of the members that should be removed.
+   * @return true if any member was removed.
+   */
+  public boolean removeAll(Collection<String> properties) {
+    return removeKeys(presentKeys(inner, toArray(properties)));
+  }
+
+  /**
+   * Removes every member whose name is not in {@code properties}.
+   *
+   * @param properties the names of the members that should be kept.
+   * @return true if any member was removed.
+   */
+  public boolean retainKeys(Collection<String> properties) {
+    return removeKeys(otherKeys(inner, toArray(properties)));
+  }
+
+  /**
+   * Removes the members named by {@code keys}, which are all members of this object.
+   */
+  private boolean removeKeys(JsArrayString keys) {
+    if (keys.length() == 0) {
+      return false;
+    }
+    beforeChange();
+    removeKeys(inner, keys);
+    keysChanged();
+    changed();
+    for (int i = 0; i < keys.length(); i++) {
+      detach(keys.get(i));
+    }
+    return true;
+  }
+
+  /**
+   * Forgets the wrapper of a member that has been removed or replaced, which no longer passes
+   * its changes to this object.
+   */
+  private void detach(String property) {
+    if (members != null) {
+      JsonElement member = members.remove(property);
+      if (member != null) {
+        member.setOwner(null, null, 0);
+      }
+    }
+  }
+
+  private static JsArrayString toArray(Collection<String> strings) {
+    JsArrayString array = JavaScriptObject.createArray().cast();
+    for (String string : strings) {
+      array.push(string);
+    }
+    return array;
+  }
+
   /**
    * Convenience method to add a primitive member. The specified value is converted to a
    * JsonPrimitive of String.
@@ -157,14 +507,47 @@ public final class JsonObject extends JsonElement {
    * Returns a set of members of this object. The set is ordered, and the order is in which the
    * elements were added.
    *
+   * <p>The set is a live view of this object: members added or removed later are reflected in
+   * it, and removing from it removes the member. Nothing is computed until the set is used.
+   * Each iterator works from a snapshot of the keys taken when it is created.
+   *
    * @return a set of members of this object.
    */
   public Set<Map.Entry<String, JsonElement>> entrySet() {
-    LinkedHashSet<Map.Entry<String, JsonElement>> set = new LinkedHashSet<Map.Entry<String, JsonElement>>();
-    for(String key : inner.keySet()) {
-      set.add(new Entry(key));
+    if (entrySet == null) {
+      entrySet = new EntrySet();
+    }
+    return entrySet;
+  }
+
+  /**
+   * Returns the names of the members of this object, as a live view like {@link #entrySet()}.
+   *
+   * @return the names of the members of this object.
+   */
+  public Set<String> keySet() {
+    if (keySet == null) {
+      keySet = new KeySet();
     }
-    return set;
+    return keySet;
+  }
+
+  /**
+   * Returns the number of members of this object.
+   *
+   * @return the number of members of this object.
+   */
+  public int size() {
+    return keyList != null ? keyList.length() : count(inner);
+  }
+
+  /**
+   * Returns true if this object has no members.
+   *
+   * @return true if this object has no members.
+   */
+  public boolean isEmpty() {
+    return isEmpty(inner);
   }
 
   /**
@@ -174,7 +557,7 @@ public final class JsonObject extends JsonElement {
    * @return true if there is a member with the specified name, false otherwise.
    */
   public boolean has(String memberName) {
-    return inner.containsKey(memberName);
+    return has(inner, memberName);
   }
 
   /**
@@ -184,7 +567,31 @@ public final class JsonObject extends JsonElement {
    * @return the member matching the name. Null if no such member exists.
    */
   public JsonElement get(String memberName) {
-    return wrap(inner.get(memberName));
+    if (members != null) {
+      JsonElement member = members.get(memberName);
+      if (member != null) {
+        return member;
+      }
+    }
+    JsonElement member = wrap(inner, memberName, 0);
+    if (member != null) {
+      member.setOwner(this, memberName, 0);
+      if (sharesMembers) {
+        member.share();
+      }
+      if (frozen) {
+        member.freeze();
+      }
+      cacheMember(memberName, member);
+    }
+    return member;
+  }
+
+  private void cacheMember(String memberName, JsonElement member) {
+    if (members == null) {
+      members = new HashMap<String, JsonElement>();
+    }
+    members.put(memberName, member);
   }
 
   /**
@@ -218,8 +625,297 @@ public final class JsonObject extends JsonElement {
   }
 
   @Override
-  JSONValue getAsGwtValue() {
-    return inner;
+  void putInto(JavaScriptObject container, String key) {
+    set(container, key, inner);
+  }
+
+  /**
+   * Returns true if {@code o} is a JsonObject with equal members, in any order.
+   */
+  @Override
+  public boolean equals(Object o) {
+    if (o == this) {
+      return true;
+    }
+    if (!(o instanceof JsonObject)) {
+      return false;
+    }
+    JsonObject other = (JsonObject) o;
+    if (hashVersion == version && other.hashVersion == other.version && hash != other.hash) {
+      return false;
+    }
+    return deepEquals(inner, other.inner);
+  }
+
+  /**
+   * Returns a hash code computed from the whole tree below this object. It is kept until this
+   * object, or an element read from it, is changed.
+   */
+  @Override
+  public int hashCode() {
+    if (hashVersion != version) {
+      hash = deepHashCode(inner);
+      hashVersion = version;
+    }
+    return hash;
+  }
+
+  @Override
+  public String toString() {
+    JsonMetrics.stringified();
+    return stringify(inner);
+  }
+
+  /**
+   * Returns the names of the members of this object. If the object has the same members in the
+   * same order as its last listed sibling, that sibling's list is reused rather than
+   * enumerating the keys into a new one, and either way the list is kept until a member is
+   * added or removed.
+   */
+  private JsArrayString keys() {
+    if (keyList == null) {
+      keyList = shape != null ? shape.keysOf(inner) : keys(inner);
+    }
+    return keyList;
+  }
+
+  /**
+   * Forgets the member names, after a member has been added or removed.
+   */
+  private void keysChanged() {
+    keyList = null;
+    shape = null;
+  }
+
+  private static native void putAll(JavaScriptObject target, JavaScriptObject source) /*-{
+    for (var key in source) {
+      if (Object.prototype.hasOwnProperty.call(source, key)) {
+        target[key] = source[key];
+      }
+    }
+  }-*/;
+
+  /**
+   * Returns the names among {@code names} of the own members of {@code object}.
+   */
+  private static native JsArrayString presentKeys(JavaScriptObject object,
+      JsArrayString names) /*-{
+    var present = [];
+    for (var i = 0; i < names.length; i++) {
+      if (names[i] != null && Object.prototype.hasOwnProperty.call(object, names[i])) {
+        present.push(names[i]);
+      }
+    }
+    return present;
+  }-*/;
+
+  /**
+   * Returns the names of the own members of {@code object} that are not among {@code names}.
+   */
+  private static native JsArrayString otherKeys(JavaScriptObject object,
+      JsArrayString names) /*-{
+    var kept = {};
+    for (var i = 0; i < names.length; i++) {
+      if (names[i] != null) {
+        kept[":" + names[i]] = true;
+      }
+    }
+    var others = [];
+    for (var key in object) {
+      if (Object.prototype.hasOwnProperty.call(object, key) && !kept[":" + key]) {
+        others.push(key);
+      }
+    }
+    return others;
+  }-*/;
+
+  private static native void removeKeys(JavaScriptObject object, JsArrayString keys) /*-{
+    for (var i = 0; i < keys.length; i++) {
+      delete object[keys[i]];
+    }
+  }-*/;
+
+  /**
+   * Returns true if the own keys of {@code object} are exactly {@code keys}, in order.
+   */
+  private static native boolean hasKeys(JavaScriptObject object, JsArrayString keys) /*-{
+    var i = 0;
+    for (var key in object) {
+      if (Object.prototype.hasOwnProperty.call(object, key)) {
+        if (keys[i++] !== key) {
+          return false;
+        }
+      }
+    }
+    return i == keys.length;
+  }-*/;
+
+  /**
+   * Returns true if every object among {@code rows} has exactly the own keys {@code keys}, in
+   * order. Values other than objects are skipped.
+   */
+  private static native boolean hasUniformObjects(JavaScriptObject rows, JsArrayString keys) /*-{
+    var hasOwn = Object.prototype.hasOwnProperty;
+    var toString = Object.prototype.toString;
+    for (var r = 0; r < rows.length; r++) {
+      var row = rows[r];
+      if (row === null || typeof row != "object" || row instanceof Number
+          || toString.call(row) == "[object Array]") {
+        continue;
+      }
+      var i = 0;
+      for (var key in row) {
+        if (hasOwn.call(row, key) && keys[i++] !== key) {
+          return false;
+        }
+      }
+      if (i != keys.length) {
+        return false;
+      }
+    }
+    return true;
+  }-*/;
+
+  private class EntrySet extends AbstractSet<Map.Entry<String, JsonElement>> {
+
+    @Override
+    public Iterator<Map.Entry<String, JsonElement>> iterator() {
+      JsonMetrics.iteratedEntrySet();
+      return new KeyIterator<Map.Entry<String, JsonElement>>() {
+        @Override
+        Map.Entry<String, JsonElement> element(String key) {
+          return new Entry(key);
+        }
+      };
+    }
+
+    @Override
+    public int size() {
+      return JsonObject.this.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+      return JsonObject.this.isEmpty();
+    }
+
+    @Override
+    public boolean contains(Object o) {
+      if (!(o instanceof Map.Entry)) {
+        return false;
+      }
+      Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+      Object key = entry.getKey();
+      if (!(key instanceof String) || !has((String) key)) {
+        return false;
+      }
+      return get((String) key).equals(entry.getValue());
+    }
+
+    @Override
+    public boolean remove(Object o) {
+      if (!contains(o)) {
+        return false;
+      }
+      JsonObject.this.remove((String) ((Map.Entry<?, ?>) o).getKey());
+      return true;
+    }
+
+    @Override
+    public void clear() {
+      JsonObject.this.clear();
+    }
+  }
+
+  private class KeySet extends AbstractSet<String> {
+
+    @Override
+    public Iterator<String> iterator() {
+      return new KeyIterator<String>() {
+        @Override
+        String element(String key) {
+          return key;
+        }
+      };
+    }
+
+    @Override
+    public int size() {
+      return JsonObject.this.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+      return JsonObject.this.isEmpty();
+    }
+
+    @Override
+    public boolean contains(Object o) {
+      return o instanceof String && has((String) o);
+    }
+
+    @Override
+    public boolean remove(Object o) {
+      if (!contains(o)) {
+        return false;
+      }
+      JsonObject.this.remove((String) o);
+      return true;
+    }
+
+    @Override
+    public void clear() {
+      JsonObject.this.clear();
+    }
+  }
+
+  private void clear() {
+    beforeChange();
+    JsArrayString keys = keys();
+    for (int i = 0; i < keys.length(); i++) {
+      remove(inner, keys.get(i));
+    }
+    keysChanged();
+    if (members != null) {
+      for (JsonElement member : members.values()) {
+        member.setOwner(null, null, 0);
+      }
+      members = null;
+    }
+    changed();
+  }
+
+  /**
+   * Iterates over a snapshot of the keys taken when the iterator is created; JavaScript offers
+   * no way to suspend a for-in loop. Entries are not reused between calls to {@link #next()},
+   * since callers such as {@code toArray()} keep them.
+   */
+  private abstract class KeyIterator<T> implements Iterator<T> {
+    private final JsArrayString keys = keys();
+    private int index;
+    private String current;
+
+    public boolean hasNext() {
+      return index < keys.length();
+    }
+
+    public T next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      current = keys.get(index++);
+      return element(current);
+    }
+
+    abstract T element(String key);
+
+    public void remove() {
+      if (current == null) {
+        throw new IllegalStateException();
+      }
+      JsonObject.this.remove(current);
+      current = null;
+    }
   }
 
   private class Entry implements Map.Entry<String, JsonElement> {
@@ -234,14 +930,31 @@ public final class JsonObject extends JsonElement {
     }
 
     public JsonElement getValue() {
-      return wrap(inner.get(key));
+      return get(key);
     }
 
     public JsonElement setValue(JsonElement value) {
-      JsonElement element = wrap(inner.get(key));
+      JsonElement element = get(key);
       add(key, value);
       return element;
     }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Map.Entry)) {
+        return false;
+      }
+      Map.Entry<?, ?> other = (Map.Entry<?, ?>) o;
+      JsonElement value = getValue();
+      return key.equals(other.getKey())
+          && (value == null ? other.getValue() == null : value.equals(other.getValue()));
+    }
+
+    @Override
+    public int hashCode() {
+      JsonElement value = getValue();
+      return key.hashCode() ^ (value == null ? 0 : value.hashCode());
+    }
   }
 
 }
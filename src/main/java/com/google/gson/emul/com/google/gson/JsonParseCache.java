@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) 2011 bedatadriven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.gson;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Parses JSON text through a {@link JsonParser}, keeping the trees of recently parsed texts
+ * so that a text seen again, such as an unchanged response to a poll, is not parsed again.
+ * The least recently used trees are dropped once the texts kept add up to more than a
+ * given number of characters.
+ *
+ * <p>Texts are looked up by their length and a hash of their characters, and a hit is
+ * confirmed by comparing the text kept with the entry, so a long text is never copied into
+ * a map key. The cached trees are frozen, and each call returns a
+ * {@link JsonElement#snapshot()} of one, so callers can change what they receive without
+ * affecting the cache or each other.
+ */
+public final class JsonParseCache {
+
+  private final JsonParser parser;
+  private final int maxChars;
+  private final Map<String, Entry> trees = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+  private int chars;
+  private int hitCount;
+  private int missCount;
+
+  /**
+   * Creates a cache in front of a default {@link JsonParser}.
+   *
+   * @param maxChars the total length of the texts whose trees are kept.
+   */
+  public JsonParseCache(int maxChars) {
+    this(new JsonParser(), maxChars);
+  }
+
+  /**
+   * Creates a cache in front of {@code parser}, whose settings then apply to every text
+   * parsed.
+   *
+   * @param parser the parser of texts that are not in the cache.
+   * @param maxChars the total length of the texts whose trees are kept.
+   */
+  public JsonParseCache(JsonParser parser, int maxChars) {
+    if (maxChars < 0) {
+      throw new IllegalArgumentException("maxChars < 0: " + maxChars);
+    }
+    this.parser = parser;
+    this.maxChars = maxChars;
+  }
+
+  /**
+   * Parses the specified JSON string into a parse tree, or returns a copy of the tree cached
+   * for the same text.
+   *
+   * @param json JSON text
+   * @return a parse tree that the caller may change
+   * @throws JsonParseException if the specified text is not valid JSON
+   */
+  public JsonElement parse(String json) throws JsonParseException {
+    String key = json.length() + ":" + hash(json);
+    Entry entry = trees.get(key);
+    if (entry != null && entry.json.equals(json)) {
+      hitCount++;
+      return entry.tree.snapshot();
+    }
+    missCount++;
+    JsonElement tree = parser.parse(json);
+    if (json.length() <= maxChars) {
+      Entry replaced = trees.put(key, new Entry(json, tree.freeze()));
+      if (replaced != null) {
+        chars -= replaced.json.length();
+      }
+      chars += json.length();
+      evict();
+      return tree.snapshot();
+    }
+    return tree;
+  }
+
+  private void evict() {
+    Iterator<Entry> eldest = trees.values().iterator();
+    while (chars > maxChars) {
+      chars -= eldest.next().json.length();
+      eldest.remove();
+    }
+  }
+
+  /**
+   * Returns the hash code of {@code json} like {@link String#hashCode()}, but without the
+   * cache of hash codes that GWT keeps by string value.
+   */
+  private static native int hash(String json) /*-{
+    var h = 0;
+    for (var i = 0; i < json.length; i++) {
+      h = (31 * h + json.charCodeAt(i)) | 0;
+    }
+    return h;
+  }-*/;
+
+  /**
+   * A cached text and its frozen tree.
+   */
+  private static final class Entry {
+    final String json;
+    final JsonElement tree;
+
+    Entry(String json, JsonElement tree) {
+      this.json = json;
+      this.tree = tree;
+    }
+  }
+
+  /**
+   * Drops every cached tree. The hit and miss counts are kept.
+   */
+  public void clear() {
+    trees.clear();
+    chars = 0;
+  }
+
+  /**
+   * Returns the number of trees cached.
+   */
+  public int size() {
+    return trees.size();
+  }
+
+  /**
+   * Returns the total length of the texts whose trees are cached.
+   */
+  public int getCachedChars() {
+    return chars;
+  }
+
+  /**
+   * Returns the number of calls to {@link #parse(String)} answered from the cache.
+   */
+  public int getHitCount() {
+    return hitCount;
+  }
+
+  /**
+   * Returns the number of calls to {@link #parse(String)} that parsed their text.
+   */
+  public int getMissCount() {
+    return missCount;
+  }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright (C) 2011 bedatadriven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.google.gson;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gwt.core.client.Duration;
+import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.core.client.Scheduler;
+import com.google.gwt.core.client.Scheduler.RepeatingCommand;
+import com.google.gwt.user.client.rpc.AsyncCallback;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * A JSON document being parsed in the background by {@link JsonParser#parseAsync}. The text is
+ * tokenized with a {@link JsonReader} in slices scheduled through
+ * {@link Scheduler#scheduleIncremental}, each of which returns control to the browser once its
+ * time budget is spent, so that the page keeps responding while a large document is decoded.
+ */
+public final class JsonParseRequest {
+
+  /**
+   * Receives progress notifications for a {@link JsonParseRequest}.
+   */
+  public interface ProgressListener {
+
+    /**
+     * Called after each slice of the document has been parsed.
+     *
+     * @param request the request making progress, see {@link JsonParseRequest#getProgress()}.
+     */
+    void onProgress(JsonParseRequest request);
+  }
+
+  /**
+   * The number of tokens to consume between checks of the clock.
+   */
+  private static final int TOKENS_PER_CHECK = 128;
+
+  private final CountingReader in;
+  private final JsonTreeBuilder builder;
+  private final boolean internStrings;
+  private final int sliceMillis;
+  private final AsyncCallback<JsonElement> callback;
+  private ProgressListener progressListener;
+
+  private boolean pending = true;
+
+  JsonParseRequest(String json, boolean losslessNumbers, boolean internStrings, int sliceMillis,
+      AsyncCallback<JsonElement> callback) {
+    if (sliceMillis <= 0) {
+      throw new IllegalArgumentException("sliceMillis must be positive: " + sliceMillis);
+    }
+    this.in = new CountingReader(json);
+    this.builder = new JsonTreeBuilder(in, losslessNumbers);
+    this.internStrings = internStrings;
+    this.sliceMillis = sliceMillis;
+    this.callback = callback;
+  }
+
+  void start() {
+    Scheduler.get().scheduleIncremental(new RepeatingCommand() {
+      public boolean execute() {
+        return parseSlice();
+      }
+    });
+  }
+
+  /**
+   * Sets the listener to notify after each slice of the document has been parsed.
+   */
+  public void setProgressListener(ProgressListener listener) {
+    this.progressListener = listener;
+  }
+
+  /**
+   * Returns the fraction of the document that has been read so far, between 0 and 1.
+   */
+  public double getProgress() {
+    return in.length == 0 ? 1 : (double) in.position / in.length;
+  }
+
+  /**
+   * Returns true until the document has been parsed, has failed to parse, or the request has
+   * been cancelled.
+   */
+  public boolean isPending() {
+    return pending;
+  }
+
+  /**
+   * Stops parsing. The callback will not be called unless it already has been.
+   */
+  public void cancel() {
+    pending = false;
+  }
+
+  /**
+   * Parses tokens until the document is complete or this slice's time budget is spent.
+   *
+   * @return true if another slice is needed
+   */
+  private boolean parseSlice() {
+    if (!pending) {
+      return false;
+    }
+    Duration slice = new Duration();
+    boolean complete = false;
+    try {
+      do {
+        for (int i = 0; i < TOKENS_PER_CHECK && !complete; i++) {
+          complete = !builder.nextToken();
+        }
+      } while (!complete && slice.elapsedMillis() < sliceMillis);
+    } catch (IOException e) {
+      return fail(e);
+    } catch (RuntimeException e) {
+      // the reader throws NumberFormatException for literals such as 012
+      return fail(e);
+    }
+    if (complete) {
+      pending = false;
+      callback.onSuccess(getRoot());
+      return false;
+    }
+    if (progressListener != null) {
+      progressListener.onProgress(this);
+    }
+    return pending;
+  }
+
+  private boolean fail(Exception e) {
+    pending = false;
+    callback.onFailure(new JsonParseException(e.getMessage(), e));
+    return false;
+  }
+
+  private JsonElement getRoot() {
+    if (!internStrings) {
+      return builder.getRoot();
+    }
+    JavaScriptObject holder = builder.getRootHolder();
+    JsonStringTable.intern(holder);
+    return JsonElement.wrap(holder, null, 0);
+  }
+
+  /**
+   * Reads a string and tracks how much of it has been handed out.
+   */
+  private static class CountingReader extends Reader {
+    private final String json;
+    private final int length;
+    private int position;
+
+    private CountingReader(String json) {
+      this.json = json;
+      this.length = json.length();
+    }
+
+    @Override
+    public int read(char[] buffer, int off, int len) {
+      if (position == length) {
+        return -1;
+      }
+      int count = Math.min(len, length - position);
+      json.getChars(position, position + count, buffer, off);
+      position += count;
+      return count;
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+}
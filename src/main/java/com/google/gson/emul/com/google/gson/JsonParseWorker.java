@@ -0,0 +1,229 @@
+/*
+ * Copyright (C) 2011 bedatadriven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.gson;
+
+import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.user.client.rpc.AsyncCallback;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parses JSON text with the native {@code JSON.parse} of a dedicated Web Worker, so that the
+ * page keeps responding while a large document is tokenized. The parsed value is copied back
+ * to the page by the browser's structured clone, which still takes time on the page's thread
+ * but less than parsing the text there.
+ *
+ * <p>Each request is posted to the worker as {@code {id, json}}, and answered with
+ * {@code {id, value}} or, if {@code JSON.parse} rejected the text, {@code {id, error}}.
+ * {@link #createInPage()} runs the same script and exchanges the same messages on the page's
+ * own thread, for browsers and test runners without workers.
+ *
+ * <p>Most callers should use {@link JsonParser#parseInWorker(String, AsyncCallback)}, which
+ * shares one worker and falls back to parsing on the page when necessary.
+ */
+public final class JsonParseWorker {
+
+  /**
+   * The script run by the worker.
+   */
+  static final String SCRIPT =
+      "self.onmessage = function (e) {\n"
+      + "  var reply;\n"
+      + "  try {\n"
+      + "    reply = { id: e.data.id, value: JSON.parse(e.data.json) };\n"
+      + "  } catch (x) {\n"
+      + "    reply = { id: e.data.id, error: String(x && x.message || x) };\n"
+      + "  }\n"
+      + "  postMessage(reply);\n"
+      + "};\n";
+
+  /**
+   * The worker, or the object standing in for it, with {@code postMessage(data)} and
+   * {@code terminate()} methods. Null once terminated.
+   */
+  private JavaScriptObject port;
+
+  private final Map<Integer, AsyncCallback<JsonElement>> pending =
+      new HashMap<Integer, AsyncCallback<JsonElement>>();
+  private int nextId;
+
+  private JsonParseWorker() {
+  }
+
+  /**
+   * Returns true if this browser can run a worker from a script built on the page.
+   */
+  public static native boolean isSupported() /*-{
+    var url = $wnd.URL || $wnd.webkitURL;
+    return !!($wnd.Worker && $wnd.Blob && url && url.createObjectURL);
+  }-*/;
+
+  /**
+   * Starts a dedicated worker.
+   *
+   * @throws UnsupportedOperationException if {@link #isSupported()} is false.
+   * @throws com.google.gwt.core.client.JavaScriptException if the browser refused to start the
+   *     worker, for instance because of a content security policy.
+   */
+  public static JsonParseWorker create() {
+    if (!isSupported()) {
+      throw new UnsupportedOperationException("Web Workers are not available");
+    }
+    JsonParseWorker worker = new JsonParseWorker();
+    worker.port = worker.startWorker(SCRIPT);
+    return worker;
+  }
+
+  /**
+   * Runs the worker script on the page's own thread. Messages are still delivered
+   * asynchronously, but the text is parsed on the page, and values are not copied.
+   */
+  public static JsonParseWorker createInPage() {
+    JsonParseWorker worker = new JsonParseWorker();
+    worker.port = worker.startInPage(SCRIPT);
+    return worker;
+  }
+
+  /**
+   * Sends {@code json} to the worker. The callback receives the parse tree, or a
+   * {@link JsonParseException} if {@code JSON.parse} rejected the text, which includes the
+   * unquoted names and single-quoted strings that {@link JsonParser#parse(String)} accepts,
+   * or if the worker failed.
+   *
+   * @throws IllegalStateException if the worker has been terminated.
+   */
+  public void parse(String json, AsyncCallback<JsonElement> callback) {
+    if (json == null) {
+      throw new NullPointerException();
+    }
+    if (port == null) {
+      throw new IllegalStateException("The worker has been terminated");
+    }
+    int id = nextId++;
+    pending.put(id, callback);
+    post(port, id, json);
+  }
+
+  /**
+   * Returns the number of requests sent to the worker that have not been answered.
+   */
+  public int getPendingCount() {
+    return pending.size();
+  }
+
+  /**
+   * Returns true once the worker has been terminated, by {@link #terminate()} or because it
+   * failed.
+   */
+  public boolean isTerminated() {
+    return port == null;
+  }
+
+  /**
+   * Stops the worker. The callbacks of pending requests are not called.
+   */
+  public void terminate() {
+    if (port != null) {
+      terminate(port);
+      port = null;
+    }
+    pending.clear();
+  }
+
+  private void onMessage(JavaScriptObject reply) {
+    AsyncCallback<JsonElement> callback = pending.remove(replyId(reply));
+    if (callback == null) {
+      return;
+    }
+    String error = replyError(reply);
+    if (error != null) {
+      callback.onFailure(new JsonParseException(error));
+    } else {
+      callback.onSuccess(JsonElement.wrap(reply, "value", 0));
+    }
+  }
+
+  /**
+   * Fails every pending request once the worker script itself has failed, and terminates
+   * the worker.
+   */
+  private void onError(String message) {
+    List<AsyncCallback<JsonElement>> callbacks =
+        new ArrayList<AsyncCallback<JsonElement>>(pending.values());
+    terminate();
+    for (AsyncCallback<JsonElement> callback : callbacks) {
+      callback.onFailure(new JsonParseException("The worker failed: " + message));
+    }
+  }
+
+  private native JavaScriptObject startWorker(String script) /*-{
+    var self = this;
+    var url = $wnd.URL || $wnd.webkitURL;
+    var worker = new $wnd.Worker(url.createObjectURL(new $wnd.Blob([script],
+        { type: "text/javascript" })));
+    worker.onmessage = $entry(function(e) {
+      self.@com.google.gson.JsonParseWorker::onMessage(Lcom/google/gwt/core/client/JavaScriptObject;)(e.data);
+    });
+    worker.onerror = $entry(function(e) {
+      self.@com.google.gson.JsonParseWorker::onError(Ljava/lang/String;)(String(e.message));
+    });
+    return worker;
+  }-*/;
+
+  private native JavaScriptObject startInPage(String script) /*-{
+    var self = this;
+    var scope = {};
+    var deliver = $entry(function(data) {
+      self.@com.google.gson.JsonParseWorker::onMessage(Lcom/google/gwt/core/client/JavaScriptObject;)(data);
+    });
+    new Function("self", "postMessage", script)(scope, function(data) {
+      $wnd.setTimeout(function() {
+        deliver(data);
+      }, 0);
+    });
+    return {
+      postMessage: function(data) {
+        $wnd.setTimeout(function() {
+          scope.onmessage({ data: data });
+        }, 0);
+      },
+      terminate: function() {
+        scope.onmessage = function() {
+        };
+      }
+    };
+  }-*/;
+
+  private static native void post(JavaScriptObject port, int id, String json) /*-{
+    port.postMessage({ id: id, json: json });
+  }-*/;
+
+  private static native void terminate(JavaScriptObject port) /*-{
+    port.terminate();
+  }-*/;
+
+  private static native int replyId(JavaScriptObject reply) /*-{
+    return reply.id;
+  }-*/;
+
+  private static native String replyError(JavaScriptObject reply) /*-{
+    return reply.error === undefined ? null : reply.error;
+  }-*/;
+}
@@ -16,12 +16,442 @@
 
 package com.google.gson;
 
-import com.google.gwt.json.client.JSONParser;
+import com.google.gwt.core.client.GWT;
+import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.core.client.Scheduler;
+import com.google.gwt.core.client.Scheduler.ScheduledCommand;
+import com.google.gwt.user.client.rpc.AsyncCallback;
+
+import java.io.IOException;
+import java.io.StringReader;
 
 public class JsonParser {
 
+  /**
+   * The default time budget of each slice of {@link #parseAsync(String, AsyncCallback)}.
+   */
+  public static final int DEFAULT_SLICE_MILLIS = 50;
+
+  private static final JsonParserImpl impl = GWT.create(JsonParserImpl.class);
+
+  /**
+   * The worker shared by {@link #parseInWorker}, created on first use.
+   */
+  private static JsonParseWorker worker;
+  private static boolean workerUnavailable;
+
+  private boolean losslessNumbers;
+  private boolean internStrings;
+
+  /**
+   * Sets whether integers that a double cannot hold exactly, such as 64-bit ids, keep their
+   * text. Their {@link JsonPrimitive}s then convert that text when
+   * {@link JsonPrimitive#getAsLong()} or another accessor is first called, rather than
+   * rounding to the nearest double. Defaults to false.
+   *
+   * <p>The native parser rounds every number, so documents that contain such integers are
+   * tokenized by a {@link com.google.gson.stream.JsonReader} instead, which is several times
+   * slower. Other documents are parsed as before.
+   */
+  public void setLosslessNumbers(boolean losslessNumbers) {
+    this.losslessNumbers = losslessNumbers;
+  }
+
+  /**
+   * Returns true if integers that a double cannot hold exactly keep their text.
+   */
+  public boolean isLosslessNumbers() {
+    return losslessNumbers;
+  }
+
+  /**
+   * Sets whether repeated string values, such as states, country codes and units, share one
+   * string and one {@link JsonPrimitive} instead of taking memory for each occurrence.
+   * Defaults to false.
+   *
+   * <p>Strings of up to 64 characters are looked up in a table shared by all parsers that
+   * intern, which holds a few thousand strings and is emptied when full. This costs an extra
+   * pass over each document, and pays off when the same values recur many times.
+   */
+  public void setInternStrings(boolean internStrings) {
+    this.internStrings = internStrings;
+  }
+
+  /**
+   * Returns true if repeated string values share one string and primitive.
+   */
+  public boolean isInternStrings() {
+    return internStrings;
+  }
+
+  /**
+   * Parses the specified JSON string into a parse tree. Strict JSON is handed to the browser's
+   * native parser where one exists; unquoted names and single-quoted strings are still
+   * accepted.
+   *
+   * @param json JSON text
+   * @return a parse tree of {@link JsonElement}s corresponding to the specified JSON
+   * @throws JsonParseException if the specified text is not valid JSON
+   */
   public JsonElement parse(String json) throws JsonParseException {
-    return JsonElement.wrap(JSONParser.parse(json));
+    double start = JsonMetrics.startParse();
+    JsonElement element;
+    if (losslessNumbers && hasLongDigitRun(json)) {
+      element = JsonElement.wrap(intern(parseTokens(json)), null, 0);
+    } else {
+      element = impl.parse(json, internStrings);
+    }
+    JsonMetrics.endParse(json, start);
+    return element;
+  }
+
+  /**
+   * Parses the specified JSON string into a parse tree that only has the members chosen by
+   * {@code selector}. The text of the other members is scanned over without building their
+   * values, so the tree takes memory in proportion to the selected data, and the values kept
+   * are parsed like {@link #parse(String)} would parse them.
+   *
+   * <p>The structure above the selected members is read by a scanner that accepts strict JSON,
+   * unquoted names and single-quoted strings, but not comments or other lenient syntax.
+   *
+   * @param json JSON text
+   * @param selector the members to keep
+   * @return a parse tree of the selected members, with the same types as {@link #parse(String)}
+   * @throws JsonParseException if the specified text is not valid JSON
+   */
+  public JsonElement parse(String json, FieldSelector selector) throws JsonParseException {
+    if (json == null) {
+      throw new NullPointerException();
+    }
+    double start = JsonMetrics.startParse();
+    JsonElement element = JsonElement.wrap(intern(project(json, selector.root)), null, 0);
+    JsonMetrics.endParse(json, start);
+    return element;
+  }
+
+  /**
+   * Parses {@code json} with {@link JsonTreeBuilder}, keeping the text of long integers, and
+   * returns it like {@link JsonParserImpl#parseRaw(String)}.
+   */
+  static JavaScriptObject parseTokens(String json) {
+    JsonTreeBuilder builder = new JsonTreeBuilder(new StringReader(json), true);
+    try {
+      while (builder.nextToken()) {
+      }
+    } catch (IOException e) {
+      throw new JsonParseException(e.getMessage(), e);
+    }
+    return builder.getRootHolder();
   }
 
+  /**
+   * Interns the strings of a parsed document, returned like
+   * {@link JsonParserImpl#parseRaw(String)}, if this parser interns strings.
+   */
+  private JavaScriptObject intern(JavaScriptObject holder) {
+    if (internStrings) {
+      JsonStringTable.intern(holder);
+    }
+    return holder;
+  }
+
+  /**
+   * Parses a value selected by {@link #project}, returned like
+   * {@link JsonParserImpl#parseRaw(String)}.
+   */
+  private JavaScriptObject parseSelected(String json) {
+    if (losslessNumbers && hasLongDigitRun(json)) {
+      return parseTokens(json);
+    }
+    return impl.parseRaw(json);
+  }
+
+  /**
+   * Reads the objects and arrays on the paths of {@code selector}, see
+   * {@link FieldSelector#root}, and skips the values of other members by scanning for the end
+   * of their text. Selected values are cut out of the text and handed to
+   * {@link #parseSelected(String)} whole. Returns the root value as the only element of an
+   * array.
+   */
+  private native JavaScriptObject project(String text, JavaScriptObject selector) /*-{
+    var parser = this;
+    var hasOwn = Object.prototype.hasOwnProperty;
+    var special = /["'{}\[\]]/g;
+    var n = text.length;
+    var i = 0;
+    function fail(message) {
+      throw @com.google.gson.JsonParseException::new(Ljava/lang/String;)(message + " at character " + i);
+    }
+    function skipSpaces() {
+      var c;
+      while (i < n && ((c = text.charAt(i)) == " " || c == "\n" || c == "\r" || c == "\t")) {
+        i++;
+      }
+    }
+    function expect(c) {
+      skipSpaces();
+      if (text.charAt(i) != c) {
+        fail("Expected '" + c + "'");
+      }
+      i++;
+    }
+    function skipString() {
+      var quote = text.charAt(i);
+      var j = i;
+      for (;;) {
+        j = text.indexOf(quote, j + 1);
+        if (j < 0) {
+          fail("Unterminated string");
+        }
+        var backslashes = 0;
+        while (text.charAt(j - 1 - backslashes) == "\\") {
+          backslashes++;
+        }
+        if (backslashes % 2 == 0) {
+          i = j + 1;
+          return;
+        }
+      }
+    }
+    function skipValue() {
+      skipSpaces();
+      var c = text.charAt(i);
+      if (c == '"' || c == "'") {
+        skipString();
+      } else if (c == "{" || c == "[") {
+        var depth = 0;
+        do {
+          special.lastIndex = i;
+          var match = special.exec(text);
+          if (match == null) {
+            fail("Unterminated " + (c == "{" ? "object" : "array"));
+          }
+          i = match.index;
+          var s = match[0];
+          if (s == '"' || s == "'") {
+            skipString();
+          } else {
+            depth += s == "{" || s == "[" ? 1 : -1;
+            i++;
+          }
+        } while (depth > 0);
+      } else {
+        var start = i;
+        while (i < n && ",:}] \n\r\t".indexOf(text.charAt(i)) < 0) {
+          i++;
+        }
+        if (i == start) {
+          fail("Expected a value");
+        }
+      }
+    }
+    function parseSelected(start) {
+      return parser.@com.google.gson.JsonParser::parseSelected(Ljava/lang/String;)(text.substring(start, i))[0];
+    }
+    function readName() {
+      skipSpaces();
+      var start = i;
+      var c = text.charAt(i);
+      if (c == '"' || c == "'") {
+        skipString();
+        var name = text.substring(start + 1, i - 1);
+        return name.indexOf("\\") < 0 ? name : parseSelected(start);
+      }
+      while (i < n && ": \n\r\t".indexOf(text.charAt(i)) < 0) {
+        i++;
+      }
+      if (i == start) {
+        fail("Expected a name");
+      }
+      return text.substring(start, i);
+    }
+    function read(node) {
+      skipSpaces();
+      var c = text.charAt(i);
+      if (node !== null && c == "{") {
+        i++;
+        var object = {};
+        skipSpaces();
+        if (text.charAt(i) == "}") {
+          i++;
+          return object;
+        }
+        for (;;) {
+          var name = readName();
+          expect(":");
+          var child = hasOwn.call(node.c, name) ? node.c[name] : node.w;
+          if (child !== undefined) {
+            object[name] = read(child);
+          } else {
+            skipValue();
+          }
+          skipSpaces();
+          c = text.charAt(i++);
+          if (c == "}") {
+            return object;
+          }
+          if (c != ",") {
+            i--;
+            fail("Unterminated object");
+          }
+        }
+      }
+      if (node !== null && c == "[") {
+        i++;
+        var array = [];
+        skipSpaces();
+        if (text.charAt(i) == "]") {
+          i++;
+          return array;
+        }
+        for (;;) {
+          array.push(read(node));
+          skipSpaces();
+          c = text.charAt(i++);
+          if (c == "]") {
+            return array;
+          }
+          if (c != ",") {
+            i--;
+            fail("Unterminated array");
+          }
+        }
+      }
+      var start = i;
+      skipValue();
+      return parseSelected(start);
+    }
+    var root = read(selector);
+    skipSpaces();
+    if (i < n) {
+      fail("Did not consume the entire document");
+    }
+    return [ root ];
+  }-*/;
+
+  /**
+   * Returns true if {@code json} contains sixteen digits in a row outside of its strings.
+   * Integers with fewer digits are below 2^53 and so are held exactly by a double. Long
+   * fractions and unquoted names with such digits are counted too, which only costs the slower
+   * parse.
+   */
+  static native boolean hasLongDigitRun(String json) /*-{
+    if (!/[0-9]{16}/.test(json)) {
+      return false;
+    }
+    var tokens = /"(?:[^"\\]|\\[\s\S])*"|'(?:[^'\\]|\\[\s\S])*'|[0-9]{16}/g;
+    var match;
+    // Under ES3 a regular expression literal is one object, whose lastIndex outlives the call
+    tokens.lastIndex = 0;
+    while ((match = tokens.exec(json)) != null) {
+      var first = match[0].charAt(0);
+      if (first != '"' && first != "'") {
+        return true;
+      }
+    }
+    return false;
+  }-*/;
+
+  /**
+   * Parses the specified JSON string into a parse tree without blocking the browser, in slices
+   * of at most {@link #DEFAULT_SLICE_MILLIS}.
+   *
+   * @see #parseAsync(String, int, AsyncCallback)
+   */
+  public JsonParseRequest parseAsync(String json, AsyncCallback<JsonElement> callback) {
+    return parseAsync(json, DEFAULT_SLICE_MILLIS, callback);
+  }
+
+  /**
+   * Parses the specified JSON string into a parse tree without blocking the browser. The text
+   * is tokenized in slices that each return control to the browser after {@code sliceMillis}
+   * milliseconds, so this is slower overall than {@link #parse(String)} and only pays off for
+   * documents large enough to freeze the page.
+   *
+   * @param json JSON text
+   * @param sliceMillis the time budget of each slice
+   * @param callback receives the parse tree, or a {@link JsonParseException} if the text is not
+   *     valid JSON
+   * @return the request, which can be cancelled and reports progress
+   */
+  public JsonParseRequest parseAsync(String json, int sliceMillis,
+      AsyncCallback<JsonElement> callback) {
+    JsonParseRequest request = new JsonParseRequest(json, losslessNumbers, internStrings,
+        sliceMillis, callback);
+    request.start();
+    return request;
+  }
+
+  /**
+   * Parses the specified JSON string into a parse tree in a Web Worker shared by all parsers,
+   * see {@link JsonParseWorker}. The text is parsed on the page instead, as
+   * {@link #parse(String)} would, if the browser cannot run the worker, if the worker rejects
+   * the text because it is not strict JSON, or if lossless numbers are requested and the text
+   * has integers that need them. The callback is called asynchronously in every case.
+   *
+   * @param json JSON text
+   * @param callback receives the parse tree, or a {@link JsonParseException} if the text is not
+   *     valid JSON
+   */
+  public void parseInWorker(final String json, final AsyncCallback<JsonElement> callback) {
+    if (json == null) {
+      throw new NullPointerException();
+    }
+    JsonParseWorker worker = sharedWorker();
+    if (worker == null || (losslessNumbers && hasLongDigitRun(json))) {
+      Scheduler.get().scheduleDeferred(new ScheduledCommand() {
+        public void execute() {
+          parseOnPage(json, callback);
+        }
+      });
+      return;
+    }
+    worker.parse(json, new AsyncCallback<JsonElement>() {
+      public void onSuccess(JsonElement result) {
+        if (internStrings) {
+          JavaScriptObject holder = JavaScriptObject.createArray();
+          result.putInto(holder, "0");
+          result = JsonElement.wrap(intern(holder), null, 0);
+        }
+        callback.onSuccess(result);
+      }
+
+      public void onFailure(Throwable caught) {
+        parseOnPage(json, callback);
+      }
+    });
+  }
+
+  private void parseOnPage(String json, AsyncCallback<JsonElement> callback) {
+    JsonElement result;
+    try {
+      result = parse(json);
+    } catch (JsonParseException e) {
+      callback.onFailure(e);
+      return;
+    }
+    callback.onSuccess(result);
+  }
+
+  /**
+   * Returns the worker shared by all parsers, or null if none can be started or the last one
+   * failed.
+   */
+  private static JsonParseWorker sharedWorker() {
+    if (worker != null && worker.isTerminated()) {
+      worker = null;
+      workerUnavailable = true;
+    }
+    if (worker == null && !workerUnavailable) {
+      try {
+        if (JsonParseWorker.isSupported()) {
+          worker = JsonParseWorker.create();
+        }
+      } catch (RuntimeException e) {
+        // refused by the browser: parse on the page from now on
+      }
+      workerUnavailable = worker == null;
+    }
+    return worker;
+  }
 }
@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2011 bedatadriven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.google.gson;
+
+import com.google.gwt.core.client.JavaScriptException;
+import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.core.client.JsonUtils;
+
+/**
+ * Turns JSON text into a tree of {@link JsonElement}s for {@link JsonParser}. The default
+ * implementation hands the text to the browser's native {@code JSON.parse} and only falls back
+ * to {@code eval()} when the browser lacks it or the text is not strict JSON. User agents that
+ * are known to lack a native parser are bound to {@link JsonParserImplLegacy} instead, see
+ * {@code Gson.gwt.xml}.
+ */
+class JsonParserImpl {
+
+  /**
+   * Parses {@code json} and wraps the result, after interning its strings in the
+   * {@link JsonStringTable} if {@code internStrings} is true.
+   */
+  JsonElement parse(String json, boolean internStrings) {
+    JavaScriptObject holder = parseRaw(json);
+    if (internStrings) {
+      JsonStringTable.intern(holder);
+    }
+    JsonElement element = JsonElement.wrap(holder, null, 0);
+    if (element == null) {
+      throw new JsonParseException("Not a JSON value: " + json);
+    }
+    return element;
+  }
+
+  /**
+   * Parses {@code json} without wrapping the result, which is returned as the only element of
+   * an array so that primitive documents can be passed back as a {@link JavaScriptObject}.
+   */
+  JavaScriptObject parseRaw(String json) {
+    if (json == null) {
+      throw new NullPointerException();
+    }
+    JavaScriptObject holder = nativeParse(json);
+    if (holder == null) {
+      return parseLenient(json);
+    }
+    return holder;
+  }
+
+  /**
+   * Parses {@code json} as a JavaScript literal, which also accepts the unquoted names and
+   * single-quoted strings that {@code JSON.parse} rejects. Returns the value like
+   * {@link #parseRaw(String)}.
+   */
+  static JavaScriptObject parseLenient(String json) {
+    if (json == null) {
+      throw new NullPointerException();
+    }
+    try {
+      return evalParse(JsonUtils.escapeJsonForEval(json));
+    } catch (JavaScriptException e) {
+      throw new JsonParseException(e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Returns the parsed value in a one-element array, so that primitive documents can be passed
+   * back as a {@link JavaScriptObject}, or null if the native parser is unavailable or
+   * rejected the text.
+   */
+  private static native JavaScriptObject nativeParse(String json) /*-{
+    if (typeof JSON != "object" || typeof JSON.parse != "function") {
+      return null;
+    }
+    try {
+      return [ JSON.parse(json) ];
+    } catch (e) {
+      return null;
+    }
+  }-*/;
+
+  private static native JavaScriptObject evalParse(String json) /*-{
+    return [ eval("(" + json + ")") ];
+  }-*/;
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright (C) 2011 bedatadriven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.google.gson;
+
+import com.google.gwt.core.client.JavaScriptObject;
+
+/**
+ * {@link JsonParserImpl} for user agents without a native {@code JSON.parse}, which always
+ * evaluates the text directly instead of probing for the native parser first.
+ */
+class JsonParserImplLegacy extends JsonParserImpl {
+
+  @Override
+  JavaScriptObject parseRaw(String json) {
+    return parseLenient(json);
+  }
+}
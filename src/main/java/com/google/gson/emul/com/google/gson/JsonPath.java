@@ -0,0 +1,573 @@
+/*
+ * Copyright (C) 2011 bedatadriven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.gson;
+
+import com.google.gwt.core.client.JavaScriptObject;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A compiled query that selects elements of a JSON document. Two syntaxes are accepted:
+ *
+ * <ul>
+ * <li>JSON Pointers (RFC 6901), such as {@code /items/0/name}, which select at most one
+ * element. The empty string selects the whole document.</li>
+ * <li>A subset of JSONPath starting with {@code $}: members as {@code .name} or
+ * {@code ['name']}, array elements as {@code [2]} or {@code [-1]} for the last one,
+ * wildcards as {@code .*} or {@code [*]}, descendants as {@code ..name} or {@code ..*}, and
+ * filters over members or elements such as {@code [?(@.price < 10)]} or
+ * {@code [?(@.tags)]}. Filters compare a value to a string, number, boolean or null literal
+ * with {@code ==}, {@code !=}, {@code <}, {@code <=}, {@code >} or {@code >=}.</li>
+ * </ul>
+ *
+ * <p>Queries walk the JavaScript values backing the document. The selected elements are then
+ * looked up with {@link JsonObject#get(String)} and {@link JsonArray#get(int)} along their
+ * paths, so only they and the objects and arrays above them are wrapped, and they are the same
+ * elements the document hands out. Changing them changes the document, copying any values it
+ * shares with a {@link JsonElement#snapshot()}, and they are frozen if the document is.
+ *
+ * <p>Compiled queries are immutable and are cached by expression, so {@link #compile(String)}
+ * is cheap to call again for the same expression.
+ */
+public final class JsonPath {
+
+  private static final int MAX_CACHED = 1000;
+
+  private static final Map<String, JsonPath> cache =
+      new LinkedHashMap<String, JsonPath>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, JsonPath> eldest) {
+          return size() > MAX_CACHED;
+        }
+      };
+
+  private final String expression;
+
+  /**
+   * The steps of the query, as JavaScript objects read by {@link #evaluate}.
+   */
+  private final JavaScriptObject steps;
+  private final int stepCount;
+
+  private JsonPath(String expression, JavaScriptObject steps, int stepCount) {
+    this.expression = expression;
+    this.steps = steps;
+    this.stepCount = stepCount;
+  }
+
+  /**
+   * Compiles a JSON Pointer or JSONPath expression, or returns the query already compiled for
+   * it.
+   *
+   * @param expression a JSON Pointer, or a JSONPath expression starting with {@code $}.
+   * @return the compiled query.
+   * @throws IllegalArgumentException if the expression is not valid.
+   */
+  public static JsonPath compile(String expression) {
+    JsonPath path = cache.get(expression);
+    if (path == null) {
+      path = new Compiler(expression).compile();
+      cache.put(expression, path);
+    }
+    return path;
+  }
+
+  /**
+   * Returns the first element this query selects in {@code root}, in document order.
+   *
+   * @param root the document to query.
+   * @return the first selected element, or null if there is none.
+   */
+  public JsonElement find(JsonElement root) {
+    if (stepCount == 0) {
+      return root;
+    }
+    JavaScriptObject matches = evaluate(steps, holder(root));
+    return matchCount(matches) == 0 ? null : resolve(root, matches, 0);
+  }
+
+  /**
+   * Returns all the elements this query selects in {@code root}, in document order.
+   *
+   * @param root the document to query.
+   * @return the selected elements, which may be empty.
+   */
+  public List<JsonElement> findAll(JsonElement root) {
+    List<JsonElement> results = new ArrayList<JsonElement>();
+    if (stepCount == 0) {
+      results.add(root);
+      return results;
+    }
+    JavaScriptObject matches = evaluate(steps, holder(root));
+    int count = matchCount(matches);
+    for (int i = 0; i < count; i++) {
+      results.add(resolve(root, matches, i));
+    }
+    return results;
+  }
+
+  @Override
+  public String toString() {
+    return expression;
+  }
+
+  /**
+   * Returns a one element array holding the JavaScript value of {@code root}, since a
+   * primitive value cannot be passed around on its own.
+   */
+  private static JavaScriptObject holder(JsonElement root) {
+    JavaScriptObject holder = JavaScriptObject.createArray();
+    root.putInto(holder, "0");
+    return holder;
+  }
+
+  /**
+   * Applies each step to the values selected by the previous one, starting from
+   * {@code holder[0]}. Values are tracked as nodes holding the container {@code c} and key
+   * {@code k} they are stored under, and the node {@code up} of that container, so that the
+   * path to each of them can be followed from the root at the end. Keys are numbers for array
+   * elements.
+   */
+  private static native JavaScriptObject evaluate(JavaScriptObject steps,
+      JavaScriptObject holder) /*-{
+    var hasOwn = Object.prototype.hasOwnProperty;
+    var toString = Object.prototype.toString;
+    function isContainer(v) {
+      return typeof v == "object" && v !== null && !(v instanceof Number);
+    }
+    function isArray(v) {
+      return toString.call(v) == "[object Array]";
+    }
+    function element(v, i) {
+      return i < 0 ? v.length + i : i;
+    }
+    function test(v, step) {
+      var path = step.p;
+      for (var j = 0; j < path.length; j++) {
+        if (!isContainer(v)) {
+          return false;
+        }
+        var q = path[j];
+        if (q.t == "i") {
+          if (!isArray(v)) {
+            return false;
+          }
+          var i = element(v, q.i);
+          if (i < 0 || i >= v.length) {
+            return false;
+          }
+          v = v[i];
+        } else {
+          if (isArray(v) || !hasOwn.call(v, q.k)) {
+            return false;
+          }
+          v = v[q.k];
+        }
+      }
+      if (step.o == null) {
+        return true;
+      }
+      if (v instanceof Number) {
+        v = v.valueOf();
+      }
+      var w = step.v;
+      switch (step.o) {
+        case "==":
+          return v === w;
+        case "!=":
+          return v !== w;
+      }
+      if (typeof v != typeof w || (typeof v != "number" && typeof v != "string")) {
+        return false;
+      }
+      switch (step.o) {
+        case "<":
+          return v < w;
+        case "<=":
+          return v <= w;
+        case ">":
+          return v > w;
+        case ">=":
+          return v >= w;
+      }
+      return false;
+    }
+    function descend(node, name, out) {
+      var v = node.c[node.k];
+      var array = isArray(v);
+      var child;
+      if (array) {
+        for (var i = 0; i < v.length; i++) {
+          child = { c: v, k: i, up: node };
+          if (name == null) {
+            out.push(child);
+          }
+          if (isContainer(v[i])) {
+            descend(child, name, out);
+          }
+        }
+      } else {
+        for (var key in v) {
+          if (hasOwn.call(v, key)) {
+            child = { c: v, k: key, up: node };
+            if (name == null || name === key) {
+              out.push(child);
+            }
+            if (isContainer(v[key])) {
+              descend(child, name, out);
+            }
+          }
+        }
+      }
+    }
+    function select(node, step, out) {
+      var v = node.c[node.k];
+      if (!isContainer(v)) {
+        return;
+      }
+      var array = isArray(v);
+      var i, key;
+      switch (step.t) {
+        case "k":
+          if (!array && hasOwn.call(v, step.k)) {
+            out.push({ c: v, k: step.k, up: node });
+          }
+          break;
+        case "p":
+          if (array) {
+            // Not +step.k: GWT's JSNI parser drops a unary plus
+            if (/^(0|[1-9][0-9]*)$/.test(step.k) && parseInt(step.k, 10) < v.length) {
+              out.push({ c: v, k: parseInt(step.k, 10), up: node });
+            }
+          } else if (hasOwn.call(v, step.k)) {
+            out.push({ c: v, k: step.k, up: node });
+          }
+          break;
+        case "i":
+          if (array) {
+            i = element(v, step.i);
+            if (i >= 0 && i < v.length) {
+              out.push({ c: v, k: i, up: node });
+            }
+          }
+          break;
+        case "*":
+        case "?":
+          if (array) {
+            for (i = 0; i < v.length; i++) {
+              if (step.t == "*" || test(v[i], step)) {
+                out.push({ c: v, k: i, up: node });
+              }
+            }
+          } else {
+            for (key in v) {
+              if (hasOwn.call(v, key) && (step.t == "*" || test(v[key], step))) {
+                out.push({ c: v, k: key, up: node });
+              }
+            }
+          }
+          break;
+        case "..":
+          descend(node, step.k, out);
+          break;
+      }
+    }
+    var nodes = [ { c: holder, k: 0, up: null } ];
+    for (var s = 0; s < steps.length && nodes.length > 0; s++) {
+      var next = [];
+      for (var m = 0; m < nodes.length; m++) {
+        select(nodes[m], steps[s], next);
+      }
+      nodes = next;
+    }
+    return nodes;
+  }-*/;
+
+  private static native int matchCount(JavaScriptObject matches) /*-{
+    return matches.length;
+  }-*/;
+
+  /**
+   * Returns the element of {@code root} selected by match {@code i}, through the
+   * {@code get} methods of the objects and arrays on its path.
+   */
+  private static native JsonElement resolve(JsonElement root, JavaScriptObject matches,
+      int i) /*-{
+    var keys = [];
+    for (var node = matches[i]; node.up != null; node = node.up) {
+      keys.push(node.k);
+    }
+    var element = root;
+    for (var j = keys.length - 1; j >= 0; j--) {
+      if (typeof keys[j] == "number") {
+        element = element.@com.google.gson.JsonArray::get(I)(keys[j]);
+      } else {
+        element = element.@com.google.gson.JsonObject::get(Ljava/lang/String;)(keys[j]);
+      }
+    }
+    return element;
+  }-*/;
+
+  /**
+   * Parses an expression into the step objects read by {@link JsonPath#evaluate}. Each step
+   * has a type {@code t}: {@code "k"} for the member named {@code k}, {@code "p"} for a JSON
+   * Pointer token {@code k}, {@code "i"} for the element at index {@code i}, {@code "*"} for
+   * every member or element, {@code ".."} for the descendants named {@code k} or all of them,
+   * and {@code "?"} for the members or elements whose value at the relative path {@code p}
+   * exists or, if {@code o} is set, compares to {@code v}.
+   */
+  private static final class Compiler {
+    private final String expression;
+    private final JavaScriptObject steps = JavaScriptObject.createArray();
+    private int stepCount;
+    private int pos;
+
+    Compiler(String expression) {
+      this.expression = expression;
+    }
+
+    JsonPath compile() {
+      // the empty pointer has no steps and selects the whole document
+      if (expression.length() > 0) {
+        if (expression.charAt(0) == '/') {
+          compilePointer();
+        } else if (expression.charAt(0) == '$') {
+          pos = 1;
+          compilePath();
+        } else {
+          throw error("expected '/' or '$'");
+        }
+      }
+      return new JsonPath(expression, steps, stepCount);
+    }
+
+    private void compilePointer() {
+      int start = 1;
+      while (true) {
+        int end = expression.indexOf('/', start);
+        String token = expression.substring(start, end < 0 ? expression.length() : end);
+        add(member("p", token.replace("~1", "/").replace("~0", "~")));
+        if (end < 0) {
+          return;
+        }
+        start = end + 1;
+      }
+    }
+
+    private void compilePath() {
+      while (pos < expression.length()) {
+        char c = expression.charAt(pos++);
+        if (c == '.') {
+          if (accept('.')) {
+            add(member("..", accept('*') ? null : name()));
+          } else if (accept('*')) {
+            add(step("*"));
+          } else {
+            add(member("k", name()));
+          }
+        } else if (c == '[') {
+          add(bracket());
+          expect(']');
+        } else {
+          pos--;
+          throw error("unexpected '" + c + "'");
+        }
+      }
+    }
+
+    private JavaScriptObject bracket() {
+      if (accept('*')) {
+        return step("*");
+      }
+      if (accept('?')) {
+        expect('(');
+        JavaScriptObject filter = filter();
+        expect(')');
+        return filter;
+      }
+      if (peek('\'') || peek('"')) {
+        return member("k", quoted());
+      }
+      return index(integer());
+    }
+
+    private JavaScriptObject filter() {
+      skipSpaces();
+      expect('@');
+      JavaScriptObject filter = step("?");
+      JavaScriptObject path = JavaScriptObject.createArray();
+      int length = 0;
+      while (true) {
+        if (accept('.')) {
+          JsonElement.set(path, String.valueOf(length++), member("k", name()));
+        } else if (accept('[')) {
+          JsonElement.set(path, String.valueOf(length++),
+              peek('\'') || peek('"') ? member("k", quoted()) : index(integer()));
+          expect(']');
+        } else {
+          break;
+        }
+      }
+      JsonElement.set(filter, "p", path);
+      skipSpaces();
+      if (peek(')')) {
+        return filter;
+      }
+      JsonElement.set(filter, "o", operator());
+      skipSpaces();
+      if (peek('\'') || peek('"')) {
+        JsonElement.set(filter, "v", quoted());
+      } else if (expression.startsWith("true", pos)) {
+        pos += 4;
+        JsonElement.set(filter, "v", true);
+      } else if (expression.startsWith("false", pos)) {
+        pos += 5;
+        JsonElement.set(filter, "v", false);
+      } else if (expression.startsWith("null", pos)) {
+        pos += 4;
+        JsonElement.setNull(filter, "v");
+      } else {
+        JsonElement.set(filter, "v", number());
+      }
+      skipSpaces();
+      return filter;
+    }
+
+    private String operator() {
+      String[] operators = { "==", "!=", "<=", ">=", "<", ">" };
+      for (String operator : operators) {
+        if (expression.startsWith(operator, pos)) {
+          pos += operator.length();
+          return operator;
+        }
+      }
+      throw error("expected a comparison operator");
+    }
+
+    /**
+     * Reads a member name, which ends at the next character that has a meaning in a path.
+     */
+    private String name() {
+      int start = pos;
+      while (pos < expression.length() && ".[]()=!<> ".indexOf(expression.charAt(pos)) < 0) {
+        pos++;
+      }
+      if (pos == start) {
+        throw error("expected a member name");
+      }
+      return expression.substring(start, pos);
+    }
+
+    private String quoted() {
+      char quote = expression.charAt(pos++);
+      StringBuilder value = new StringBuilder();
+      while (pos < expression.length()) {
+        char c = expression.charAt(pos++);
+        if (c == quote) {
+          return value.toString();
+        }
+        if (c == '\\' && pos < expression.length()) {
+          c = expression.charAt(pos++);
+        }
+        value.append(c);
+      }
+      throw error("unterminated string");
+    }
+
+    private int integer() {
+      int start = pos;
+      accept('-');
+      while (pos < expression.length() && Character.isDigit(expression.charAt(pos))) {
+        pos++;
+      }
+      try {
+        return Integer.parseInt(expression.substring(start, pos));
+      } catch (NumberFormatException e) {
+        pos = start;
+        throw error("expected an index, '*', a quoted name or a filter");
+      }
+    }
+
+    private double number() {
+      int start = pos;
+      while (pos < expression.length() && "+-.0123456789eE".indexOf(expression.charAt(pos)) >= 0) {
+        pos++;
+      }
+      try {
+        return Double.parseDouble(expression.substring(start, pos));
+      } catch (NumberFormatException e) {
+        pos = start;
+        throw error("expected a string, number, boolean or null");
+      }
+    }
+
+    private void skipSpaces() {
+      while (accept(' ')) {
+      }
+    }
+
+    private boolean peek(char c) {
+      return pos < expression.length() && expression.charAt(pos) == c;
+    }
+
+    private boolean accept(char c) {
+      if (peek(c)) {
+        pos++;
+        return true;
+      }
+      return false;
+    }
+
+    private void expect(char c) {
+      if (!accept(c)) {
+        throw error("expected '" + c + "'");
+      }
+    }
+
+    private void add(JavaScriptObject step) {
+      JsonElement.set(steps, String.valueOf(stepCount++), step);
+    }
+
+    private static JavaScriptObject step(String type) {
+      JavaScriptObject step = JavaScriptObject.createObject();
+      JsonElement.set(step, "t", type);
+      return step;
+    }
+
+    private static JavaScriptObject member(String type, String name) {
+      JavaScriptObject step = step(type);
+      if (name != null) {
+        JsonElement.set(step, "k", name);
+      }
+      return step;
+    }
+
+    private static JavaScriptObject index(int index) {
+      JavaScriptObject step = step("i");
+      JsonElement.set(step, "i", index);
+      return step;
+    }
+
+    private IllegalArgumentException error(String message) {
+      return new IllegalArgumentException("Invalid JSON path at " + pos + ", " + message
+          + ": " + expression);
+    }
+  }
+}
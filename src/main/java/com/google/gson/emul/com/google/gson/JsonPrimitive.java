@@ -16,8 +16,8 @@
 
 package com.google.gson;
 
-import com.google.gwt.json.client.*;
-
+import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.core.client.JsonUtils;
 
 /**
  * A class representing a Json primitive value. A primitive value
@@ -29,11 +29,11 @@ import com.google.gwt.json.client.*;
  * @author Alex Bertram
  */
 public final class JsonPrimitive extends JsonElement {
-  private JSONValue value;
-
-  JsonPrimitive(JSONValue value) {
-    this.value = value;
-  }
+  /**
+   * The value: a String, a Boolean, a Double, a {@link LazilyParsedNumber} for an integer that
+   * a double cannot hold exactly, or null if this primitive was created from a null String.
+   */
+  private Object value;
 
   /**
    * Create a primitive containing a boolean value.
@@ -41,7 +41,7 @@ public final class JsonPrimitive extends JsonElement {
    * @param bool the value to create the primitive with.
    */
   public JsonPrimitive(Boolean bool) {
-    this.value = JSONBoolean.getInstance(bool);
+    this.value = bool;
   }
 
   /**
@@ -50,7 +50,7 @@ public final class JsonPrimitive extends JsonElement {
    * @param number the value to create the primitive with.
    */
   public JsonPrimitive(Number number) {
-    this.value = new JSONNumber(number.doubleValue());
+    this.value = normalize(number);
   }
 
   /**
@@ -59,11 +59,7 @@ public final class JsonPrimitive extends JsonElement {
    * @param string the value to create the primitive with.
    */
   public JsonPrimitive(String string) {
-    if(string == null) {
-      this.value = JSONNull.getInstance();
-    } else {
-      this.value = new JSONString(string);
-    }
+    this.value = string;
   }
 
   /**
@@ -86,30 +82,73 @@ public final class JsonPrimitive extends JsonElement {
     setValue(primitive);
   }
 
+  @Override
+  public JsonPrimitive deepCopy() {
+    return this;
+  }
+
+  /**
+   * Creates a primitive for a number read from a parsed document.
+   */
+  static JsonPrimitive createNumber(double number) {
+    return new JsonPrimitive(Double.valueOf(number));
+  }
+
+  /**
+   * Creates a primitive for an integer read from a parsed document whose text was kept, see
+   * {@link JsonParser#setLosslessNumbers(boolean)}.
+   */
+  static JsonPrimitive createNumber(String lexeme) {
+    return new JsonPrimitive(new LazilyParsedNumber(lexeme));
+  }
+
+  /**
+   * Creates a primitive for a boolean read from a parsed document.
+   */
+  static JsonPrimitive createBoolean(boolean bool) {
+    return new JsonPrimitive(Boolean.valueOf(bool));
+  }
+
   void setValue(Object primitive) {
     if(primitive instanceof String) {
-      this.value = new JSONString((String) primitive);
+      this.value = primitive;
     } else if(primitive instanceof Character) {
       // convert characters to strings since in JSON, characters are represented as a single
       // character string
       char c = ((Character) primitive).charValue();
-      this.value = new JSONString(String.valueOf(c));
+      this.value = String.valueOf(c);
     } else if(primitive instanceof Number) {
-      this.value = new JSONNumber(((Number) primitive).doubleValue());
+      this.value = normalize((Number) primitive);
     } else if(primitive instanceof Boolean) {
-      this.value = JSONBoolean.getInstance((Boolean) primitive);
+      this.value = primitive;
     } else {
       throw new IllegalArgumentException(primitive.getClass().getName());
     }
   }
 
+  /**
+   * Returns {@code number} as a Double, unless it is a Long that a double cannot hold exactly.
+   */
+  private static Number normalize(Number number) {
+    if (number instanceof Double || number instanceof LazilyParsedNumber) {
+      return number;
+    }
+    if (number instanceof Long) {
+      long l = number.longValue();
+      if (l >= LazilyParsedNumber.MAX_EXACT || l <= -LazilyParsedNumber.MAX_EXACT) {
+        return new LazilyParsedNumber(String.valueOf(l));
+      }
+    }
+    return Double.valueOf(number.doubleValue());
+  }
+
   /**
    * Check whether this primitive contains a boolean value.
    *
    * @return true if this primitive contains a boolean value, false otherwise.
    */
   public boolean isBoolean() {
-    return value instanceof JSONBoolean;
+    return value instanceof Boolean;
   }
 
   /**
@@ -120,7 +159,7 @@ public final class JsonPrimitive extends JsonElement {
    */
   @Override
   Boolean getAsBooleanWrapper() {
-    return value.isBoolean().booleanValue();
+    return (Boolean) value;
   }
 
   /**
@@ -144,7 +183,7 @@ public final class JsonPrimitive extends JsonElement {
    * @return true if this primitive contains a Number, false otherwise.
    */
   public boolean isNumber() {
-    return value instanceof JSONNumber;
+    return value instanceof Number;
   }
 
   /**
@@ -155,8 +194,8 @@ public final class JsonPrimitive extends JsonElement {
    */
   @Override
   public Number getAsNumber() {
-  if (isNumber()) {
-      return value.isNumber().doubleValue();
+    if (isNumber()) {
+      return (Number) value;
     } else {
       return Double.parseDouble(getAsString());
     }
@@ -168,7 +207,7 @@ public final class JsonPrimitive extends JsonElement {
    * @return true if this primitive contains a String value, false otherwise.
    */
   public boolean isString() {
-    return value instanceof JSONString;
+    return value instanceof String;
   }
 
   /**
@@ -184,7 +223,7 @@ public final class JsonPrimitive extends JsonElement {
     } else if (isBoolean()) {
       return getAsBooleanWrapper().toString();
     } else {
-      return value.isString().stringValue();
+      return (String) value;
     }
   }
 
@@ -268,24 +307,35 @@ public final class JsonPrimitive extends JsonElement {
    */
   @Override
   Object getAsObject() {
-    if(value.isNumber() != null)
-      return value.isNumber().doubleValue();
-    if(value.isBoolean() != null)
-      return value.isBoolean().booleanValue();
-    if(value.isString() != null)
-      return value.isString().stringValue();
-
-    return null;
+    return value;
   }
 
   @Override
   public String toString() {
-    return value.toString();
+    if (isString()) {
+      return JsonUtils.escapeValue((String) value);
+    } else if (value instanceof LazilyParsedNumber) {
+      return value.toString();
+    } else if (isNumber()) {
+      return numberToString(((Number) value).doubleValue());
+    } else if (isBoolean()) {
+      return value.toString();
+    } else {
+      return "null";
+    }
   }
 
+  /**
+   * Formats numbers the way JavaScript does, so that integral values print without a
+   * trailing ".0" in development mode too.
+   */
+  private static native String numberToString(double number) /*-{
+    return number + "";
+  }-*/;
+
   @Override
   public int hashCode() {
-    return value.hashCode();
+    return value == null ? 0 : value.hashCode();
   }
 
   @Override
@@ -304,7 +354,17 @@ public final class JsonPrimitive extends JsonElement {
   }
 
   @Override
-  JSONValue getAsGwtValue() {
-    return value;
+  void putInto(JavaScriptObject container, String key) {
+    if (isString()) {
+      set(container, key, (String) value);
+    } else if (value instanceof LazilyParsedNumber) {
+      setNumber(container, key, value.toString());
+    } else if (isNumber()) {
+      set(container, key, ((Number) value).doubleValue());
+    } else if (isBoolean()) {
+      set(container, key, ((Boolean) value).booleanValue());
+    } else {
+      setNull(container, key);
+    }
   }
 }
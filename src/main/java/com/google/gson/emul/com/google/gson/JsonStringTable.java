@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2011 bedatadriven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.gson;
+
+import com.google.gwt.core.client.JavaScriptObject;
+
+/**
+ * The strings interned by parsers with {@link JsonParser#setInternStrings(boolean)}, shared by
+ * all of them. After such a parser has read a document, each short string value that equals
+ * one already in the table is replaced by the table's copy, so that the duplicates can be
+ * collected, and {@link JsonElement#wrap} hands out one {@link JsonPrimitive} per string in
+ * the table instead of one per occurrence. Primitives are immutable, so sharing them is safe.
+ *
+ * <p>The table holds at most {@link #MAX_SIZE} strings. When it is full it is emptied and
+ * refilled, so that values which stop recurring make way for those that do; strings and
+ * primitives already handed out keep working.
+ */
+final class JsonStringTable {
+
+  /**
+   * The number of strings the table holds before it is emptied.
+   */
+  static final int MAX_SIZE = 4096;
+
+  /**
+   * The length of the longest string that is interned. Longer strings are rarely repeated.
+   */
+  static final int MAX_LENGTH = 64;
+
+  /**
+   * Maps ":" followed by each string to an entry holding the string as {@code s} and its
+   * primitive, once wrapped, as {@code p}. The prefix keeps the strings apart from the
+   * properties of {@code Object.prototype}. Null until a document is interned.
+   */
+  static JavaScriptObject table;
+  private static int size;
+
+  private JsonStringTable() {
+  }
+
+  /**
+   * Interns the strings in {@code holder[0]} and, if it is an object or array, in the values
+   * below it. Names are left alone.
+   */
+  static native void intern(JavaScriptObject holder) /*-{
+    var table = @com.google.gson.JsonStringTable::table || {};
+    var size = @com.google.gson.JsonStringTable::size;
+    var maxSize = @com.google.gson.JsonStringTable::MAX_SIZE;
+    var maxLength = @com.google.gson.JsonStringTable::MAX_LENGTH;
+    var hasOwn = Object.prototype.hasOwnProperty;
+    var toString = Object.prototype.toString;
+    function canonical(s) {
+      if (s.length > maxLength) {
+        return s;
+      }
+      var key = ":" + s;
+      var entry = table[key];
+      if (entry) {
+        return entry.s;
+      }
+      if (size == maxSize) {
+        table = {};
+        size = 0;
+      }
+      table[key] = { s: s, p: null };
+      size++;
+      return s;
+    }
+    function walk(container, key) {
+      var v = container[key];
+      if (typeof v == "string") {
+        container[key] = canonical(v);
+      } else if (typeof v == "object" && v !== null && !(v instanceof Number)) {
+        if (toString.call(v) == "[object Array]") {
+          for (var i = 0; i < v.length; i++) {
+            walk(v, i);
+          }
+        } else {
+          for (var name in v) {
+            if (hasOwn.call(v, name)) {
+              walk(v, name);
+            }
+          }
+        }
+      }
+    }
+    walk(holder, 0);
+    @com.google.gson.JsonStringTable::table = table;
+    @com.google.gson.JsonStringTable::size = size;
+  }-*/;
+}
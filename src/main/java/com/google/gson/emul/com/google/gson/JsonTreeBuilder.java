@@ -0,0 +1,148 @@
+/*
+ * Copyright (C) 2011 bedatadriven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.google.gson;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gwt.core.client.JavaScriptObject;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds the JavaScript values of a document one token at a time from a lenient
+ * {@link JsonReader}, for parsers that cannot hand the whole text to {@code JSON.parse}.
+ */
+class JsonTreeBuilder {
+
+  private final JsonReader reader;
+  private final boolean losslessNumbers;
+
+  /**
+   * The containers that are still open. The bottom one is a one-element array that receives
+   * the root value.
+   */
+  private final List<JavaScriptObject> containers = new ArrayList<JavaScriptObject>();
+  private final JavaScriptObject root = JavaScriptObject.createArray();
+  private String pendingName;
+
+  /**
+   * @param losslessNumbers whether to keep the text of integers that a double cannot hold
+   *     exactly, see {@link JsonParser#setLosslessNumbers(boolean)}
+   */
+  JsonTreeBuilder(Reader in, boolean losslessNumbers) {
+    this.reader = new JsonReader(in);
+    this.reader.setLenient(true);
+    this.losslessNumbers = losslessNumbers;
+    this.containers.add(root);
+  }
+
+  /**
+   * Consumes the next token and adds its value to the tree.
+   *
+   * @return false once the root value is complete
+   */
+  boolean nextToken() throws IOException {
+    if (containers.size() == 1 && JsonElement.length(root) == 1) {
+      if (reader.peek() != JsonToken.END_DOCUMENT) {
+        throw new IOException("Did not consume the entire document: " + reader);
+      }
+      return false;
+    }
+    switch (reader.peek()) {
+      case BEGIN_OBJECT:
+        reader.beginObject();
+        open(JavaScriptObject.createObject());
+        break;
+      case BEGIN_ARRAY:
+        reader.beginArray();
+        open(JavaScriptObject.createArray());
+        break;
+      case END_OBJECT:
+        reader.endObject();
+        containers.remove(containers.size() - 1);
+        break;
+      case END_ARRAY:
+        reader.endArray();
+        containers.remove(containers.size() - 1);
+        break;
+      case NAME:
+        pendingName = reader.nextName();
+        break;
+      case STRING:
+        JsonElement.set(current(), nextKey(), reader.nextString());
+        break;
+      case NUMBER:
+        if (losslessNumbers) {
+          JsonElement.setNumber(current(), nextKey(), reader.nextString());
+        } else {
+          JsonElement.set(current(), nextKey(), reader.nextDouble());
+        }
+        break;
+      case BOOLEAN:
+        JsonElement.set(current(), nextKey(), reader.nextBoolean());
+        break;
+      case NULL:
+        reader.nextNull();
+        JsonElement.setNull(current(), nextKey());
+        break;
+      case END_DOCUMENT:
+        throw new IOException("End of input: " + reader);
+    }
+    return true;
+  }
+
+  /**
+   * Returns the root of the tree, once {@link #nextToken()} has returned false.
+   */
+  JsonElement getRoot() {
+    return JsonElement.wrap(root, null, 0);
+  }
+
+  /**
+   * Returns the root value as the only element of an array, like
+   * {@link JsonParserImpl#parseRaw(String)}, once {@link #nextToken()} has returned false.
+   */
+  JavaScriptObject getRootHolder() {
+    return root;
+  }
+
+  private void open(JavaScriptObject container) {
+    JsonElement.set(current(), nextKey(), container);
+    containers.add(container);
+  }
+
+  private JavaScriptObject current() {
+    return containers.get(containers.size() - 1);
+  }
+
+  /**
+   * Returns the key for the next value of the current container: the pending member name for
+   * objects, or the next index for arrays.
+   */
+  private String nextKey() {
+    if (pendingName != null) {
+      String key = pendingName;
+      pendingName = null;
+      return key;
+    }
+    return String.valueOf(JsonElement.length(current()));
+  }
+}
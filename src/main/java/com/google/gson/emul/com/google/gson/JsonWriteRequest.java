@@ -0,0 +1,306 @@
+/*
+ * Copyright (C) 2011 bedatadriven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.gson;
+
+import com.google.gwt.core.client.Duration;
+import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.core.client.Scheduler;
+import com.google.gwt.core.client.Scheduler.RepeatingCommand;
+
+import java.util.ConcurrentModificationException;
+
+/**
+ * A {@link JsonElement} being turned into JSON text in the background, see
+ * {@link #write(JsonElement, int, Callback)}. The tree is walked in slices scheduled through
+ * {@link Scheduler#scheduleIncremental}, each of which returns control to the browser once its
+ * time budget is spent, and the text written by each slice is handed to the callback as one
+ * chunk. Joined, the chunks equal the element's {@code toString()}.
+ *
+ * <p>The walk reads a {@link JsonElement#snapshot() snapshot} taken when the request starts.
+ * If the element is changed before the last chunk has been written, the request stops and
+ * fails with a {@link ConcurrentModificationException}, so that the chunks already written
+ * can be discarded rather than completed with text from a different version of the document.
+ * Changes are seen when they are made through the element or through any wrapper read from
+ * it. Changes made directly to the JavaScript objects behind the element, for instance through
+ * JSNI, are not.
+ *
+ * <p>This class exists only on the client; Gson itself has no asynchronous writer.
+ */
+public final class JsonWriteRequest {
+
+  /**
+   * Receives the text written by a {@link JsonWriteRequest}.
+   */
+  public interface Callback {
+
+    /**
+     * Called with each piece of the text, in order.
+     */
+    void onChunk(String chunk);
+
+    /**
+     * Called after the last chunk.
+     */
+    void onSuccess();
+
+    /**
+     * Called if the element was changed while it was being written. No more chunks follow.
+     */
+    void onFailure(Throwable caught);
+  }
+
+  /**
+   * The number of values to write between checks of the clock.
+   */
+  private static final int VALUES_PER_CHECK = 256;
+
+  private final JsonElement element;
+  private final int sliceMillis;
+  private final Callback callback;
+
+  /**
+   * The JavaScript value of the snapshot, as the only element of an array.
+   */
+  private JavaScriptObject root;
+
+  /**
+   * The {@link JsonElement#getVersion() version} of the element when the request started.
+   */
+  private int version;
+
+  /**
+   * The walk through {@link #root}, see {@link #begin}.
+   */
+  private JavaScriptObject state;
+
+  private double writtenChars;
+  private boolean pending = true;
+
+  /**
+   * Writes {@code element} as JSON text without blocking the browser, in slices of at most
+   * {@link JsonParser#DEFAULT_SLICE_MILLIS}.
+   *
+   * @see #write(JsonElement, int, Callback)
+   */
+  public static JsonWriteRequest write(JsonElement element, Callback callback) {
+    return write(element, JsonParser.DEFAULT_SLICE_MILLIS, callback);
+  }
+
+  /**
+   * Writes {@code element} as JSON text without blocking the browser. The tree is walked in
+   * slices that each return control to the browser after {@code sliceMillis} milliseconds, and
+   * the text of each slice is handed to {@code callback} as a chunk, so that it can be sent or
+   * stored piece by piece. The request fails if the element is changed before it is complete.
+   *
+   * @param element the element to write, or null to write "null"
+   * @param sliceMillis the time budget of each slice
+   * @param callback receives the chunks of text
+   * @return the request, which can be cancelled
+   */
+  public static JsonWriteRequest write(JsonElement element, int sliceMillis, Callback callback) {
+    JsonWriteRequest request = new JsonWriteRequest(
+        element == null ? JsonNull.INSTANCE : element, sliceMillis, callback);
+    request.start();
+    return request;
+  }
+
+  private JsonWriteRequest(JsonElement element, int sliceMillis, Callback callback) {
+    if (sliceMillis <= 0) {
+      throw new IllegalArgumentException("sliceMillis must be positive: " + sliceMillis);
+    }
+    this.element = element;
+    this.sliceMillis = sliceMillis;
+    this.callback = callback;
+  }
+
+  private void start() {
+    version = element.getVersion();
+    root = JavaScriptObject.createArray();
+    element.snapshot().putInto(root, "0");
+    state = begin(root);
+    Scheduler.get().scheduleIncremental(new RepeatingCommand() {
+      public boolean execute() {
+        return writeSlice();
+      }
+    });
+  }
+
+  /**
+   * Returns the number of characters handed to the callback so far.
+   */
+  public double getWrittenChars() {
+    return writtenChars;
+  }
+
+  /**
+   * Returns true until the element has been written, has been changed, or the request has
+   * been cancelled.
+   */
+  public boolean isPending() {
+    return pending;
+  }
+
+  /**
+   * Stops writing. The callback will not be called again.
+   */
+  public void cancel() {
+    pending = false;
+  }
+
+  /**
+   * Writes values until the element is complete or this slice's time budget is spent, and
+   * hands what was written to the callback.
+   *
+   * @return true if another slice is needed
+   */
+  private boolean writeSlice() {
+    if (!pending) {
+      return false;
+    }
+    if (isChanged()) {
+      pending = false;
+      callback.onFailure(new ConcurrentModificationException(
+          "The element was changed while it was being written"));
+      return false;
+    }
+    Duration slice = new Duration();
+    boolean done;
+    do {
+      done = write(state, VALUES_PER_CHECK);
+    } while (!done && slice.elapsedMillis() < sliceMillis);
+
+    String chunk = takeChunk(state);
+    if (chunk.length() > 0) {
+      writtenChars += chunk.length();
+      callback.onChunk(chunk);
+    }
+    if (done && pending) {
+      pending = false;
+      callback.onSuccess();
+    }
+    return pending;
+  }
+
+  /**
+   * Returns true if {@link #element} has changed since the snapshot was taken. A change made
+   * through any wrapper read from the element is counted in the element's version through the
+   * wrappers' owners. As a second check, every change to a shared tree copies the changed
+   * object and each of its owners up to the root, so the element must still hold the value of
+   * the snapshot.
+   */
+  private boolean isChanged() {
+    if (element.getVersion() != version) {
+      return true;
+    }
+    JavaScriptObject current = JavaScriptObject.createArray();
+    element.putInto(current, "0");
+    return !sameValue(current, root);
+  }
+
+  private static native boolean sameValue(JavaScriptObject a, JavaScriptObject b) /*-{
+    return a[0] === b[0];
+  }-*/;
+
+  /**
+   * Returns the state of a walk through {@code holder[0]}: the text written so far, and a stack
+   * with a frame for each array or object that has been opened but not closed, holding its
+   * keys, or null for an array, and the index of its next member. The bottom frame holds the
+   * root value itself and writes no brackets.
+   */
+  private static native JavaScriptObject begin(JavaScriptObject holder) /*-{
+    return { out: [], stack: [ { v: [ holder[0] ], keys: null, i: 0, top: true } ] };
+  }-*/;
+
+  /**
+   * Writes up to {@code count} more values of the walk, like {@link JsonElement#stringify}
+   * would write them. Objects and arrays are opened and their frames pushed rather than
+   * written whole. Returns true once the walk is complete.
+   */
+  private static native boolean write(JavaScriptObject state, int count) /*-{
+    var hasOwn = Object.prototype.hasOwnProperty;
+    var toString = Object.prototype.toString;
+    var out = state.out;
+    var stack = state.stack;
+    function open(v) {
+      switch (typeof v) {
+        case "string":
+          out.push(@com.google.gwt.core.client.JsonUtils::escapeValue(Ljava/lang/String;)(v));
+          return;
+        case "number":
+        case "boolean":
+          out.push(String(v));
+          return;
+        case "object":
+          if (v === null) {
+            break;
+          }
+          if (v instanceof Number) {
+            out.push(v.lexeme);
+            return;
+          }
+          if (toString.call(v) == "[object Array]") {
+            out.push("[");
+            stack.push({ v: v, keys: null, i: 0 });
+            return;
+          }
+          var keys = [];
+          for (var key in v) {
+            if (hasOwn.call(v, key)) {
+              keys.push(key);
+            }
+          }
+          out.push("{");
+          stack.push({ v: v, keys: keys, i: 0 });
+          return;
+      }
+      out.push("null");
+    }
+    for (; count > 0 && stack.length > 0; count--) {
+      var frame = stack[stack.length - 1];
+      var keys = frame.keys;
+      var i = frame.i;
+      if (i == (keys ? keys.length : frame.v.length)) {
+        if (!frame.top) {
+          out.push(keys ? "}" : "]");
+        }
+        stack.pop();
+        continue;
+      }
+      frame.i = i + 1;
+      if (keys) {
+        out.push((i > 0 ? ", " : "")
+            + @com.google.gwt.core.client.JsonUtils::escapeValue(Ljava/lang/String;)(keys[i]) + ":");
+        open(frame.v[keys[i]]);
+      } else {
+        if (i > 0) {
+          out.push(",");
+        }
+        open(frame.v[i]);
+      }
+    }
+    return stack.length == 0;
+  }-*/;
+
+  /**
+   * Returns the text written since the last call, and forgets it.
+   */
+  private static native String takeChunk(JavaScriptObject state) /*-{
+    var chunk = state.out.join("");
+    state.out = [];
+    return chunk;
+  }-*/;
+}
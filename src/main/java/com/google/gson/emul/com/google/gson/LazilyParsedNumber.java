@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2011 bedatadriven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.google.gson;
+
+/**
+ * An integer kept as the text it was written as, because a double cannot hold it exactly.
+ * The text is only converted when a value is first asked for, and the result is kept.
+ */
+final class LazilyParsedNumber extends Number {
+
+  /**
+   * The magnitude from which a double may no longer hold an integer exactly, 2^53.
+   */
+  static final long MAX_EXACT = 9007199254740992L;
+
+  private final String lexeme;
+
+  private boolean hasLong;
+  private long longValue;
+  private boolean hasDouble;
+  private double doubleValue;
+
+  LazilyParsedNumber(String lexeme) {
+    this.lexeme = lexeme;
+  }
+
+  @Override
+  public int intValue() {
+    return (int) longValue();
+  }
+
+  @Override
+  public long longValue() {
+    if (!hasLong) {
+      try {
+        longValue = Long.parseLong(lexeme);
+      } catch (NumberFormatException e) {
+        longValue = (long) doubleValue();
+      }
+      hasLong = true;
+    }
+    return longValue;
+  }
+
+  @Override
+  public float floatValue() {
+    return (float) doubleValue();
+  }
+
+  @Override
+  public double doubleValue() {
+    if (!hasDouble) {
+      doubleValue = Double.parseDouble(lexeme);
+      hasDouble = true;
+    }
+    return doubleValue;
+  }
+
+  @Override
+  public String toString() {
+    return lexeme;
+  }
+
+  @Override
+  public int hashCode() {
+    return lexeme.hashCode();
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    return obj instanceof LazilyParsedNumber && lexeme.equals(((LazilyParsedNumber) obj).lexeme);
+  }
+}
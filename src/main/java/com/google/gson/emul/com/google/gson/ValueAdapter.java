@@ -0,0 +1,411 @@
+/*
+ * Copyright (C) 2011 bedatadriven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.google.gson;
+
+import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.core.client.JsArrayString;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+
+/**
+ * Converts values of one Java type from and to the raw JavaScript values of a document, for
+ * {@link Gson}. The adapters for the classes listed in the {@code gson.types} configuration
+ * property are generated at compile time, see {@code com.google.gson.rebind.ValueAdaptersGenerator}.
+ *
+ * <p>Like {@link JsonElement#wrap(JavaScriptObject, String, int)}, values are addressed as
+ * {@code container[key]}, or as {@code container[index]} if {@code key} is null.
+ */
+abstract class ValueAdapter {
+
+  /**
+   * Returns the value stored in the container, which is neither null nor undefined.
+   */
+  abstract Object read(JavaScriptObject container, String key, int index);
+
+  /**
+   * Stores {@code value}, which is not null, as {@code container[key]}.
+   */
+  abstract void write(Object value, JavaScriptObject container, String key);
+
+  static final ValueAdapter STRING = new ValueAdapter() {
+    @Override
+    Object read(JavaScriptObject container, String key, int index) {
+      return getString(container, key, index);
+    }
+
+    @Override
+    void write(Object value, JavaScriptObject container, String key) {
+      JsonElement.set(container, key, (String) value);
+    }
+  };
+
+  static final ValueAdapter DOUBLE = new NumberAdapter() {
+    @Override
+    Object read(JavaScriptObject container, String key, int index) {
+      return Double.valueOf(getNumber(container, key, index));
+    }
+  };
+
+  static final ValueAdapter FLOAT = new NumberAdapter() {
+    @Override
+    Object read(JavaScriptObject container, String key, int index) {
+      return Float.valueOf((float) getNumber(container, key, index));
+    }
+  };
+
+  static final ValueAdapter LONG = new ValueAdapter() {
+    @Override
+    Object read(JavaScriptObject container, String key, int index) {
+      return Long.valueOf(getLong(container, key, index));
+    }
+
+    @Override
+    void write(Object value, JavaScriptObject container, String key) {
+      JsonElement.setNumber(container, key, value.toString());
+    }
+  };
+
+  static final ValueAdapter INTEGER = new NumberAdapter() {
+    @Override
+    Object read(JavaScriptObject container, String key, int index) {
+      return Integer.valueOf((int) getNumber(container, key, index));
+    }
+  };
+
+  static final ValueAdapter SHORT = new NumberAdapter() {
+    @Override
+    Object read(JavaScriptObject container, String key, int index) {
+      return Short.valueOf((short) getNumber(container, key, index));
+    }
+  };
+
+  static final ValueAdapter BYTE = new NumberAdapter() {
+    @Override
+    Object read(JavaScriptObject container, String key, int index) {
+      return Byte.valueOf((byte) getNumber(container, key, index));
+    }
+  };
+
+  static final ValueAdapter BOOLEAN = new ValueAdapter() {
+    @Override
+    Object read(JavaScriptObject container, String key, int index) {
+      return Boolean.valueOf(getBoolean(container, key, index));
+    }
+
+    @Override
+    void write(Object value, JavaScriptObject container, String key) {
+      JsonElement.set(container, key, ((Boolean) value).booleanValue());
+    }
+  };
+
+  static final ValueAdapter CHARACTER = new ValueAdapter() {
+    @Override
+    Object read(JavaScriptObject container, String key, int index) {
+      return Character.valueOf(getChar(container, key, index));
+    }
+
+    @Override
+    void write(Object value, JavaScriptObject container, String key) {
+      JsonElement.set(container, key, value.toString());
+    }
+  };
+
+  static final ValueAdapter JSON_ELEMENT = new JsonElementAdapter() {
+    @Override
+    Object read(JavaScriptObject container, String key, int index) {
+      return JsonElement.wrap(container, key, index);
+    }
+  };
+
+  static final ValueAdapter JSON_OBJECT = new JsonElementAdapter() {
+    @Override
+    Object read(JavaScriptObject container, String key, int index) {
+      return JsonElement.wrap(container, key, index).getAsJsonObject();
+    }
+  };
+
+  static final ValueAdapter JSON_ARRAY = new JsonElementAdapter() {
+    @Override
+    Object read(JavaScriptObject container, String key, int index) {
+      return JsonElement.wrap(container, key, index).getAsJsonArray();
+    }
+  };
+
+  static final ValueAdapter JSON_PRIMITIVE = new JsonElementAdapter() {
+    @Override
+    Object read(JavaScriptObject container, String key, int index) {
+      return JsonElement.wrap(container, key, index).getAsJsonPrimitive();
+    }
+  };
+
+  static final ValueAdapter INT_ARRAY = new ValueAdapter() {
+    @Override
+    Object read(JavaScriptObject container, String key, int index) {
+      return new JsonArray(getObject(container, key, index)).toIntArray();
+    }
+
+    @Override
+    void write(Object value, JavaScriptObject container, String key) {
+      int[] values = (int[]) value;
+      JavaScriptObject array = JavaScriptObject.createArray();
+      for (int i = 0; i < values.length; i++) {
+        JsonElement.set(array, String.valueOf(i), values[i]);
+      }
+      JsonElement.set(container, key, array);
+    }
+  };
+
+  static final ValueAdapter DOUBLE_ARRAY = new ValueAdapter() {
+    @Override
+    Object read(JavaScriptObject container, String key, int index) {
+      return new JsonArray(getObject(container, key, index)).toDoubleArray();
+    }
+
+    @Override
+    void write(Object value, JavaScriptObject container, String key) {
+      double[] values = (double[]) value;
+      JavaScriptObject array = JavaScriptObject.createArray();
+      for (int i = 0; i < values.length; i++) {
+        JsonElement.set(array, String.valueOf(i), values[i]);
+      }
+      JsonElement.set(container, key, array);
+    }
+  };
+
+  static final ValueAdapter STRING_ARRAY = new ValueAdapter() {
+    @Override
+    Object read(JavaScriptObject container, String key, int index) {
+      return new JsonArray(getObject(container, key, index)).toStringArray();
+    }
+
+    @Override
+    void write(Object value, JavaScriptObject container, String key) {
+      String[] values = (String[]) value;
+      JavaScriptObject array = JavaScriptObject.createArray();
+      for (int i = 0; i < values.length; i++) {
+        if (values[i] == null) {
+          JsonElement.setNull(array, String.valueOf(i));
+        } else {
+          JsonElement.set(array, String.valueOf(i), values[i]);
+        }
+      }
+      JsonElement.set(container, key, array);
+    }
+  };
+
+  private abstract static class NumberAdapter extends ValueAdapter {
+    @Override
+    void write(Object value, JavaScriptObject container, String key) {
+      JsonElement.set(container, key, ((Number) value).doubleValue());
+    }
+  }
+
+  /**
+   * Writes a copy of the element, since the tree written to does not know it shares values with
+   * the element's own tree.
+   */
+  private abstract static class JsonElementAdapter extends ValueAdapter {
+    @Override
+    void write(Object value, JavaScriptObject container, String key) {
+      ((JsonElement) value).deepCopy().putInto(container, key);
+    }
+  }
+
+  /**
+   * Reads JSON arrays into an {@link ArrayList}, or into a {@link LinkedHashSet} for fields
+   * declared as sets.
+   */
+  static final class CollectionAdapter extends ValueAdapter {
+    private final ValueAdapter elements;
+    private final boolean set;
+
+    CollectionAdapter(ValueAdapter elements, boolean set) {
+      this.elements = elements;
+      this.set = set;
+    }
+
+    @Override
+    Object read(JavaScriptObject container, String key, int index) {
+      JavaScriptObject array = getObject(container, key, index);
+      int length = JsonElement.length(array);
+      Collection<Object> collection = set
+          ? new LinkedHashSet<Object>() : new ArrayList<Object>(length);
+      for (int i = 0; i < length; i++) {
+        collection.add(isNull(array, null, i) ? null : elements.read(array, null, i));
+      }
+      return collection;
+    }
+
+    @Override
+    void write(Object value, JavaScriptObject container, String key) {
+      JavaScriptObject array = JavaScriptObject.createArray();
+      int i = 0;
+      for (Object element : (Collection<?>) value) {
+        String elementKey = String.valueOf(i++);
+        if (element == null) {
+          JsonElement.setNull(array, elementKey);
+        } else {
+          elements.write(element, array, elementKey);
+        }
+      }
+      JsonElement.set(container, key, array);
+    }
+  }
+
+  /**
+   * Reads JSON objects into a {@link LinkedHashMap} with String keys.
+   */
+  static final class MapAdapter extends ValueAdapter {
+    private final ValueAdapter values;
+
+    MapAdapter(ValueAdapter values) {
+      this.values = values;
+    }
+
+    @Override
+    Object read(JavaScriptObject container, String key, int index) {
+      JavaScriptObject object = getObject(container, key, index);
+      JsArrayString keys = JsonElement.keys(object);
+      Map<String, Object> map = new LinkedHashMap<String, Object>();
+      for (int i = 0; i < keys.length(); i++) {
+        String name = keys.get(i);
+        map.put(name, isNull(object, name, 0) ? null : values.read(object, name, 0));
+      }
+      return map;
+    }
+
+    @Override
+    void write(Object value, JavaScriptObject container, String key) {
+      JavaScriptObject object = JavaScriptObject.createObject();
+      for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+        String name = String.valueOf(entry.getKey());
+        if (entry.getValue() == null) {
+          JsonElement.setNull(object, name);
+        } else {
+          values.write(entry.getValue(), object, name);
+        }
+      }
+      JsonElement.set(container, key, object);
+    }
+  }
+
+  /**
+   * Returns true if the container has no such value, or if it is null.
+   */
+  static native boolean isNull(JavaScriptObject container, String key, int index) /*-{
+    if (key == null) {
+      return container[index] == null;
+    }
+    return !Object.prototype.hasOwnProperty.call(container, key) || container[key] == null;
+  }-*/;
+
+  /**
+   * Returns the value as a number. Other primitives are converted as
+   * {@link JsonPrimitive#getAsDouble()} would.
+   */
+  static native double getNumber(JavaScriptObject container, String key, int index) /*-{
+    var v = key == null ? container[index] : container[key];
+    if (typeof v == "number") {
+      return v;
+    }
+    return @java.lang.Double::parseDouble(Ljava/lang/String;)(String(v));
+  }-*/;
+
+  /**
+   * Returns the value as a long. Integers are read from their text where it was kept, so that
+   * those of magnitude 2^53 or more are not rounded, see {@link JsonParser#setLosslessNumbers}.
+   */
+  static long getLong(JavaScriptObject container, String key, int index) {
+    String lexeme = getLexeme(container, key, index);
+    if (lexeme != null) {
+      try {
+        return Long.parseLong(lexeme);
+      } catch (NumberFormatException e) {
+        // not an integer, such as "1e3"; read it as a double below
+      }
+    }
+    return (long) getNumber(container, key, index);
+  }
+
+  /**
+   * Returns the text of a number whose lexeme was kept, or of a string, or else null.
+   */
+  private static native String getLexeme(JavaScriptObject container, String key,
+      int index) /*-{
+    var v = key == null ? container[index] : container[key];
+    if (v instanceof Number) {
+      return v.lexeme;
+    }
+    return typeof v == "string" ? v : null;
+  }-*/;
+
+  static native boolean getBoolean(JavaScriptObject container, String key, int index) /*-{
+    var v = key == null ? container[index] : container[key];
+    if (typeof v == "boolean") {
+      return v;
+    }
+    return String(v).toLowerCase() == "true";
+  }-*/;
+
+  /**
+   * Returns the value as a string. Like Gson, numbers and booleans are converted to their text,
+   * but objects and arrays are not.
+   *
+   * @throws JsonParseException if the value is an object or an array
+   */
+  static native String getString(JavaScriptObject container, String key, int index) /*-{
+    var v = key == null ? container[index] : container[key];
+    if (typeof v == "string") {
+      return v;
+    }
+    if (v instanceof Number) {
+      return v.lexeme;
+    }
+    if (typeof v == "object") {
+      var type = Object.prototype.toString.call(v) == "[object Array]" ? "an array" : "an object";
+      throw @com.google.gson.JsonParseException::new(Ljava/lang/String;)("Expected a string but was " + type);
+    }
+    return String(v);
+  }-*/;
+
+  /**
+   * Returns the value as a char, which like Gson must be a string of one character.
+   *
+   * @throws JsonParseException if the value is not one character long
+   */
+  static char getChar(JavaScriptObject container, String key, int index) {
+    String value = getString(container, key, index);
+    if (value.length() != 1) {
+      throw new JsonParseException("Expected a char but was \"" + value + "\"");
+    }
+    return value.charAt(0);
+  }
+
+  static native JavaScriptObject getObject(JavaScriptObject container, String key,
+      int index) /*-{
+    var v = key == null ? container[index] : container[key];
+    if (typeof v != "object") {
+      throw @com.google.gson.JsonParseException::new(Ljava/lang/String;)("Expected an object or array but was " + v);
+    }
+    return v;
+  }-*/;
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2011 bedatadriven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.google.gson;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The {@link ValueAdapter}s known to {@link Gson}, by class name. The subclass that is bound
+ * to this class by {@code Gson.gwt.xml} is generated at compile time and registers an adapter
+ * for each class listed in the {@code gson.types} configuration property, and for each class
+ * reachable from their fields.
+ */
+abstract class ValueAdapters {
+
+  private final Map<String, ValueAdapter> adapters = new HashMap<String, ValueAdapter>();
+
+  ValueAdapters() {
+    register(ValueAdapter.STRING, "java.lang.String");
+    register(ValueAdapter.DOUBLE, "java.lang.Double", "double");
+    register(ValueAdapter.FLOAT, "java.lang.Float", "float");
+    register(ValueAdapter.LONG, "java.lang.Long", "long");
+    register(ValueAdapter.INTEGER, "java.lang.Integer", "int");
+    register(ValueAdapter.SHORT, "java.lang.Short", "short");
+    register(ValueAdapter.BYTE, "java.lang.Byte", "byte");
+    register(ValueAdapter.BOOLEAN, "java.lang.Boolean", "boolean");
+    register(ValueAdapter.CHARACTER, "java.lang.Character", "char");
+    register(ValueAdapter.INT_ARRAY, int[].class.getName());
+    register(ValueAdapter.DOUBLE_ARRAY, double[].class.getName());
+    register(ValueAdapter.STRING_ARRAY, String[].class.getName());
+  }
+
+  final void register(ValueAdapter adapter, String... classNames) {
+    for (String className : classNames) {
+      adapters.put(className, adapter);
+    }
+  }
+
+  /**
+   * Returns the adapter for the class named {@code className}, as returned by
+   * {@link Class#getName()}.
+   *
+   * @throws IllegalArgumentException if there is no adapter for the class.
+   */
+  final ValueAdapter get(String className) {
+    ValueAdapter adapter = adapters.get(className);
+    if (adapter == null) {
+      throw new IllegalArgumentException("No adapter was generated for " + className
+          + "; add it to the gson.types configuration property");
+    }
+    return adapter;
+  }
+}
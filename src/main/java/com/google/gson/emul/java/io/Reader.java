@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2011 bedatadriven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package java.io;
+
+/**
+ * Emulation of {@code java.io.Reader}, which GWT does not provide. Only the single
+ * threaded subset is supported: there is no {@code lock} field.
+ */
+public abstract class Reader implements Closeable {
+
+  protected Reader() {
+  }
+
+  /**
+   * Reads a single character.
+   *
+   * @return the character read, or -1 if the end of the stream has been reached
+   */
+  public int read() throws IOException {
+    char[] buffer = new char[1];
+    if (read(buffer, 0, 1) == -1) {
+      return -1;
+    }
+    return buffer[0];
+  }
+
+  /**
+   * Reads characters into an array.
+   *
+   * @return the number of characters read, or -1 if the end of the stream has been reached
+   */
+  public int read(char[] buffer) throws IOException {
+    return read(buffer, 0, buffer.length);
+  }
+
+  /**
+   * Reads up to {@code len} characters into a portion of an array.
+   *
+   * @return the number of characters read, or -1 if the end of the stream has been reached
+   */
+  public abstract int read(char[] buffer, int off, int len) throws IOException;
+
+  /**
+   * Skips characters.
+   *
+   * @return the number of characters actually skipped
+   */
+  public long skip(long n) throws IOException {
+    if (n < 0L) {
+      throw new IllegalArgumentException("skip value is negative");
+    }
+    char[] buffer = new char[(int) Math.min(n, 1024)];
+    long remaining = n;
+    while (remaining > 0) {
+      int count = read(buffer, 0, (int) Math.min(remaining, buffer.length));
+      if (count == -1) {
+        break;
+      }
+      remaining -= count;
+    }
+    return n - remaining;
+  }
+
+  /**
+   * Tells whether this stream is ready to be read.
+   */
+  public boolean ready() throws IOException {
+    return false;
+  }
+
+  /**
+   * Tells whether this stream supports the {@link #mark(int)} operation.
+   */
+  public boolean markSupported() {
+    return false;
+  }
+
+  /**
+   * Marks the present position in the stream.
+   */
+  public void mark(int readAheadLimit) throws IOException {
+    throw new IOException("mark() not supported");
+  }
+
+  /**
+   * Resets the stream to the most recent mark.
+   */
+  public void reset() throws IOException {
+    throw new IOException("reset() not supported");
+  }
+
+  public abstract void close() throws IOException;
+}
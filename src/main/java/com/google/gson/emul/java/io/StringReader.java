@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2011 bedatadriven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package java.io;
+
+/**
+ * Emulation of {@code java.io.StringReader}, which GWT does not provide.
+ */
+public class StringReader extends Reader {
+
+  private String str;
+  private int length;
+  private int next = 0;
+  private int mark = 0;
+
+  /**
+   * Creates a new string reader.
+   *
+   * @param s the string providing the character stream
+   */
+  public StringReader(String s) {
+    this.str = s;
+    this.length = s.length();
+  }
+
+  private void ensureOpen() throws IOException {
+    if (str == null) {
+      throw new IOException("Stream closed");
+    }
+  }
+
+  @Override
+  public int read() throws IOException {
+    ensureOpen();
+    if (next >= length) {
+      return -1;
+    }
+    return str.charAt(next++);
+  }
+
+  @Override
+  public int read(char[] buffer, int off, int len) throws IOException {
+    ensureOpen();
+    if (off < 0 || len < 0 || off + len > buffer.length) {
+      throw new IndexOutOfBoundsException();
+    }
+    if (len == 0) {
+      return 0;
+    }
+    if (next >= length) {
+      return -1;
+    }
+    int count = Math.min(length - next, len);
+    str.getChars(next, next + count, buffer, off);
+    next += count;
+    return count;
+  }
+
+  @Override
+  public long skip(long n) throws IOException {
+    ensureOpen();
+    if (next >= length) {
+      return 0;
+    }
+    long count = Math.min(length - next, n);
+    count = Math.max(-next, count);
+    next += count;
+    return count;
+  }
+
+  @Override
+  public boolean ready() throws IOException {
+    ensureOpen();
+    return true;
+  }
+
+  @Override
+  public boolean markSupported() {
+    return true;
+  }
+
+  @Override
+  public void mark(int readAheadLimit) throws IOException {
+    if (readAheadLimit < 0) {
+      throw new IllegalArgumentException("Read-ahead limit < 0");
+    }
+    ensureOpen();
+    mark = next;
+  }
+
+  @Override
+  public void reset() throws IOException {
+    ensureOpen();
+    next = mark;
+  }
+
+  @Override
+  public void close() {
+    str = null;
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2011 bedatadriven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package java.io;
+
+/**
+ * Emulation of {@code java.io.StringWriter}, which GWT does not provide. Every write
+ * appends straight to a single growing buffer.
+ */
+public class StringWriter extends Writer {
+
+  private final StringBuffer buf;
+
+  /**
+   * Creates a new string writer using the default initial string-buffer size.
+   */
+  public StringWriter() {
+    buf = new StringBuffer();
+  }
+
+  /**
+   * Creates a new string writer using the specified initial string-buffer size.
+   */
+  public StringWriter(int initialSize) {
+    if (initialSize < 0) {
+      throw new IllegalArgumentException("Negative buffer size");
+    }
+    buf = new StringBuffer(initialSize);
+  }
+
+  @Override
+  public void write(int c) {
+    buf.append((char) c);
+  }
+
+  @Override
+  public void write(char[] buffer, int off, int len) {
+    if (off < 0 || len < 0 || off + len > buffer.length) {
+      throw new IndexOutOfBoundsException();
+    }
+    buf.append(buffer, off, len);
+  }
+
+  @Override
+  public void write(String str) {
+    buf.append(str);
+  }
+
+  @Override
+  public void write(String str, int off, int len) {
+    buf.append(str.substring(off, off + len));
+  }
+
+  @Override
+  public StringWriter append(CharSequence csq) {
+    buf.append(String.valueOf(csq));
+    return this;
+  }
+
+  @Override
+  public StringWriter append(CharSequence csq, int start, int end) {
+    CharSequence cs = (csq == null ? "null" : csq);
+    buf.append(cs.subSequence(start, end).toString());
+    return this;
+  }
+
+  @Override
+  public StringWriter append(char c) {
+    buf.append(c);
+    return this;
+  }
+
+  /**
+   * Returns the buffer's current value as a string.
+   */
+  @Override
+  public String toString() {
+    return buf.toString();
+  }
+
+  /**
+   * Returns the string buffer itself.
+   */
+  public StringBuffer getBuffer() {
+    return buf;
+  }
+
+  @Override
+  public void flush() {
+  }
+
+  @Override
+  public void close() throws IOException {
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2011 bedatadriven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package java.io;
+
+/**
+ * Emulation of {@code java.io.Writer}, which GWT does not provide. Only the single
+ * threaded subset is supported: there is no {@code lock} field.
+ */
+public abstract class Writer implements Appendable, Closeable, Flushable {
+
+  protected Writer() {
+  }
+
+  /**
+   * Writes a single character.
+   */
+  public void write(int c) throws IOException {
+    write(new char[] { (char) c }, 0, 1);
+  }
+
+  /**
+   * Writes an array of characters.
+   */
+  public void write(char[] buffer) throws IOException {
+    write(buffer, 0, buffer.length);
+  }
+
+  /**
+   * Writes a portion of an array of characters.
+   */
+  public abstract void write(char[] buffer, int off, int len) throws IOException;
+
+  /**
+   * Writes a string.
+   */
+  public void write(String str) throws IOException {
+    write(str, 0, str.length());
+  }
+
+  /**
+   * Writes a portion of a string.
+   */
+  public void write(String str, int off, int len) throws IOException {
+    char[] buffer = new char[len];
+    str.getChars(off, off + len, buffer, 0);
+    write(buffer, 0, len);
+  }
+
+  public Writer append(CharSequence csq) throws IOException {
+    write(String.valueOf(csq));
+    return this;
+  }
+
+  public Writer append(CharSequence csq, int start, int end) throws IOException {
+    CharSequence cs = (csq == null ? "null" : csq);
+    write(cs.subSequence(start, end).toString());
+    return this;
+  }
+
+  public Writer append(char c) throws IOException {
+    write(c);
+    return this;
+  }
+
+  public abstract void flush() throws IOException;
+
+  public abstract void close() throws IOException;
+}
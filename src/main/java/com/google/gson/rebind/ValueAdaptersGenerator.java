@@ -0,0 +1,447 @@
+/*
+ * Copyright (C) 2011 bedatadriven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.google.gson.rebind;
+
+import com.google.gson.annotations.SerializedName;
+import com.google.gwt.core.ext.BadPropertyValueException;
+import com.google.gwt.core.ext.Generator;
+import com.google.gwt.core.ext.GeneratorContext;
+import com.google.gwt.core.ext.TreeLogger;
+import com.google.gwt.core.ext.UnableToCompleteException;
+import com.google.gwt.core.ext.typeinfo.JClassType;
+import com.google.gwt.core.ext.typeinfo.JEnumType;
+import com.google.gwt.core.ext.typeinfo.JField;
+import com.google.gwt.core.ext.typeinfo.JParameterizedType;
+import com.google.gwt.core.ext.typeinfo.JPrimitiveType;
+import com.google.gwt.core.ext.typeinfo.JType;
+import com.google.gwt.core.ext.typeinfo.JWildcardType;
+import com.google.gwt.core.ext.typeinfo.TypeOracle;
+import com.google.gwt.user.rebind.ClassSourceFileComposerFactory;
+import com.google.gwt.user.rebind.SourceWriter;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generates the {@code ValueAdapters} that {@code Gson} uses on the client. Each class listed in
+ * the {@code gson.types} configuration property, and each class reachable from their fields,
+ * gets an adapter that reads and writes its fields one by one, through JSNI so that private
+ * fields and constructors can be reached.
+ */
+public class ValueAdaptersGenerator extends Generator {
+
+  static final String TYPES_PROPERTY = "gson.types";
+
+  private static final Map<String, String> BUILT_IN = new HashMap<String, String>();
+
+  static {
+    BUILT_IN.put("java.lang.String", "ValueAdapter.STRING");
+    BUILT_IN.put("java.lang.Double", "ValueAdapter.DOUBLE");
+    BUILT_IN.put("java.lang.Float", "ValueAdapter.FLOAT");
+    BUILT_IN.put("java.lang.Long", "ValueAdapter.LONG");
+    BUILT_IN.put("java.lang.Integer", "ValueAdapter.INTEGER");
+    BUILT_IN.put("java.lang.Short", "ValueAdapter.SHORT");
+    BUILT_IN.put("java.lang.Byte", "ValueAdapter.BYTE");
+    BUILT_IN.put("java.lang.Boolean", "ValueAdapter.BOOLEAN");
+    BUILT_IN.put("java.lang.Character", "ValueAdapter.CHARACTER");
+    BUILT_IN.put("com.google.gson.JsonElement", "ValueAdapter.JSON_ELEMENT");
+    BUILT_IN.put("com.google.gson.JsonObject", "ValueAdapter.JSON_OBJECT");
+    BUILT_IN.put("com.google.gson.JsonArray", "ValueAdapter.JSON_ARRAY");
+    BUILT_IN.put("com.google.gson.JsonPrimitive", "ValueAdapter.JSON_PRIMITIVE");
+    BUILT_IN.put("int[]", "ValueAdapter.INT_ARRAY");
+    BUILT_IN.put("double[]", "ValueAdapter.DOUBLE_ARRAY");
+    BUILT_IN.put("java.lang.String[]", "ValueAdapter.STRING_ARRAY");
+  }
+
+  private static final Set<String> LISTS = new HashSet<String>();
+  private static final Set<String> SETS = new HashSet<String>();
+  private static final Set<String> MAPS = new HashSet<String>();
+
+  static {
+    LISTS.add("java.util.Collection");
+    LISTS.add("java.util.List");
+    LISTS.add("java.util.ArrayList");
+    SETS.add("java.util.Set");
+    SETS.add("java.util.HashSet");
+    SETS.add("java.util.LinkedHashSet");
+    MAPS.add("java.util.Map");
+    MAPS.add("java.util.HashMap");
+    MAPS.add("java.util.LinkedHashMap");
+  }
+
+  @Override
+  public String generate(TreeLogger logger, GeneratorContext context, String typeName)
+      throws UnableToCompleteException {
+    TypeOracle oracle = context.getTypeOracle();
+    JClassType type = oracle.findType(typeName);
+    String packageName = type.getPackage().getName();
+    String simpleName = type.getSimpleSourceName() + "Impl";
+
+    PrintWriter printWriter = context.tryCreate(logger, packageName, simpleName);
+    if (printWriter == null) {
+      return packageName + "." + simpleName;
+    }
+
+    List<String> typeNames;
+    try {
+      typeNames = context.getPropertyOracle().getConfigurationProperty(TYPES_PROPERTY).getValues();
+    } catch (BadPropertyValueException e) {
+      logger.log(TreeLogger.ERROR, "Could not read the " + TYPES_PROPERTY + " property", e);
+      throw new UnableToCompleteException();
+    }
+
+    Adapters adapters = new Adapters(logger, simpleName);
+    for (String name : typeNames) {
+      if (name == null || name.trim().length() == 0) {
+        continue;
+      }
+      JClassType root = oracle.findType(name.trim().replace('$', '.'));
+      if (root == null) {
+        logger.log(TreeLogger.ERROR, "Class " + name + " listed in " + TYPES_PROPERTY
+            + " was not found");
+        throw new UnableToCompleteException();
+      }
+      adapters.adapterFor(root);
+    }
+
+    ClassSourceFileComposerFactory composer =
+        new ClassSourceFileComposerFactory(packageName, simpleName);
+    composer.setSuperclass(type.getQualifiedSourceName());
+    composer.addImport("com.google.gwt.core.client.JavaScriptObject");
+    SourceWriter writer = composer.createSourceWriter(context, printWriter);
+    adapters.write(writer);
+    writer.commit(logger);
+
+    return composer.getCreatedClassName();
+  }
+
+  /**
+   * Collects the adapters of a generated class: one field for each adapter that is not built
+   * in, and one inner class for each enum and class.
+   */
+  private static class Adapters {
+    private final TreeLogger logger;
+    private final String simpleName;
+
+    /**
+     * The expression for the adapter of each type, by parameterized source name.
+     */
+    private final Map<String, String> expressions = new HashMap<String, String>();
+
+    /**
+     * The enums and classes, whose adapters are constructed first so that the collection and
+     * map adapters, which are constructed in order, can refer to them.
+     */
+    private final List<JClassType> classes = new ArrayList<JClassType>();
+    private final List<String> classFields = new ArrayList<String>();
+    private final List<String> fieldDeclarations = new ArrayList<String>();
+    private final List<String> compositeInitializers = new ArrayList<String>();
+
+    private Adapters(TreeLogger logger, String simpleName) {
+      this.logger = logger;
+      this.simpleName = simpleName;
+    }
+
+    /**
+     * Returns the expression for the adapter of {@code type}, adding it if necessary.
+     */
+    String adapterFor(JType type) throws UnableToCompleteException {
+      JWildcardType wildcard = type.isWildcard();
+      if (wildcard != null) {
+        return adapterFor(wildcard.getUpperBound());
+      }
+      String key = type.getParameterizedQualifiedSourceName();
+      String expression = expressions.get(key);
+      if (expression == null) {
+        expression = BUILT_IN.get(key);
+      }
+      if (expression != null) {
+        return expression;
+      }
+
+      JParameterizedType parameterized = type.isParameterized();
+      if (parameterized != null) {
+        String baseName = parameterized.getBaseType().getQualifiedSourceName();
+        JClassType[] args = parameterized.getTypeArgs();
+        String initializer;
+        if (LISTS.contains(baseName) || SETS.contains(baseName)) {
+          initializer = "new ValueAdapter.CollectionAdapter(" + adapterFor(args[0]) + ", "
+              + SETS.contains(baseName) + ")";
+        } else if (MAPS.contains(baseName)) {
+          if (!"java.lang.String".equals(args[0].getQualifiedSourceName())) {
+            return fail(type, "only maps with String keys are supported");
+          }
+          initializer = "new ValueAdapter.MapAdapter(" + adapterFor(args[1]) + ")";
+        } else {
+          return fail(type, "only List, Set and Map and their Array, Hash and LinkedHash "
+              + "implementations are supported");
+        }
+        expression = addField();
+        compositeInitializers.add(expression + " = " + initializer + ";");
+        expressions.put(key, expression);
+        return expression;
+      }
+
+      if (type.isPrimitive() != null || type.isArray() != null) {
+        return fail(type, "only int[], double[] and String[] arrays are supported");
+      }
+      if (type.isRawType() != null || type.isTypeParameter() != null) {
+        return fail(type, "the type arguments must be given");
+      }
+      JClassType classType = type.isClass();
+      if (classType == null) {
+        classType = type.isEnum();
+      }
+      if (classType == null) {
+        return fail(type, "interfaces are not supported");
+      }
+      if (classType.isEnum() == null) {
+        if (classType.isAbstract()) {
+          return fail(type, "abstract classes are not supported");
+        }
+        if (classType.isGenericType() != null) {
+          return fail(type, "generic classes are not supported");
+        }
+        if (!classType.isDefaultInstantiable()) {
+          return fail(type, "a static class with a no-argument constructor is required");
+        }
+      }
+
+      expression = addField();
+      expressions.put(key, expression);
+      classes.add(classType);
+      classFields.add(expression);
+      if (classType.isEnum() == null) {
+        for (JField field : fieldsOf(classType)) {
+          if (field.getType().isPrimitive() == null) {
+            adapterFor(field.getType());
+          }
+        }
+      }
+      return expression;
+    }
+
+    private String addField() {
+      String name = "adapter" + fieldDeclarations.size();
+      fieldDeclarations.add("private final ValueAdapter " + name + ";");
+      return name;
+    }
+
+    private String fail(JType type, String reason) throws UnableToCompleteException {
+      logger.log(TreeLogger.ERROR, "Cannot generate a Gson adapter for "
+          + type.getParameterizedQualifiedSourceName() + ": " + reason);
+      throw new UnableToCompleteException();
+    }
+
+    /**
+     * Returns the fields that Gson converts, those of superclasses first.
+     */
+    private List<JField> fieldsOf(JClassType classType) throws UnableToCompleteException {
+      List<JField> fields = new ArrayList<JField>();
+      Set<String> names = new HashSet<String>();
+      for (JClassType type = classType; type != null
+          && !"java.lang.Object".equals(type.getQualifiedSourceName());
+          type = type.getSuperclass()) {
+        int position = 0;
+        for (JField field : type.getFields()) {
+          if (!field.isStatic() && !field.isTransient()) {
+            fields.add(position++, field);
+            if (!names.add(nameOf(field))) {
+              fail(classType, "more than one field is named " + nameOf(field));
+            }
+          }
+        }
+      }
+      return fields;
+    }
+
+    private static String nameOf(JField field) {
+      SerializedName serializedName = field.getAnnotation(SerializedName.class);
+      return serializedName == null ? field.getName() : serializedName.value();
+    }
+
+    void write(SourceWriter writer) throws UnableToCompleteException {
+      for (String declaration : fieldDeclarations) {
+        writer.println(declaration);
+      }
+      writer.println();
+
+      writer.println("public %s() {", simpleName);
+      writer.indent();
+      for (int i = 0; i < classes.size(); i++) {
+        writer.println("%s = new %s();", classFields.get(i), adapterClassName(classes.get(i)));
+      }
+      for (String initializer : compositeInitializers) {
+        writer.println(initializer);
+      }
+      for (int i = 0; i < classes.size(); i++) {
+        writer.println("register(%s, \"%s\");", classFields.get(i),
+            classes.get(i).getQualifiedBinaryName());
+      }
+      writer.outdent();
+      writer.println("}");
+
+      for (JClassType classType : classes) {
+        writer.println();
+        if (classType.isEnum() != null) {
+          writeEnumAdapter(writer, classType.isEnum());
+        } else {
+          writeClassAdapter(writer, classType);
+        }
+      }
+    }
+
+    private void writeEnumAdapter(SourceWriter writer, JEnumType enumType) {
+      writer.println("private class %s extends ValueAdapter {", adapterClassName(enumType));
+      writer.indent();
+      writer.println("@Override");
+      writer.println("Object read(JavaScriptObject container, String key, int index) {");
+      writer.indent();
+      writer.println("try {");
+      writer.indentln("return valueOf(getString(container, key, index));");
+      writer.println("} catch (IllegalArgumentException unknownName) {");
+      writer.indentln("return null;");
+      writer.println("}");
+      writer.outdent();
+      writer.println("}");
+      writer.println();
+      writer.println("@Override");
+      writer.println("void write(Object value, JavaScriptObject container, String key) {");
+      writer.indentln("JsonElement.set(container, key, ((Enum<?>) value).name());");
+      writer.println("}");
+      writer.println();
+      writer.println("private native Object valueOf(String name) /*-{");
+      writer.indentln("return @%s::valueOf(Ljava/lang/String;)(name);",
+          enumType.getQualifiedSourceName());
+      writer.println("}-*/;");
+      writer.outdent();
+      writer.println("}");
+    }
+
+    private void writeClassAdapter(SourceWriter writer, JClassType classType)
+        throws UnableToCompleteException {
+      List<JField> fields = fieldsOf(classType);
+      String className = classType.getQualifiedSourceName();
+
+      writer.println("private class %s extends ValueAdapter {", adapterClassName(classType));
+      writer.indent();
+
+      writer.println("@Override");
+      writer.println("Object read(JavaScriptObject container, String key, int index) {");
+      writer.indent();
+      writer.println("JavaScriptObject object = getObject(container, key, index);");
+      writer.println("Object value = create();");
+      for (int i = 0; i < fields.size(); i++) {
+        JField field = fields.get(i);
+        String name = "\"" + escape(nameOf(field)) + "\"";
+        writer.println("if (!isNull(object, %s, 0)) {", name);
+        writer.indentln("set%d(value, %s);", i, readExpression(field.getType(), name));
+        writer.println("}");
+      }
+      writer.println("return value;");
+      writer.outdent();
+      writer.println("}");
+      writer.println();
+
+      writer.println("@Override");
+      writer.println("void write(Object value, JavaScriptObject container, String key) {");
+      writer.indent();
+      writer.println("JavaScriptObject object = JavaScriptObject.createObject();");
+      for (int i = 0; i < fields.size(); i++) {
+        JField field = fields.get(i);
+        String name = "\"" + escape(nameOf(field)) + "\"";
+        JPrimitiveType primitive = field.getType().isPrimitive();
+        if (primitive == JPrimitiveType.CHAR) {
+          writer.println("JsonElement.set(object, %s, String.valueOf(get%d(value)));", name, i);
+        } else if (primitive == JPrimitiveType.LONG) {
+          writer.println("JsonElement.setNumber(object, %s, String.valueOf(get%d(value)));",
+              name, i);
+        } else if (primitive != null) {
+          writer.println("JsonElement.set(object, %s, get%d(value));", name, i);
+        } else {
+          writer.println("Object field%d = get%d(value);", i, i);
+          writer.println("if (field%d != null) {", i);
+          writer.indentln("%s.write(field%d, object, %s);", adapterFor(field.getType()), i, name);
+          writer.println("}");
+        }
+      }
+      writer.println("JsonElement.set(container, key, object);");
+      writer.outdent();
+      writer.println("}");
+      writer.println();
+
+      writer.println("private native Object create() /*-{");
+      writer.indentln("return @%s::new()();", className);
+      writer.println("}-*/;");
+
+      for (int i = 0; i < fields.size(); i++) {
+        JField field = fields.get(i);
+        String fieldType = javaType(field.getType());
+        String reference = "@" + field.getEnclosingType().getQualifiedSourceName() + "::"
+            + field.getName();
+        String unsafeLong = field.getType() == JPrimitiveType.LONG
+            ? "@com.google.gwt.core.client.UnsafeNativeLong " : "";
+        writer.println();
+        writer.println("%sprivate native %s get%d(Object value) /*-{", unsafeLong, fieldType, i);
+        writer.indentln("return value.%s;", reference);
+        writer.println("}-*/;");
+        writer.println();
+        writer.println("%sprivate native void set%d(Object value, %s field) /*-{",
+            unsafeLong, i, fieldType);
+        writer.indentln("value.%s = field;", reference);
+        writer.println("}-*/;");
+      }
+
+      writer.outdent();
+      writer.println("}");
+    }
+
+    /**
+     * Returns the expression that reads a field of {@code type} from {@code object[name]}.
+     */
+    private String readExpression(JType type, String name) throws UnableToCompleteException {
+      JPrimitiveType primitive = type.isPrimitive();
+      if (primitive == null) {
+        return adapterFor(type) + ".read(object, " + name + ", 0)";
+      } else if (primitive == JPrimitiveType.BOOLEAN) {
+        return "getBoolean(object, " + name + ", 0)";
+      } else if (primitive == JPrimitiveType.CHAR) {
+        return "getChar(object, " + name + ", 0)";
+      } else if (primitive == JPrimitiveType.DOUBLE) {
+        return "getNumber(object, " + name + ", 0)";
+      } else if (primitive == JPrimitiveType.LONG) {
+        return "getLong(object, " + name + ", 0)";
+      } else {
+        return "(" + primitive.getSimpleSourceName() + ") getNumber(object, " + name + ", 0)";
+      }
+    }
+
+    private static String javaType(JType type) {
+      return type.isPrimitive() != null ? type.getSimpleSourceName() : "Object";
+    }
+
+    private static String adapterClassName(JClassType classType) {
+      return classType.getQualifiedSourceName().replace('.', '_') + "_Adapter";
+    }
+  }
+}
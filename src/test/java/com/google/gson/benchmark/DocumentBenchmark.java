@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2011 bedatadriven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.google.gson.benchmark;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gwt.benchmarks.client.Benchmark;
+import com.google.gwt.benchmarks.client.IntRange;
+import com.google.gwt.benchmarks.client.Operator;
+import com.google.gwt.benchmarks.client.RangeField;
+
+import java.util.Map;
+
+/**
+ * Measures the common operations on a freshly parsed document of records: iterating the
+ * array while reading members with {@link JsonObject#get(String)}, listing every member with
+ * {@link JsonObject#entrySet()}, and serializing with {@link JsonArray#toString()}.
+ *
+ * <p>The sizes stop at 256KB for the same reason as in {@link ParseBenchmark}.
+ */
+public class DocumentBenchmark extends Benchmark {
+
+  private static final int MIN_SIZE = 1024;
+  private static final int MAX_SIZE = 256 * 1024;
+  private static final int STEP = 4;
+
+  final IntRange sizeRange = new IntRange(MIN_SIZE, MAX_SIZE, Operator.MULTIPLY, STEP);
+
+  private JsonArray records;
+
+  @Override
+  public String getModuleName() {
+    return "com.google.gson.GsonBenchmark";
+  }
+
+  @Override
+  protected void gwtSetUp() {
+    for (int size = MIN_SIZE; size <= MAX_SIZE; size *= STEP) {
+      Documents.records(size);
+    }
+  }
+
+  /**
+   * Required for JUnit.
+   */
+  public void testGet() {
+  }
+
+  public void beginGet(Integer size) {
+    records = parse(size);
+  }
+
+  public void testGet(@RangeField("sizeRange") Integer size) {
+    double sum = 0;
+    for (JsonElement record : records) {
+      JsonObject object = record.getAsJsonObject();
+      sum += object.get("id").getAsDouble() + object.get("value").getAsDouble();
+      sum += object.get("name").getAsString().length();
+      sum += object.get("position").getAsJsonObject().get("x").getAsDouble();
+    }
+    assertTrue(sum > 0);
+  }
+
+  /**
+   * Required for JUnit.
+   */
+  public void testEntrySet() {
+  }
+
+  public void beginEntrySet(Integer size) {
+    records = parse(size);
+  }
+
+  public void testEntrySet(@RangeField("sizeRange") Integer size) {
+    int count = 0;
+    for (JsonElement record : records) {
+      for (Map.Entry<String, JsonElement> member : record.getAsJsonObject().entrySet()) {
+        if (member.getValue().isJsonPrimitive()) {
+          count++;
+        }
+      }
+    }
+    assertTrue(count > 0);
+  }
+
+  /**
+   * Required for JUnit.
+   */
+  public void testToString() {
+  }
+
+  public void beginToString(Integer size) {
+    records = parse(size);
+  }
+
+  public void testToString(@RangeField("sizeRange") Integer size) {
+    assertTrue(records.toString().length() > 0);
+  }
+
+  private static JsonArray parse(int size) {
+    return new JsonParser().parse(Documents.records(size)).getAsJsonArray();
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2011 bedatadriven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.google.gson.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Generates the JSON documents shared by the benchmarks. Documents are cached by size, since
+ * building the larger ones takes longer than parsing them.
+ */
+final class Documents {
+
+  private static final Map<Integer, String> cache = new HashMap<Integer, String>();
+
+  private Documents() {
+  }
+
+  /**
+   * Returns an array of records whose JSON text is at least {@code bytes} characters long.
+   * Each record mixes numbers, strings, booleans, nulls and a nested array and object.
+   */
+  static String records(int bytes) {
+    String json = cache.get(bytes);
+    if (json == null) {
+      json = generateRecords(bytes);
+      cache.put(bytes, json);
+    }
+    return json;
+  }
+
+  /**
+   * Returns an array of {@code count} rows that all have the same twenty members, in the same
+   * order.
+   */
+  static String rows(int count) {
+    StringBuilder json = new StringBuilder("[");
+    for (int i = 0; i < count; i++) {
+      if (i > 0) {
+        json.append(",");
+      }
+      json.append("{");
+      for (int column = 0; column < 20; column++) {
+        if (column > 0) {
+          json.append(",");
+        }
+        json.append("\"column").append(column).append("\":").append(i + column);
+      }
+      json.append("}");
+    }
+    return json.append("]").toString();
+  }
+
+  /**
+   * Returns an array of {@code count} numbers, as charted from a series.
+   */
+  static String series(int count) {
+    StringBuilder json = new StringBuilder("[");
+    for (int i = 0; i < count; i++) {
+      if (i > 0) {
+        json.append(",");
+      }
+      json.append(i * 0.5);
+    }
+    return json.append("]").toString();
+  }
+
+  /**
+   * Returns an array of {@code count} rows whose string values are drawn from small sets with
+   * a skewed distribution, like the enum-like columns of an export: half of the rows have the
+   * first value of each set, a quarter the second, and so on.
+   */
+  static String statuses(int count) {
+    String[] statuses = { "ACTIVE", "PENDING", "SUSPENDED", "CLOSED", "ARCHIVED" };
+    String[] countries = { "US", "DE", "FR", "GB", "NL", "BE", "CH", "AT" };
+    StringBuilder json = new StringBuilder("[");
+    for (int i = 0; i < count; i++) {
+      if (i > 0) {
+        json.append(",");
+      }
+      json.append("{\"id\":").append(i)
+          .append(",\"status\":\"").append(skewed(statuses, i)).append("\"")
+          .append(",\"country\":\"").append(skewed(countries, i / 3)).append("\"")
+          .append(",\"unit\":\"kg\"}");
+    }
+    return json.append("]").toString();
+  }
+
+  /**
+   * Returns the value of {@code values} ranked by the number of trailing one bits of {@code i}.
+   */
+  private static String skewed(String[] values, int i) {
+    int rank = 0;
+    while ((i & 1) == 1 && rank < values.length - 1) {
+      i >>= 1;
+      rank++;
+    }
+    return values[rank];
+  }
+
+  private static String generateRecords(int bytes) {
+    StringBuilder json = new StringBuilder(bytes + 256);
+    json.append("[");
+    for (int i = 0; json.length() < bytes; i++) {
+      if (i > 0) {
+        json.append(",");
+      }
+      json.append("{\"id\":").append(i)
+          .append(",\"name\":\"record ").append(i).append("\"")
+          .append(",\"value\":").append(i * 0.25)
+          .append(",\"active\":").append(i % 2 == 0)
+          .append(",\"parent\":null")
+          .append(",\"tags\":[\"a\",\"b\",").append(i % 7).append("]")
+          .append(",\"position\":{\"x\":").append(i % 100).append(",\"y\":").append(i / 100)
+          .append("}}");
+    }
+    return json.append("]").toString();
+  }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2011 bedatadriven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.gson.benchmark;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gwt.benchmarks.client.Benchmark;
+import com.google.gwt.benchmarks.client.IntRange;
+import com.google.gwt.benchmarks.client.Operator;
+import com.google.gwt.benchmarks.client.RangeField;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Parses rows with skewed, enum-like string values and keeps a primitive for each of their
+ * cells, as a table widget would, with and without {@link JsonParser#setInternStrings}.
+ *
+ * <p>The harness only reports time, so after each run the end methods count the distinct
+ * primitives that the cells hold: with interning all rows share one primitive for each of
+ * the fourteen distinct values, while without it every cell has its own, unless an
+ * interning parser has already put the values in the shared string table.
+ */
+public class InternBenchmark extends Benchmark {
+
+  final IntRange sizeRange = new IntRange(1000, 100000, Operator.MULTIPLY, 10);
+
+  /**
+   * The number of distinct values of the status, country and unit columns.
+   */
+  private static final int DISTINCT_VALUES = 5 + 8 + 1;
+
+  private String json;
+  private JsonElement[] cells;
+
+  @Override
+  public String getModuleName() {
+    return "com.google.gson.GsonBenchmark";
+  }
+
+  /**
+   * Required for JUnit.
+   */
+  public void testParse() {
+  }
+
+  public void beginParse(Integer size) {
+    json = Documents.statuses(size);
+  }
+
+  public void testParse(@RangeField("sizeRange") Integer size) {
+    keepCells(new JsonParser());
+  }
+
+  public void endParse(Integer size) {
+    // Depends on whether the interned case has run yet, see JsonStringTable
+    int distinct = countDistinctCells();
+    assertTrue(distinct == cells.length || distinct == DISTINCT_VALUES);
+  }
+
+  /**
+   * Required for JUnit.
+   */
+  public void testParseInterned() {
+  }
+
+  public void beginParseInterned(Integer size) {
+    json = Documents.statuses(size);
+  }
+
+  public void testParseInterned(@RangeField("sizeRange") Integer size) {
+    JsonParser parser = new JsonParser();
+    parser.setInternStrings(true);
+    keepCells(parser);
+  }
+
+  public void endParseInterned(Integer size) {
+    assertEquals(DISTINCT_VALUES, countDistinctCells());
+  }
+
+  private void keepCells(JsonParser parser) {
+    JsonArray rows = parser.parse(json).getAsJsonArray();
+    cells = new JsonElement[rows.size() * 3];
+    for (int i = 0; i < rows.size(); i++) {
+      JsonObject row = rows.get(i).getAsJsonObject();
+      cells[i * 3] = row.get("status");
+      cells[i * 3 + 1] = row.get("country");
+      cells[i * 3 + 2] = row.get("unit");
+    }
+    assertEquals("ACTIVE", cells[0].getAsString());
+  }
+
+  /**
+   * Returns the number of distinct primitive instances in {@link #cells}.
+   */
+  private int countDistinctCells() {
+    Map<JsonElement, Boolean> distinct = new IdentityHashMap<JsonElement, Boolean>();
+    for (JsonElement cell : cells) {
+      distinct.put(cell, Boolean.TRUE);
+    }
+    return distinct.size();
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2011 bedatadriven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.gson.benchmark;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonMetrics;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gwt.benchmarks.client.Benchmark;
+import com.google.gwt.benchmarks.client.IntRange;
+import com.google.gwt.benchmarks.client.Operator;
+import com.google.gwt.benchmarks.client.RangeField;
+
+/**
+ * Measures repeated reads of the same cells of a freshly parsed grid. The first pass over
+ * the grid allocates a wrapper per cell; every later pass should be served from the
+ * wrappers already handed out, so the cost per pass should fall as {@code passes} grows.
+ * After each run, {@link #endRepeatedGet(Integer)} checks through {@link JsonMetrics}, which
+ * {@code GsonBenchmark.gwt.xml} enables, that the timed passes allocated one wrapper per row
+ * and cell, and that a further pass returns the same wrappers and allocates none.
+ */
+public class MemberAccessBenchmark extends Benchmark {
+
+  private static final int ROWS = 500;
+
+  final IntRange passesRange = new IntRange(1, 16, Operator.MULTIPLY, 4);
+
+  private JsonArray grid;
+
+  @Override
+  public String getModuleName() {
+    return "com.google.gson.GsonBenchmark";
+  }
+
+  /**
+   * Required for JUnit.
+   */
+  public void testRepeatedGet() {
+  }
+
+  public void beginRepeatedGet(Integer passes) {
+    grid = new JsonParser().parse(generateGrid(ROWS)).getAsJsonArray();
+    JsonMetrics.reset();
+  }
+
+  public void testRepeatedGet(@RangeField("passesRange") Integer passes) {
+    double sum = 0;
+    for (int pass = 0; pass < passes; pass++) {
+      for (int i = 0; i < grid.size(); i++) {
+        JsonObject row = grid.get(i).getAsJsonObject();
+        sum += row.get("id").getAsDouble() + row.get("value").getAsDouble();
+        sum += row.get("label").getAsString().length();
+      }
+    }
+    assertTrue(sum > 0);
+  }
+
+  public void endRepeatedGet(Integer passes) {
+    assertTrue("gson.metrics must be true in GsonBenchmark.gwt.xml", JsonMetrics.isEnabled());
+
+    // a row and its three cells; the harness may repeat the timed method, but only its first
+    // pass should allocate
+    int timed = JsonMetrics.get().getWrapperCount();
+    assertEquals("wrappers allocated by the timed passes", ROWS * 4, timed);
+
+    for (int i = 0; i < grid.size(); i++) {
+      JsonObject row = grid.get(i).getAsJsonObject();
+      assertSame(row, grid.get(i));
+      assertSame(row.get("id"), row.get("id"));
+      assertSame(row.get("label"), row.get("label"));
+    }
+    int extra = JsonMetrics.get().getWrapperCount() - timed;
+    System.out.println("MemberAccessBenchmark, " + passes + " passes: " + timed
+        + " wrappers allocated by the timed passes, " + extra + " by a further pass");
+    assertEquals("wrappers allocated by a further pass", 0, extra);
+  }
+
+  static String generateGrid(int rows) {
+    StringBuilder json = new StringBuilder("[");
+    for (int i = 0; i < rows; i++) {
+      if (i > 0) {
+        json.append(",");
+      }
+      json.append("{\"id\":").append(i)
+          .append(",\"value\":").append(i * 0.5)
+          .append(",\"label\":\"row ").append(i).append("\"}");
+    }
+    return json.append("]").toString();
+  }
+}
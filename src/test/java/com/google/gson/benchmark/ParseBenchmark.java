@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2011 bedatadriven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.google.gson.benchmark;
+
+import com.google.gson.FieldSelector;
+import com.google.gson.JsonParser;
+import com.google.gwt.benchmarks.client.Benchmark;
+import com.google.gwt.benchmarks.client.IntRange;
+import com.google.gwt.benchmarks.client.Operator;
+import com.google.gwt.benchmarks.client.RangeField;
+import com.google.gwt.json.client.JSONParser;
+
+/**
+ * Compares {@link JsonParser}, which prefers the browser's native {@code JSON.parse}, with
+ * the {@code eval()} based {@link JSONParser#parseLenient(String)} it used to rely on, and
+ * with a projection that keeps two members of each record.
+ *
+ * <p>The sizes stop at 256KB because the harness allows each size ten seconds, which is not
+ * enough for HtmlUnit to {@code eval()} a megabyte. Raise {@code MAX_SIZE} to 10MB when
+ * running against a real browser.
+ */
+public class ParseBenchmark extends Benchmark {
+
+  private static final int MIN_SIZE = 1024;
+  private static final int MAX_SIZE = 256 * 1024;
+  private static final int STEP = 4;
+
+  final IntRange sizeRange = new IntRange(MIN_SIZE, MAX_SIZE, Operator.MULTIPLY, STEP);
+
+  private String json;
+
+  /**
+   * Created in the browser only: the JVM instantiates this class with Gson, which has no
+   * FieldSelector.
+   */
+  private FieldSelector selector;
+
+  @Override
+  public String getModuleName() {
+    return "com.google.gson.GsonBenchmark";
+  }
+
+  /**
+   * Generates the documents up front: the harness subtracts the time spent in the begin
+   * methods, and a document generated there on first use would swamp the parse itself.
+   */
+  @Override
+  protected void gwtSetUp() {
+    for (int size = MIN_SIZE; size <= MAX_SIZE; size *= STEP) {
+      Documents.records(size);
+    }
+  }
+
+  /**
+   * Required for JUnit.
+   */
+  public void testJsonParser() {
+  }
+
+  public void beginJsonParser(Integer size) {
+    json = Documents.records(size);
+  }
+
+  public void testJsonParser(@RangeField("sizeRange") Integer size) {
+    assertTrue(new JsonParser().parse(json).isJsonArray());
+  }
+
+  /**
+   * Required for JUnit.
+   */
+  public void testProjection() {
+  }
+
+  public void beginProjection(Integer size) {
+    json = Documents.records(size);
+    selector = new FieldSelector("id", "position.x");
+  }
+
+  public void testProjection(@RangeField("sizeRange") Integer size) {
+    assertTrue(new JsonParser().parse(json, selector).isJsonArray());
+  }
+
+  /**
+   * Required for JUnit.
+   */
+  public void testEval() {
+  }
+
+  public void beginEval(Integer size) {
+    json = Documents.records(size);
+  }
+
+  public void testEval(@RangeField("sizeRange") Integer size) {
+    assertNotNull(JSONParser.parseLenient(json).isArray());
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2011 bedatadriven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.gson.benchmark;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPath;
+import com.google.gwt.benchmarks.client.Benchmark;
+import com.google.gwt.benchmarks.client.IntRange;
+import com.google.gwt.benchmarks.client.Operator;
+import com.google.gwt.benchmarks.client.RangeField;
+
+/**
+ * Reads one nested value from each of a number of freshly parsed messages, once through a
+ * chain of getters and once with a compiled {@link JsonPath}. Both wrap every element on the
+ * way, since the path looks up what it finds through the same getters, so the difference is
+ * the cost of evaluating the query.
+ */
+public class PathBenchmark extends Benchmark {
+
+  final IntRange messagesRange = new IntRange(100, 10000, Operator.MULTIPLY, 10);
+
+  private JsonElement[] messages;
+
+  @Override
+  public String getModuleName() {
+    return "com.google.gson.GsonBenchmark";
+  }
+
+  private void parseMessages(int count) {
+    JsonParser parser = new JsonParser();
+    String json = Documents.records(1024);
+    messages = new JsonElement[count];
+    for (int i = 0; i < count; i++) {
+      messages[i] = parser.parse(json);
+    }
+  }
+
+  /**
+   * Required for JUnit.
+   */
+  public void testGetterChain() {
+  }
+
+  public void beginGetterChain(Integer count) {
+    parseMessages(count);
+  }
+
+  public void testGetterChain(@RangeField("messagesRange") Integer count) {
+    int sum = 0;
+    for (JsonElement message : messages) {
+      sum += message.getAsJsonArray().get(3).getAsJsonObject()
+          .getAsJsonObject("position").get("x").getAsInt();
+    }
+    assertTrue(sum > 0);
+  }
+
+  /**
+   * Required for JUnit.
+   */
+  public void testPointer() {
+  }
+
+  public void beginPointer(Integer count) {
+    parseMessages(count);
+  }
+
+  public void testPointer(@RangeField("messagesRange") Integer count) {
+    JsonPath path = JsonPath.compile("/3/position/x");
+    int sum = 0;
+    for (JsonElement message : messages) {
+      sum += path.find(message).getAsInt();
+    }
+    assertTrue(sum > 0);
+  }
+}
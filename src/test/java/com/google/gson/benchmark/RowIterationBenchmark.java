@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2011 bedatadriven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.google.gson.benchmark;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.google.gwt.benchmarks.client.Benchmark;
+import com.google.gwt.benchmarks.client.IntRange;
+import com.google.gwt.benchmarks.client.Operator;
+import com.google.gwt.benchmarks.client.RangeField;
+import com.google.gwt.json.client.JSONArray;
+import com.google.gwt.json.client.JSONObject;
+import com.google.gwt.json.client.JSONParser;
+
+import java.util.Map;
+
+/**
+ * Lists the members of every row of an array of same-shaped objects. {@link JsonArray} rows
+ * share a single key list, checked against all the rows in one pass when the first is listed,
+ * where {@link JSONObject#keySet()} enumerates and copies the keys of each row on every call.
+ * The first pass includes the check, so the difference grows with the number of passes.
+ */
+public class RowIterationBenchmark extends Benchmark {
+
+  private static final int ROWS = 5000;
+
+  final IntRange passesRange = new IntRange(1, 4, Operator.MULTIPLY, 4);
+
+  private JsonArray rows;
+  private JSONArray gwtRows;
+
+  @Override
+  public String getModuleName() {
+    return "com.google.gson.GsonBenchmark";
+  }
+
+  /**
+   * Required for JUnit.
+   */
+  public void testEntrySet() {
+  }
+
+  public void beginEntrySet(Integer passes) {
+    rows = new JsonParser().parse(Documents.rows(ROWS)).getAsJsonArray();
+  }
+
+  public void testEntrySet(@RangeField("passesRange") Integer passes) {
+    int count = 0;
+    for (int pass = 0; pass < passes; pass++) {
+      for (JsonElement row : rows) {
+        for (Map.Entry<String, JsonElement> member : row.getAsJsonObject().entrySet()) {
+          count += member.getKey().length();
+        }
+      }
+    }
+    assertTrue(count > 0);
+  }
+
+  /**
+   * Required for JUnit.
+   */
+  public void testGwtKeySet() {
+  }
+
+  public void beginGwtKeySet(Integer passes) {
+    gwtRows = JSONParser.parseStrict(Documents.rows(ROWS)).isArray();
+  }
+
+  public void testGwtKeySet(@RangeField("passesRange") Integer passes) {
+    int count = 0;
+    for (int pass = 0; pass < passes; pass++) {
+      for (int i = 0; i < gwtRows.size(); i++) {
+        for (String key : gwtRows.get(i).isObject().keySet()) {
+          count += key.length();
+        }
+      }
+    }
+    assertTrue(count > 0);
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2011 bedatadriven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.google.gson.benchmark;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonParser;
+import com.google.gwt.benchmarks.client.Benchmark;
+import com.google.gwt.benchmarks.client.IntRange;
+import com.google.gwt.benchmarks.client.Operator;
+import com.google.gwt.benchmarks.client.RangeField;
+
+/**
+ * Reads a numeric series out of a freshly parsed array, once through a wrapper per element
+ * and once with {@link JsonArray#toDoubleArray()}, which copies the backing array directly.
+ */
+public class SeriesBenchmark extends Benchmark {
+
+  final IntRange sizeRange = new IntRange(1000, 100000, Operator.MULTIPLY, 10);
+
+  private JsonArray series;
+
+  @Override
+  public String getModuleName() {
+    return "com.google.gson.GsonBenchmark";
+  }
+
+  /**
+   * Required for JUnit.
+   */
+  public void testGetAsDouble() {
+  }
+
+  public void beginGetAsDouble(Integer size) {
+    series = new JsonParser().parse(Documents.series(size)).getAsJsonArray();
+  }
+
+  public void testGetAsDouble(@RangeField("sizeRange") Integer size) {
+    double sum = 0;
+    for (int i = 0; i < series.size(); i++) {
+      sum += series.get(i).getAsDouble();
+    }
+    assertTrue(sum > 0);
+  }
+
+  /**
+   * Required for JUnit.
+   */
+  public void testToDoubleArray() {
+  }
+
+  public void beginToDoubleArray(Integer size) {
+    series = new JsonParser().parse(Documents.series(size)).getAsJsonArray();
+  }
+
+  public void testToDoubleArray(@RangeField("sizeRange") Integer size) {
+    double sum = 0;
+    for (double value : series.toDoubleArray()) {
+      sum += value;
+    }
+    assertTrue(sum > 0);
+  }
+}
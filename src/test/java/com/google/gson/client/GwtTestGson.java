@@ -0,0 +1,222 @@
+/*
+ * Copyright (C) 2011 bedatadriven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.google.gson.client;
+
+import com.google.gson.*;
+import com.google.gson.annotations.SerializedName;
+import com.google.gwt.junit.client.GWTTestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class GwtTestGson extends GWTTestCase {
+
+  @Override
+  public String getModuleName() {
+    return "com.google.gson.GsonTest";
+  }
+
+  public void testFromJson() {
+
+    Order order = new Gson().fromJson("{\"id\": 42, \"customer\": \"Ada\", \"placedAt\": 1300000000000,"
+        + " \"total\": 12.5, \"paid\": true, \"status\": \"SHIPPED\", \"ref\": \"A-1\","
+        + " \"lines\": [{\"sku\": \"x\", \"count\": 2, \"grade\": \"b\"}, null],"
+        + " \"tags\": [\"new\", \"new\", \"gift\"], \"notes\": {\"a\": \"one\"},"
+        + " \"quantities\": [1, 2], \"extra\": {\"k\": [1]}, \"parent\": {\"id\": 7}}", Order.class);
+
+    assertEquals(42, order.id);
+    assertEquals("Ada", order.customer);
+    assertEquals(1300000000000L, order.placedAt);
+    assertEquals(12.5, order.total);
+    assertTrue(order.paid);
+    assertEquals(Status.SHIPPED, order.status);
+    assertEquals("A-1", order.reference);
+    assertEquals(2, order.lines.size());
+    assertEquals("x", order.lines.get(0).sku);
+    assertEquals(Integer.valueOf(2), order.lines.get(0).count);
+    assertEquals('b', order.lines.get(0).grade);
+    assertNull(order.lines.get(1));
+    assertEquals(2, order.tags.size());
+    assertEquals("one", order.notes.get("a"));
+    assertEquals(2, order.quantities[1]);
+    assertEquals(1, order.extra.getAsJsonArray("k").get(0).getAsInt());
+    assertEquals(7, order.parent.id);
+    assertNull(order.parent.customer);
+  }
+
+  public void testMissingAndNullFields() {
+
+    Order order = new Gson().fromJson("{\"customer\": null}", Order.class);
+    assertEquals(-1, order.id);
+    assertNull(order.customer);
+    assertNull(order.lines);
+  }
+
+  public void testToJson() {
+
+    Order order = new Order();
+    order.id = 3;
+    order.customer = "Bob";
+    order.status = Status.NEW;
+    order.reference = "B-2";
+    order.lines = new ArrayList<Line>();
+    order.lines.add(new Line());
+    order.cache = "not written";
+
+    JsonObject json = new Gson().toJsonTree(order).getAsJsonObject();
+    assertEquals(3, json.get("id").getAsInt());
+    assertEquals("Bob", json.get("customer").getAsString());
+    assertEquals("NEW", json.get("status").getAsString());
+    assertEquals("B-2", json.get("ref").getAsString());
+    assertFalse(json.get("paid").getAsBoolean());
+    assertEquals("a", json.getAsJsonArray("lines").get(0).getAsJsonObject().get("grade").getAsString());
+    assertFalse(json.has("cache"));
+    assertFalse(json.has("notes"));
+  }
+
+  public void testRoundTrip() {
+
+    Order order = new Order();
+    order.id = 5;
+    order.total = 0.25;
+    order.parent = new Order();
+    order.parent.customer = "Eve";
+
+    Gson gson = new Gson();
+    Order copy = gson.fromJson(gson.toJson(order), Order.class);
+    assertEquals(5, copy.id);
+    assertEquals(0.25, copy.total);
+    assertEquals("Eve", copy.parent.customer);
+  }
+
+  public void testJsonElementFieldsAreCopied() {
+
+    Gson gson = new Gson();
+    Order order = new Order();
+    order.extra = new JsonObject();
+    order.extra.addProperty("k", 1);
+    JsonObject tree = gson.toJsonTree(order).getAsJsonObject();
+    tree.getAsJsonObject("extra").addProperty("k", 2);
+    assertEquals(1, order.extra.get("k").getAsInt());
+
+    Order copy = gson.fromJson(tree, Order.class);
+    copy.extra.addProperty("k", 3);
+    assertEquals(2, tree.getAsJsonObject("extra").get("k").getAsInt());
+  }
+
+  public void testPrimitivesAndNull() {
+
+    Gson gson = new Gson();
+    assertEquals("\"a\"", gson.toJson("a"));
+    assertEquals("null", gson.toJson((Object) null));
+    assertEquals(Integer.valueOf(4), gson.fromJson("4", Integer.class));
+    assertNull(gson.fromJson("null", Order.class));
+  }
+
+  public void testUnknownClass() {
+
+    try {
+      new Gson().fromJson("{}", GwtTestGson.class);
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+
+  public void testLongFieldsAreExact() {
+
+    Gson gson = new Gson();
+    Order order = gson.fromJson("{\"placedAt\": 9007199254740993,"
+        + " \"version\": -9223372036854775808}", Order.class);
+    assertEquals(9007199254740993L, order.placedAt);
+    assertEquals(Long.valueOf(Long.MIN_VALUE), order.version);
+
+    String json = gson.toJson(order);
+    assertTrue(json, json.contains("9007199254740993"));
+    assertEquals(Long.valueOf(Long.MIN_VALUE), gson.fromJson(json, Order.class).version);
+  }
+
+  public void testStringFieldsFromOtherValues() {
+
+    Gson gson = new Gson();
+    assertEquals("12", gson.fromJson("{\"customer\": 12}", Order.class).customer);
+    assertEquals("true", gson.fromJson("{\"customer\": true}", Order.class).customer);
+    try {
+      gson.fromJson("{\"customer\": {\"name\": \"Ada\"}}", Order.class);
+      fail();
+    } catch (JsonParseException expected) {
+    }
+    try {
+      gson.fromJson("{\"customer\": [\"Ada\"]}", Order.class);
+      fail();
+    } catch (JsonParseException expected) {
+    }
+  }
+
+  public void testCharFieldsNeedOneCharacter() {
+
+    Gson gson = new Gson();
+    try {
+      gson.fromJson("{\"lines\": [{\"grade\": \"\"}]}", Order.class);
+      fail();
+    } catch (JsonParseException expected) {
+    }
+    try {
+      gson.fromJson("{\"lines\": [{\"grade\": \"ab\"}]}", Order.class);
+      fail();
+    } catch (JsonParseException expected) {
+    }
+  }
+
+  public void testUnknownEnumName() {
+
+    Order order = new Gson().fromJson("{\"id\": 1, \"status\": \"LOST\"}", Order.class);
+    assertEquals(1, order.id);
+    assertNull(order.status);
+  }
+
+  enum Status {
+    NEW, SHIPPED
+  }
+
+  static class Order {
+    private int id = -1;
+    private String customer;
+    private long placedAt;
+    private Long version;
+    private double total;
+    private boolean paid;
+    private Status status;
+    @SerializedName("ref")
+    private String reference;
+    private List<Line> lines;
+    private Set<String> tags;
+    private Map<String, String> notes;
+    private int[] quantities;
+    private JsonObject extra;
+    private Order parent;
+    private transient String cache;
+  }
+
+  static class Line {
+    private String sku;
+    private Integer count;
+    private char grade = 'a';
+  }
+}
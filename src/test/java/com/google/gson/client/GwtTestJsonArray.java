@@ -0,0 +1,200 @@
+/*
+ * Copyright (C) 2011 bedatadriven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.google.gson.client;
+
+import com.google.gson.*;
+import com.google.gwt.junit.client.GWTTestCase;
+
+public class GwtTestJsonArray extends GWTTestCase {
+
+  @Override
+  public String getModuleName() {
+    return "com.google.gson.GsonTest";
+  }
+
+  public void testToDoubleArray() {
+
+    JsonArray array = new JsonParser().parse("[1, 2.5, null, '4', -3]").getAsJsonArray();
+    double[] values = array.toDoubleArray();
+
+    assertEquals(5, values.length);
+    assertEquals(1d, values[0]);
+    assertEquals(2.5d, values[1]);
+    assertTrue(Double.isNaN(values[2]));
+    assertEquals(4d, values[3]);
+    assertEquals(-3d, values[4]);
+  }
+
+  public void testToIntArray() {
+
+    JsonArray array = new JsonParser().parse("[1, 2.7, null, -3.2]").getAsJsonArray();
+    int[] values = array.toIntArray();
+
+    assertEquals(4, values.length);
+    assertEquals(1, values[0]);
+    assertEquals(2, values[1]);
+    assertEquals(0, values[2]);
+    assertEquals(-3, values[3]);
+  }
+
+  public void testToStringArray() {
+
+    JsonArray array = new JsonParser().parse("['a', null, 3, true]").getAsJsonArray();
+    String[] values = array.toStringArray();
+
+    assertEquals(4, values.length);
+    assertEquals("a", values[0]);
+    assertNull(values[1]);
+    assertEquals(array.get(2).getAsString(), values[2]);
+    assertEquals("true", values[3]);
+  }
+
+  public void testAddedElements() {
+
+    JsonArray array = new JsonArray();
+    array.add(new JsonPrimitive(7));
+    array.add(JsonNull.INSTANCE);
+
+    assertEquals(7, array.toIntArray()[0]);
+    assertTrue(Double.isNaN(array.toDoubleArray()[1]));
+  }
+
+  public void testObjectElement() {
+
+    JsonArray array = new JsonParser().parse("[1, {a: 2}]").getAsJsonArray();
+    try {
+      array.toDoubleArray();
+      fail();
+    } catch (UnsupportedOperationException expected) {
+    }
+  }
+
+  public void testEmptyArray() {
+
+    assertEquals(0, new JsonArray().toDoubleArray().length);
+    assertEquals(0, new JsonArray().toStringArray().length);
+  }
+
+  public void testStructuralEquality() {
+
+    JsonArray a = new JsonParser().parse("[1, 'a', { b: [2] }]").getAsJsonArray();
+    JsonArray b = new JsonArray();
+    b.add(new JsonPrimitive(1));
+    b.add(new JsonPrimitive("a"));
+    b.add(new JsonParser().parse("{ b: [2] }"));
+
+    assertEquals(a, b);
+    assertEquals(a.hashCode(), b.hashCode());
+    assertFalse(a.equals(new JsonParser().parse("['a', 1, { b: [2] }]")));
+
+    b.add(JsonNull.INSTANCE);
+    assertFalse(a.equals(b));
+  }
+
+  public void testSetAndRemove() {
+
+    JsonArray array = new JsonParser().parse("[1, 2, 3]").getAsJsonArray();
+    JsonElement third = array.get(2);
+
+    assertEquals(2, array.set(1, new JsonPrimitive(20)).getAsInt());
+    assertEquals(1, array.remove(0).getAsInt());
+    assertEquals("[20,3]", array.toString());
+    assertSame(third, array.get(1));
+
+    try {
+      array.remove(2);
+      fail();
+    } catch (IndexOutOfBoundsException expected) {
+    }
+  }
+
+  public void testRemoveFromSnapshot() {
+
+    JsonArray rows = new JsonParser().parse("[{ id: 1 }, { id: 2 }, { id: 3 }]").getAsJsonArray();
+    JsonObject last = rows.get(2).getAsJsonObject();
+    JsonArray snapshot = rows.snapshot();
+
+    rows.remove(0);
+    last.addProperty("id", 30);
+
+    assertEquals("[{\"id\":2},{\"id\":30}]", rows.toString());
+    assertEquals("[{\"id\":1},{\"id\":2},{\"id\":3}]", snapshot.toString());
+  }
+
+  public void testElementAddedToTwoContainers() {
+
+    JsonObject row = new JsonParser().parse("{ id: 1 }").getAsJsonObject();
+    JsonArray first = new JsonArray();
+    first.add(row);
+    JsonObject second = new JsonObject();
+    second.add("row", row);
+    JsonArray firstSnapshot = first.snapshot();
+    int firstHash = first.hashCode();
+
+    row.addProperty("id", 2);
+    assertEquals("[{\"id\":2}]", first.toString());
+    assertEquals("[{\"id\":1}]", firstSnapshot.toString());
+    assertEquals("{\"row\":{\"id\":1}}", second.toString());
+    assertTrue(firstHash != first.hashCode());
+
+    second.getAsJsonObject("row").addProperty("id", 3);
+    assertEquals("[{\"id\":2}]", first.toString());
+    assertEquals("{\"row\":{\"id\":3}}", second.toString());
+
+    // a removed element belongs to no container and is moved as is
+    JsonElement removed = first.remove(0);
+    second.add("moved", removed);
+    assertSame(removed, second.get("moved"));
+  }
+
+  public void testSnapshot() {
+
+    JsonArray rows = new JsonParser().parse("[{ id: 1 }, { id: 2 }]").getAsJsonArray();
+    JsonArray snapshot = rows.snapshot();
+
+    snapshot.get(1).getAsJsonObject().addProperty("id", 20);
+    rows.add(new JsonPrimitive(3));
+
+    assertEquals("[{\"id\":1},{\"id\":2},3]", rows.toString());
+    assertEquals("[{\"id\":1},{\"id\":20}]", snapshot.toString());
+    assertSame(JsonNull.INSTANCE, JsonNull.INSTANCE.deepCopy());
+  }
+
+  public void testFrozen() {
+
+    JsonArray rows = new JsonParser().parse("[{ id: 1 }, { id: 2 }]").getAsJsonArray().freeze();
+    JsonArray changed = rows.with(1, new JsonParser().parse("{ id: 20 }"))
+        .withAdded(new JsonPrimitive(3))
+        .without(0);
+
+    try {
+      rows.set(0, new JsonPrimitive(0));
+      fail();
+    } catch (UnsupportedOperationException expected) {
+    }
+    try {
+      rows.get(1).getAsJsonObject().addProperty("id", 20);
+      fail();
+    } catch (UnsupportedOperationException expected) {
+    }
+    assertTrue(changed.isFrozen());
+    assertTrue(changed.get(0).isFrozen());
+    assertEquals("[{\"id\":1},{\"id\":2}]", rows.toString());
+    assertEquals("[{\"id\":20},3]", changed.toString());
+  }
+}
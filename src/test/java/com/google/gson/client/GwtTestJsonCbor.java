@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2011 bedatadriven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.google.gson.client;
+
+import com.google.gson.*;
+import com.google.gwt.junit.client.GWTTestCase;
+
+public class GwtTestJsonCbor extends GWTTestCase {
+
+  @Override
+  public String getModuleName() {
+    return "com.google.gson.GsonTest";
+  }
+
+  /**
+   * The same bytes as {@link JsonCborTest}, which encodes with Gson on the server.
+   */
+  public void testSameBytesAsServer() {
+
+    assertEncoding(new JsonPrimitive(1000000), "1a000f4240");
+    assertEncoding(new JsonPrimitive(1000000000000L), "1b000000e8d4a51000");
+    assertEncoding(new JsonPrimitive(Long.MIN_VALUE), "3b7fffffffffffffff");
+    assertEncoding(new JsonPrimitive(-0.0), "f98000");
+    assertEncoding(new JsonPrimitive(100000.5), "fa47c35040");
+    assertEncoding(new JsonPrimitive(-4.1), "fbc010666666666666");
+    assertEncoding(new JsonPrimitive(Double.MIN_VALUE), "fb0000000000000001");
+    assertEncoding(new JsonPrimitive("\u00fc\u6c34\ud800\udd51"), "69c3bce6b0b4f0908591");
+    assertEncoding(new JsonParser().parse("{\"a\":1,\"b\":[2,3]}"), "a26161016162820203");
+  }
+
+  public void testRoundTrip() {
+
+    JsonElement document = new JsonParser().parse("[{ id: 1, name: 'a\\u0000b', value: 0.1, "
+        + "active: true, parent: null, tags: [], position: { x: -1e300, y: 5e-324 } }, 'x', {}]");
+    JsonElement decoded = JsonCbor.decode(JsonCbor.encode(document));
+
+    assertEquals(document, decoded);
+    assertEquals(document.toString(), decoded.toString());
+  }
+
+  public void testLosslessNumbers() {
+
+    JsonParser parser = new JsonParser();
+    parser.setLosslessNumbers(true);
+    JsonElement document = parser.parse("[9007199254740993, -9223372036854775808]");
+    JsonArray decoded = JsonCbor.decodeBase64(JsonCbor.encodeBase64(document)).getAsJsonArray();
+
+    assertEquals(9007199254740993L, decoded.get(0).getAsLong());
+    assertEquals(Long.MIN_VALUE, decoded.get(1).getAsLong());
+    assertEquals(document.toString(), decoded.toString());
+  }
+
+  public void testSmallerThanText() {
+
+    StringBuilder json = new StringBuilder("[");
+    for (int i = 0; i < 1000; i++) {
+      json.append(i == 0 ? "" : ",").append("{\"t\":").append(1300000000 + i * 60)
+          .append(",\"v\":").append(i * 0.25).append("}");
+    }
+    String text = json.append("]").toString();
+    byte[] bytes = JsonCbor.encode(new JsonParser().parse(text));
+
+    assertTrue(bytes.length * 2 < text.length());
+  }
+
+  public void testMalformed() {
+
+    try {
+      JsonCbor.decodeBase64("gwE=");
+      fail();
+    } catch (JsonParseException expected) {
+    }
+    try {
+      JsonCbor.decodeBase64("g*E=");
+      fail();
+    } catch (JsonParseException expected) {
+    }
+  }
+
+  private static void assertEncoding(JsonElement element, String hex) {
+    byte[] bytes = JsonCbor.encode(element);
+    StringBuilder actual = new StringBuilder();
+    for (byte b : bytes) {
+      actual.append(Integer.toHexString((b & 0xff) | 0x100).substring(1));
+    }
+    assertEquals(hex, actual.toString());
+    assertEquals(element, JsonCbor.decode(bytes));
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2011 bedatadriven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.google.gson.client;
+
+import com.google.gson.*;
+import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.junit.client.GWTTestCase;
+
+public class GwtTestJsonCborArrays extends GWTTestCase {
+
+  @Override
+  public String getModuleName() {
+    return "com.google.gson.GsonTest";
+  }
+
+  public void testRoundTrip() {
+    if (!JsonCborArrays.isSupported()) {
+      return;
+    }
+
+    JsonElement document = new JsonParser().parse("{ a: [1, -4.1, 'x'], b: null, c: 1000000 }");
+    JavaScriptObject array = JsonCborArrays.encode(document);
+
+    assertEquals(JsonCbor.encode(document).length, length(array));
+    assertEquals(document, JsonCborArrays.decode(array));
+    assertEquals(document, JsonCborArrays.decode(buffer(array)));
+  }
+
+  public void testDecodesView() {
+    if (!JsonCborArrays.isSupported()) {
+      return;
+    }
+
+    // [1] preceded and followed by bytes that are not part of the view
+    JsonElement decoded = JsonCborArrays.decode(view(0xff, 0x81, 0x01, 0xff));
+
+    assertEquals(new JsonParser().parse("[1]"), decoded);
+  }
+
+  public void testMalformed() {
+    if (!JsonCborArrays.isSupported()) {
+      return;
+    }
+
+    try {
+      JsonCborArrays.decode(view(0xff, 0x83, 0x01, 0xff));
+      fail();
+    } catch (JsonParseException expected) {
+    }
+  }
+
+  private static native int length(JavaScriptObject array) /*-{
+    return array.length;
+  }-*/;
+
+  private static native JavaScriptObject buffer(JavaScriptObject array) /*-{
+    return array.buffer;
+  }-*/;
+
+  /**
+   * Returns a view of the middle two of four bytes.
+   */
+  private static native JavaScriptObject view(int a, int b, int c, int d) /*-{
+    return new $wnd.Uint8Array(new $wnd.Uint8Array([a, b, c, d]).buffer, 1, 2);
+  }-*/;
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2011 bedatadriven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.google.gson.client;
+
+import com.google.gson.*;
+import com.google.gwt.junit.client.GWTTestCase;
+
+public class GwtTestJsonDiff extends GWTTestCase {
+
+  @Override
+  public String getModuleName() {
+    return "com.google.gson.GsonTest";
+  }
+
+  private static JsonElement parse(String json) {
+    return new JsonParser().parse(json);
+  }
+
+  private static void assertRoundTrip(String source, String target, String idMember) {
+    JsonElement a = parse(source);
+    JsonElement b = parse(target);
+    JsonArray patch = JsonDiff.diff(a, b, idMember);
+    assertEquals(b, JsonDiff.apply(patch, a));
+  }
+
+  public void testObjects() {
+
+    JsonArray patch = JsonDiff.diff(parse("{ a: 1, b: { c: 2, d: 3 }, 'x/y': 4 }"),
+        parse("{ a: 1, b: { c: 5 }, e: [], 'x/y': 4 }"));
+    assertEquals("[{\"op\":\"remove\", \"path\":\"/b/d\"},"
+        + "{\"op\":\"replace\", \"path\":\"/b/c\", \"value\":5},"
+        + "{\"op\":\"add\", \"path\":\"/e\", \"value\":[]}]", patch.toString());
+
+    assertRoundTrip("{ a: 1, b: { c: 2, d: 3 }, 'x/y': 4 }", "{ b: { c: 5 }, 'x/y': 'z' }", null);
+  }
+
+  public void testEqualDocuments() {
+
+    assertEquals(0, JsonDiff.diff(parse("{ a: [1, { b: 2 }] }"), parse("{ a: [1, { b: 2 }] }")).size());
+  }
+
+  public void testArraysByPosition() {
+
+    JsonArray patch = JsonDiff.diff(parse("[1, 2, 3, 4]"), parse("[1, 2, 9, 3, 4]"));
+    assertEquals("[{\"op\":\"add\", \"path\":\"/2\", \"value\":9}]", patch.toString());
+
+    assertRoundTrip("[1, 2, 3, 4]", "[1, 4]", null);
+    assertRoundTrip("[1, 2]", "[3, 4, 5, 6]", null);
+    assertRoundTrip("[[1], { a: 2 }]", "[[1, 2], { a: 3 }, null]", null);
+  }
+
+  public void testArraysById() {
+
+    String source = "[{ id: 1, v: 'a' }, { id: 2, v: 'b' }, { id: 3, v: 'c' }, { id: 4, v: 'd' }]";
+    String target = "[{ id: 4, v: 'd' }, { id: 2, v: 'B' }, { id: 5, v: 'e' }, { id: 1, v: 'a' }]";
+
+    JsonArray patch = JsonDiff.diff(parse(source), parse(target), "id");
+    assertEquals("[{\"op\":\"remove\", \"path\":\"/2\"},"
+        + "{\"op\":\"move\", \"path\":\"/0\", \"from\":\"/2\"},"
+        + "{\"op\":\"move\", \"path\":\"/1\", \"from\":\"/2\"},"
+        + "{\"op\":\"replace\", \"path\":\"/1/v\", \"value\":\"B\"},"
+        + "{\"op\":\"add\", \"path\":\"/2\", \"value\":{\"id\":5, \"v\":\"e\"}}]",
+        patch.toString());
+
+    assertRoundTrip(source, target, "id");
+    assertRoundTrip(source, "[{ id: 1 }, { id: 1 }]", "id");
+    assertRoundTrip(source, "[1, 2]", "id");
+  }
+
+  public void testLongArraysById() {
+
+    StringBuilder source = new StringBuilder();
+    StringBuilder rotated = new StringBuilder("[");
+    StringBuilder reversed = new StringBuilder("[");
+    for (int i = 0; i < 200; i++) {
+      source.append(i == 0 ? "[" : ", ").append("{ id: ").append(i).append(" }");
+      rotated.append("{ id: ").append((i + 1) % 200).append(" }").append(i < 199 ? ", " : "]");
+      reversed.append("{ id: ").append(199 - i).append(" }").append(i < 199 ? ", " : "]");
+    }
+    source.append("]");
+
+    JsonArray patch = JsonDiff.diff(parse(source.toString()), parse(rotated.toString()), "id");
+    assertEquals("[{\"op\":\"move\", \"path\":\"/199\", \"from\":\"/0\"}]", patch.toString());
+
+    patch = JsonDiff.diff(parse(source.toString()), parse(reversed.toString()), "id");
+    assertEquals(199, patch.size());
+    assertRoundTrip(source.toString(), reversed.toString(), "id");
+  }
+
+  public void testRootReplacement() {
+
+    JsonArray patch = JsonDiff.diff(parse("[1]"), parse("{ a: 1 }"));
+    assertEquals("[{\"op\":\"replace\", \"path\":\"\", \"value\":{\"a\":1}}]", patch.toString());
+    assertEquals(parse("{ a: 1 }"), JsonDiff.apply(patch, parse("[1]")));
+  }
+
+  public void testApplyInPlace() {
+
+    JsonObject target = parse("{ a: { b: [1, 2, 3] }, c: 'x' }").getAsJsonObject();
+    JsonArray b = target.getAsJsonObject("a").getAsJsonArray("b");
+    JsonArray patch = parse("["
+        + "{ op: 'test', path: '/c', value: 'x' },"
+        + "{ op: 'add', path: '/a/b/-', value: 4 },"
+        + "{ op: 'remove', path: '/a/b/0' },"
+        + "{ op: 'copy', from: '/a/b', path: '/d' },"
+        + "{ op: 'move', from: '/c', path: '/a/c' },"
+        + "{ op: 'replace', path: '/d/0', value: 'two' }"
+        + "]").getAsJsonArray();
+
+    assertSame(target, JsonDiff.apply(patch, target));
+    assertEquals("{\"a\":{\"b\":[2,3,4], \"c\":\"x\"}, \"d\":[\"two\",3,4]}", target.toString());
+    assertSame(b, target.getAsJsonObject("a").getAsJsonArray("b"));
+    assertEquals(2, b.get(0).getAsInt());
+  }
+
+  public void testApplyFailures() {
+
+    String[] patches = {
+        "[{ op: 'remove', path: '/missing' }]",
+        "[{ op: 'replace', path: '/a/5', value: 1 }]",
+        "[{ op: 'add', path: '/a/7', value: 1 }]",
+        "[{ op: 'test', path: '/a/0', value: 2 }]",
+        "[{ op: 'move', from: '/a', path: '/a/0' }]",
+        "[{ op: 'jump', path: '/a' }]",
+        "[{ path: '/a' }]",
+        "[{ op: 'add', path: 'a', value: 1 }]"
+    };
+    for (String patch : patches) {
+      try {
+        JsonDiff.apply(parse(patch).getAsJsonArray(), parse("{ a: [1] }"));
+        fail(patch);
+      } catch (IllegalArgumentException expected) {
+      }
+    }
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2011 bedatadriven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.google.gson.client;
+
+import com.google.gson.*;
+import com.google.gwt.junit.client.GWTTestCase;
+
+import java.util.Map;
+
+public class GwtTestJsonMetrics extends GWTTestCase {
+
+  @Override
+  public String getModuleName() {
+    return "com.google.gson.GsonTest";
+  }
+
+  @Override
+  protected void gwtSetUp() {
+    JsonMetrics.reset();
+  }
+
+  /**
+   * Adds {@code listener}. The JVM loads this class with Gson, which has no JsonMetrics, so the
+   * listener is passed as an Object and cast here: verifying a call that passes an
+   * implementation of JsonMetrics.Listener would load that interface.
+   */
+  private static void addListener(Object listener) {
+    JsonMetrics.addListener((JsonMetrics.Listener) listener);
+  }
+
+  public void testParse() {
+
+    final int[] reported = new int[1];
+    // an Object, see addListener
+    Object listener = new JsonMetrics.Listener() {
+      @Override
+      public void onParse(int chars, double millis) {
+        reported[0] += chars;
+        assertTrue(millis >= 0);
+      }
+    };
+    addListener(listener);
+    try {
+      new JsonParser().parse("[1, 2]");
+      new JsonParser().parse("{ a: 1, b: 2 }", new FieldSelector("a"));
+    } finally {
+      JsonMetrics.removeListener((JsonMetrics.Listener) listener);
+    }
+    new JsonParser().parse("3");
+
+    assertTrue(JsonMetrics.isEnabled());
+    assertEquals(3, JsonMetrics.get().getParseCount());
+    assertEquals(21d, JsonMetrics.get().getParsedChars());
+    assertEquals(20, reported[0]);
+  }
+
+  public void testFailedParseIsNotCounted() {
+
+    try {
+      new JsonParser().parse("[1,");
+      fail();
+    } catch (JsonParseException expected) {
+    }
+    assertEquals(0, JsonMetrics.get().getParseCount());
+  }
+
+  public void testWrappers() {
+
+    JsonObject object = new JsonParser().parse("{ a: [1, null], b: 'x' }").getAsJsonObject();
+    assertEquals(1, JsonMetrics.get().getWrapperCount());
+
+    object.get("a").getAsJsonArray().get(0);
+    object.get("a").getAsJsonArray().get(1);
+    object.get("a");
+    assertEquals(3, JsonMetrics.get().getWrapperCount());
+  }
+
+  public void testRepeatedReadsAllocateNoWrappers() {
+
+    JsonArray rows = new JsonParser().parse("[{ id: 1, label: 'a' }, { id: 2, label: 'b' }]")
+        .getAsJsonArray();
+    for (int pass = 0; pass < 4; pass++) {
+      for (JsonElement row : rows) {
+        row.getAsJsonObject().get("id");
+        row.getAsJsonObject().get("label");
+      }
+      // the array, then two rows with two members each, all allocated by the first pass
+      assertEquals(7, JsonMetrics.get().getWrapperCount());
+    }
+  }
+
+  public void testEntrySetAndToString() {
+
+    JsonObject object = new JsonParser().parse("{ a: 1, b: [2] }").getAsJsonObject();
+    int members = 0;
+    for (Map.Entry<String, JsonElement> member : object.entrySet()) {
+      members++;
+    }
+    object.toString();
+    object.get("b").toString();
+
+    assertEquals(2, members);
+    assertEquals(1, JsonMetrics.get().getEntrySetCount());
+    assertEquals(2, JsonMetrics.get().getToStringCount());
+  }
+
+  public void testReset() {
+
+    new JsonParser().parse("[]").toString();
+    JsonMetrics.reset();
+
+    assertEquals(0, JsonMetrics.get().getParseCount());
+    assertEquals(0d, JsonMetrics.get().getParseMillis());
+    assertEquals(0, JsonMetrics.get().getToStringCount());
+  }
+}
@@ -0,0 +1,384 @@
+/*
+ * Copyright (C) 2011 bedatadriven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.google.gson.client;
+
+import com.google.gson.*;
+import com.google.gwt.junit.client.GWTTestCase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class GwtTestJsonObject extends GWTTestCase {
+
+  @Override
+  public String getModuleName() {
+    return "com.google.gson.GsonTest";
+  }
+
+  public void testViewsAreLive() {
+
+    JsonObject object = new JsonParser().parse("{ a: 1, b: 'two' }").getAsJsonObject();
+    Set<Map.Entry<String, JsonElement>> entries = object.entrySet();
+    Set<String> keys = object.keySet();
+
+    assertSame(entries, object.entrySet());
+    assertEquals(2, object.size());
+    assertEquals(2, entries.size());
+    assertTrue(keys.contains("b"));
+    assertFalse(keys.contains("toString"));
+
+    object.addProperty("c", true);
+    assertEquals(3, entries.size());
+    assertTrue(keys.contains("c"));
+
+    object.remove("a");
+    assertEquals(2, keys.size());
+    assertFalse(keys.contains("a"));
+  }
+
+  public void testRemoveThroughViews() {
+
+    JsonObject object = new JsonParser().parse("{ a: 1, b: 2, c: 3 }").getAsJsonObject();
+
+    for (Iterator<Map.Entry<String, JsonElement>> it = object.entrySet().iterator(); it.hasNext(); ) {
+      if (it.next().getValue().getAsInt() == 2) {
+        it.remove();
+      }
+    }
+    assertFalse(object.has("b"));
+
+    assertTrue(object.keySet().remove("a"));
+    assertFalse(object.keySet().remove("a"));
+    assertEquals(1, object.size());
+
+    object.keySet().clear();
+    assertTrue(object.isEmpty());
+    assertTrue(object.entrySet().isEmpty());
+  }
+
+  public void testEntriesCanBeKept() {
+
+    JsonObject object = new JsonParser().parse("{ a: 1, b: 2 }").getAsJsonObject();
+
+    List<Map.Entry<String, JsonElement>> kept = new ArrayList<Map.Entry<String, JsonElement>>(object.entrySet());
+    assertEquals(2, kept.size());
+    assertEquals("a", kept.get(0).getKey());
+    assertEquals("b", kept.get(1).getKey());
+    assertTrue(object.entrySet().contains(kept.get(1)));
+
+    kept.get(0).setValue(new JsonPrimitive(10));
+    assertEquals(10, object.get("a").getAsInt());
+  }
+
+  public void testEmptyObject() {
+
+    JsonObject object = new JsonObject();
+    assertTrue(object.isEmpty());
+    assertEquals(0, object.size());
+    assertFalse(object.keySet().iterator().hasNext());
+  }
+
+  public void testRowsWithDifferentShapes() {
+
+    JsonArray rows = new JsonParser().parse("[{a: 1, b: 2}, {a: 3, b: 4}, {b: 5, a: 6}, {a: 7}, {a: 8, b: 9}]")
+        .getAsJsonArray();
+
+    assertEquals("[a, b]", keysOf(rows.get(0)));
+    assertEquals("[a, b]", keysOf(rows.get(1)));
+    assertEquals("[b, a]", keysOf(rows.get(2)));
+    assertEquals("[a]", keysOf(rows.get(3)));
+    assertEquals("[a, b]", keysOf(rows.get(4)));
+    assertEquals(1, rows.get(3).getAsJsonObject().size());
+  }
+
+  public void testRowMutationAfterListing() {
+
+    JsonArray rows = new JsonParser().parse("[{a: 1, b: 2}, {a: 3, b: 4}]").getAsJsonArray();
+    JsonObject first = rows.get(0).getAsJsonObject();
+    JsonObject second = rows.get(1).getAsJsonObject();
+    assertEquals("[a, b]", keysOf(first));
+    assertEquals("[a, b]", keysOf(second));
+
+    second.addProperty("c", 5);
+    second.addProperty("a", 6);
+    assertEquals("[a, b, c]", keysOf(second));
+    assertEquals(3, second.size());
+    assertEquals("[a, b]", keysOf(first));
+
+    first.remove("a");
+    assertEquals("[b]", keysOf(first));
+    assertEquals(1, first.size());
+    assertEquals("[a, b, c]", keysOf(second));
+  }
+
+  public void testRemoveDeletesKey() {
+
+    JsonObject object = new JsonParser().parse("{ a: 1, b: 2 }").getAsJsonObject();
+    object.remove("a");
+    assertFalse(object.has("a"));
+    assertEquals("{\"b\":2}", object.toString());
+  }
+
+  public void testPutAll() {
+
+    JsonObject target = new JsonParser().parse("{ a: 1, b: 2 }").getAsJsonObject();
+    JsonObject source = new JsonParser().parse("{ b: 3, c: { d: 4 } }").getAsJsonObject();
+    assertEquals(2, target.get("b").getAsInt());
+    JsonElement c = source.get("c");
+
+    target.putAll(source);
+    assertEquals("[a, b, c]", keysOf(target));
+    assertEquals(3, target.get("b").getAsInt());
+    assertEquals(c, target.get("c"));
+    assertEquals(4, target.getAsJsonObject("c").get("d").getAsInt());
+
+    // the values are shared copy-on-write, so each object keeps its own changes
+    c.getAsJsonObject().addProperty("d", 5);
+    target.getAsJsonObject("c").addProperty("e", 6);
+    assertEquals("{\"b\":3, \"c\":{\"d\":5}}", source.toString());
+    assertEquals("{\"a\":1, \"b\":3, \"c\":{\"d\":4, \"e\":6}}", target.toString());
+  }
+
+  public void testRemoveAllAndRetainKeys() {
+
+    JsonObject object = new JsonParser().parse("{ a: 1, b: 2, c: 3, d: 4 }").getAsJsonObject();
+    assertEquals("[a, b, c, d]", keysOf(object));
+
+    assertTrue(object.removeAll(Arrays.asList("a", "x")));
+    assertFalse(object.removeAll(Arrays.asList("x")));
+    assertEquals("[b, c, d]", keysOf(object));
+    assertNull(object.get("a"));
+
+    assertTrue(object.retainKeys(new HashSet<String>(Arrays.asList("c", "d", "x"))));
+    assertFalse(object.retainKeys(Arrays.asList("c", "d")));
+    assertEquals("[c, d]", keysOf(object));
+    assertEquals(2, object.size());
+    assertEquals("{\"c\":3, \"d\":4}", object.toString());
+
+    assertTrue(object.removeAll(Arrays.asList("c", null, "c")));
+    assertFalse(object.retainKeys(Arrays.asList("d", null)));
+    assertEquals("{\"d\":4}", object.toString());
+  }
+
+  public void testRemoveAbsentMembers() {
+
+    JsonObject object = new JsonParser().parse("{ a: 1 }").getAsJsonObject().freeze();
+    assertNull(object.remove("x"));
+    assertFalse(object.removeAll(Arrays.asList("x", "y")));
+    assertFalse(object.retainKeys(Arrays.asList("a")));
+    assertEquals("{\"a\":1}", object.toString());
+  }
+
+  public void testStructuralEquality() {
+
+    JsonParser parser = new JsonParser();
+    JsonObject a = parser.parse("{ x: 1, y: [1, 'two', null], z: { w: true } }").getAsJsonObject();
+    JsonObject b = parser.parse("{ z: { w: true }, y: [1, 'two', null], x: 1 }").getAsJsonObject();
+    JsonObject c = parser.parse("{ x: 1, y: [1, 'two', null], z: { w: false } }").getAsJsonObject();
+
+    assertEquals(a, b);
+    assertEquals(a.hashCode(), b.hashCode());
+    assertFalse(a.equals(c));
+    assertFalse(a.equals(parser.parse("{ x: 1, y: [1, 'two', null] }")));
+    assertFalse(a.equals(parser.parse("[1]")));
+
+    Set<JsonElement> seen = new HashSet<JsonElement>();
+    assertTrue(seen.add(a));
+    assertFalse(seen.add(b));
+    assertTrue(seen.add(c));
+  }
+
+  public void testHashCodeFollowsMutation() {
+
+    JsonObject a = new JsonParser().parse("{ x: { y: 1 } }").getAsJsonObject();
+    JsonObject b = new JsonParser().parse("{ x: { y: 2 } }").getAsJsonObject();
+    int before = a.hashCode();
+    assertFalse(a.equals(b));
+
+    a.getAsJsonObject("x").addProperty("y", 2);
+    assertEquals(a, b);
+    assertEquals(b.hashCode(), a.hashCode());
+    assertTrue(before != a.hashCode());
+  }
+
+  public void testHashCodeFollowsDeepMutation() {
+
+    JsonParser parser = new JsonParser();
+    JsonObject document = parser.parse("{ rows: [{ v: 1 }, { v: 2 }] }").getAsJsonObject();
+    JsonArray rows = document.getAsJsonArray("rows");
+    int documentHash = document.hashCode();
+    int rowsHash = rows.hashCode();
+
+    rows.get(1).getAsJsonObject().addProperty("v", 3);
+    assertEquals(parser.parse("{ rows: [{ v: 1 }, { v: 3 }] }").hashCode(), document.hashCode());
+    assertEquals(parser.parse("[{ v: 1 }, { v: 3 }]").hashCode(), rows.hashCode());
+    assertTrue(documentHash != document.hashCode());
+    assertTrue(rowsHash != rows.hashCode());
+  }
+
+  public void testDeepCopy() {
+
+    JsonObject original = new JsonParser().parse("{ a: { b: [1, 2] }, c: 'x' }").getAsJsonObject();
+    JsonObject copy = original.deepCopy();
+    assertEquals(original, copy);
+
+    copy.getAsJsonObject("a").getAsJsonArray("b").add(new JsonPrimitive(3));
+    copy.addProperty("c", "y");
+
+    assertEquals("{\"a\":{\"b\":[1,2]}, \"c\":\"x\"}", original.toString());
+    assertEquals("{\"a\":{\"b\":[1,2,3]}, \"c\":\"y\"}", copy.toString());
+  }
+
+  public void testSnapshotCopiesOnWrite() {
+
+    JsonObject document = new JsonParser().parse("{ a: { b: 1 }, c: { d: 2 } }").getAsJsonObject();
+    JsonObject a = document.getAsJsonObject("a");
+    JsonObject snapshot = document.snapshot();
+    assertEquals(document, snapshot);
+
+    // changes through wrappers handed out before the snapshot
+    a.addProperty("b", 10);
+    assertEquals(1, snapshot.getAsJsonObject("a").get("b").getAsInt());
+    assertEquals(10, document.getAsJsonObject("a").get("b").getAsInt());
+
+    // changes through the snapshot
+    snapshot.getAsJsonObject("c").remove("d");
+    assertEquals(2, document.getAsJsonObject("c").get("d").getAsInt());
+    assertFalse(snapshot.getAsJsonObject("c").has("d"));
+
+    // members read after the original was copied still share their values
+    document.getAsJsonObject("c").addProperty("e", 3);
+    assertFalse(snapshot.getAsJsonObject("c").has("e"));
+
+    assertEquals("{\"a\":{\"b\":10}, \"c\":{\"d\":2, \"e\":3}}", document.toString());
+    assertEquals("{\"a\":{\"b\":1}, \"c\":{}}", snapshot.toString());
+  }
+
+  public void testSnapshotOfSnapshot() {
+
+    JsonObject v1 = new JsonParser().parse("{ list: [1] }").getAsJsonObject();
+    JsonObject v2 = v1.snapshot();
+    v2.getAsJsonArray("list").add(new JsonPrimitive(2));
+    JsonObject v3 = v2.snapshot();
+    v3.getAsJsonArray("list").add(new JsonPrimitive(3));
+
+    assertEquals("[1]", v1.get("list").toString());
+    assertEquals("[1,2]", v2.get("list").toString());
+    assertEquals("[1,2,3]", v3.get("list").toString());
+  }
+
+  public void testFrozen() {
+
+    JsonObject document = new JsonParser().parse("{ a: { b: 1 }, c: [2] }").getAsJsonObject();
+    JsonObject a = document.getAsJsonObject("a");
+    assertSame(document, document.freeze());
+
+    assertTrue(document.isFrozen());
+    assertTrue(a.isFrozen());
+    assertTrue(document.getAsJsonArray("c").isFrozen());
+    try {
+      a.addProperty("b", 10);
+      fail();
+    } catch (UnsupportedOperationException expected) {
+    }
+    try {
+      document.getAsJsonArray("c").add(new JsonPrimitive(3));
+      fail();
+    } catch (UnsupportedOperationException expected) {
+    }
+    try {
+      document.remove("a");
+      fail();
+    } catch (UnsupportedOperationException expected) {
+    }
+    assertEquals("{\"a\":{\"b\":1}, \"c\":[2]}", document.toString());
+  }
+
+  public void testWith() {
+
+    JsonObject v1 = new JsonParser().parse("{ a: { b: 1 }, c: [2] }").getAsJsonObject().freeze();
+    JsonObject added = new JsonObject();
+    added.addProperty("e", 5);
+    JsonObject v2 = v1.with("d", added);
+    JsonObject v3 = v2.with("a", v2.getAsJsonObject("a").with("b", new JsonPrimitive(10)))
+        .without("c");
+    added.addProperty("e", 50);
+
+    assertTrue(v2.isFrozen());
+    assertTrue(v3.getAsJsonObject("d").isFrozen());
+    assertEquals("{\"a\":{\"b\":1}, \"c\":[2]}", v1.toString());
+    assertEquals("{\"a\":{\"b\":1}, \"c\":[2], \"d\":{\"e\":5}}", v2.toString());
+    assertEquals("{\"a\":{\"b\":10}, \"d\":{\"e\":5}}", v3.toString());
+  }
+
+  public void testSnapshotOfFrozen() {
+
+    JsonObject frozen = new JsonParser().parse("{ a: { b: 1 } }").getAsJsonObject().freeze();
+    JsonObject copy = frozen.snapshot();
+
+    assertFalse(copy.isFrozen());
+    assertFalse(copy.getAsJsonObject("a").isFrozen());
+    copy.getAsJsonObject("a").addProperty("b", 10);
+
+    assertEquals("{\"a\":{\"b\":1}}", frozen.toString());
+    assertEquals("{\"a\":{\"b\":10}}", copy.toString());
+    assertSame(frozen.get("a"), new JsonObject().with("a", frozen.get("a")).get("a"));
+  }
+
+  public void testUniformRowsChangedAfterCheck() {
+
+    JsonArray rows = new JsonParser().parse("[{a: 1, b: 2}, {a: 3, b: 4}, {a: 5, b: 6}]")
+        .getAsJsonArray();
+    JsonObject second = rows.get(1).getAsJsonObject();
+    assertEquals("[a, b]", keysOf(rows.get(0)));
+
+    second.addProperty("c", 7);
+    assertEquals("[a, b, c]", keysOf(second));
+
+    rows.set(2, new JsonParser().parse("{b: 8}"));
+    rows.add(new JsonParser().parse("{d: 9}"));
+    assertEquals("[b]", keysOf(rows.get(2)));
+    assertEquals("[d]", keysOf(rows.get(3)));
+    assertEquals("[a, b]", keysOf(rows.get(0)));
+  }
+
+  public void testRowChangedBeforeCheck() {
+
+    JsonArray rows = new JsonParser().parse("[{a: 1, b: 2}, {a: 3, b: 4}, {a: 5, b: 6}]")
+        .getAsJsonArray();
+    rows.get(1).getAsJsonObject().remove("b");
+
+    assertEquals("[a, b]", keysOf(rows.get(0)));
+    assertEquals("[a]", keysOf(rows.get(1)));
+    assertEquals("[a, b]", keysOf(rows.get(2)));
+  }
+
+  private static String keysOf(JsonElement element) {
+    List<String> keys = new ArrayList<String>();
+    for (Map.Entry<String, JsonElement> entry : element.getAsJsonObject().entrySet()) {
+      keys.add(entry.getKey());
+    }
+    assertEquals(keys.toString(), new ArrayList<String>(element.getAsJsonObject().keySet()).toString());
+    return keys.toString();
+  }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2011 bedatadriven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.google.gson.client;
+
+import com.google.gson.*;
+import com.google.gwt.junit.client.GWTTestCase;
+
+public class GwtTestJsonParseCache extends GWTTestCase {
+
+  @Override
+  public String getModuleName() {
+    return "com.google.gson.GsonTest";
+  }
+
+  public void testHitsAndMisses() {
+
+    JsonParseCache cache = new JsonParseCache(1000);
+    JsonElement first = cache.parse("{ a: [1, 2] }");
+    JsonElement second = cache.parse("{ a: [1, 2] }");
+    cache.parse("[3]");
+
+    assertEquals(first, second);
+    assertNotSame(first, second);
+    assertEquals(1, cache.getHitCount());
+    assertEquals(2, cache.getMissCount());
+    assertEquals(2, cache.size());
+    assertEquals("{ a: [1, 2] }".length() + "[3]".length(), cache.getCachedChars());
+  }
+
+  public void testCallersCannotChangeCachedTrees() {
+
+    JsonParseCache cache = new JsonParseCache(1000);
+    String json = "{ a: { b: 1 } }";
+    cache.parse(json).getAsJsonObject().getAsJsonObject("a").addProperty("b", 2);
+    cache.parse(json).getAsJsonObject().remove("a");
+
+    assertEquals("{\"a\":{\"b\":1}}", cache.parse(json).toString());
+    assertEquals(2, cache.getHitCount());
+  }
+
+  public void testCollidingTextsAreNotConfused() {
+
+    // "Aa" and "BB" have the same length and hash code
+    JsonParseCache cache = new JsonParseCache(1000);
+    assertEquals("Aa", cache.parse("[\"Aa\"]").getAsJsonArray().get(0).getAsString());
+    assertEquals("BB", cache.parse("[\"BB\"]").getAsJsonArray().get(0).getAsString());
+    assertEquals("BB", cache.parse("[\"BB\"]").getAsJsonArray().get(0).getAsString());
+
+    assertEquals(1, cache.getHitCount());
+    assertEquals(2, cache.getMissCount());
+    assertEquals(1, cache.size());
+    assertEquals("[\"BB\"]".length(), cache.getCachedChars());
+  }
+
+  public void testEvictsLeastRecentlyUsed() {
+
+    JsonParseCache cache = new JsonParseCache(12);
+    cache.parse("[1,2,3]");
+    cache.parse("[4]");
+    cache.parse("[1,2,3]");
+    cache.parse("[5]");
+
+    assertEquals(2, cache.size());
+    assertEquals(10, cache.getCachedChars());
+    cache.parse("[1,2,3]");
+    assertEquals(2, cache.getHitCount());
+    cache.parse("[4]");
+    assertEquals(2, cache.getHitCount());
+  }
+
+  public void testLargeTextsAreNotCached() {
+
+    JsonParseCache cache = new JsonParseCache(12);
+    assertEquals(9, cache.parse("[1,2,3,4,5,6,7,8,9]").getAsJsonArray().size());
+    cache.parse("[1,2,3,4,5,6,7,8,9]");
+
+    assertEquals(0, cache.size());
+    assertEquals(0, cache.getHitCount());
+    assertEquals(2, cache.getMissCount());
+  }
+
+  public void testErrorsAreNotCached() {
+
+    JsonParseCache cache = new JsonParseCache(1000);
+    for (int i = 0; i < 2; i++) {
+      try {
+        cache.parse("{ a: ");
+        fail();
+      } catch (JsonParseException expected) {
+      }
+    }
+    assertEquals(0, cache.size());
+    assertEquals(2, cache.getMissCount());
+  }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2011 bedatadriven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.gson.client;
+
+import com.google.gson.*;
+import com.google.gwt.junit.client.GWTTestCase;
+import com.google.gwt.user.client.Timer;
+import com.google.gwt.user.client.rpc.AsyncCallback;
+
+public class GwtTestJsonParseWorker extends GWTTestCase {
+
+  @Override
+  public String getModuleName() {
+    return "com.google.gson.GsonTest";
+  }
+
+  private static native boolean hasNativeJson() /*-{
+    return typeof JSON == "object" && typeof JSON.parse == "function";
+  }-*/;
+
+  public void testParseInWorker() {
+
+    new JsonParser().parseInWorker("{ a: [1, 'two'], b: null }", new AsyncCallback<JsonElement>() {
+      public void onSuccess(JsonElement result) {
+        JsonObject object = result.getAsJsonObject();
+        assertEquals(1, object.getAsJsonArray("a").get(0).getAsInt());
+        assertEquals("two", object.getAsJsonArray("a").get(1).getAsString());
+        assertTrue(object.get("b").isJsonNull());
+        finishTest();
+      }
+
+      public void onFailure(Throwable caught) {
+        fail(caught.toString());
+      }
+    });
+    delayTestFinish(5000);
+  }
+
+  public void testParseInWorkerMalformed() {
+
+    new JsonParser().parseInWorker("{ name: 'Alex', tags: [1, 2 }", new AsyncCallback<JsonElement>() {
+      public void onSuccess(JsonElement result) {
+        fail("expected a JsonParseException");
+      }
+
+      public void onFailure(Throwable caught) {
+        assertTrue(caught instanceof JsonParseException);
+        finishTest();
+      }
+    });
+    delayTestFinish(5000);
+  }
+
+  public void testParseInWorkerIsAsynchronous() {
+
+    final boolean[] returned = { false };
+    new JsonParser().parseInWorker("[1]", new AsyncCallback<JsonElement>() {
+      public void onSuccess(JsonElement result) {
+        assertTrue(returned[0]);
+        finishTest();
+      }
+
+      public void onFailure(Throwable caught) {
+        fail(caught.toString());
+      }
+    });
+    returned[0] = true;
+    delayTestFinish(5000);
+  }
+
+  public void testInPageProtocol() {
+
+    final JsonParseWorker worker = JsonParseWorker.createInPage();
+    worker.parse("[1, {\"a\": \"b\"}, null]", new AsyncCallback<JsonElement>() {
+      public void onSuccess(JsonElement result) {
+        assertTrue(hasNativeJson());
+        assertEquals("[1,{\"a\":\"b\"},null]", result.toString());
+        assertEquals(0, worker.getPendingCount());
+        finishTest();
+      }
+
+      public void onFailure(Throwable caught) {
+        // the script relies on JSON.parse, which the oldest browsers lack
+        assertFalse(hasNativeJson());
+        assertTrue(caught instanceof JsonParseException);
+        finishTest();
+      }
+    });
+    assertEquals(1, worker.getPendingCount());
+    delayTestFinish(5000);
+  }
+
+  public void testInPageRejectsLenientJson() {
+
+    JsonParseWorker.createInPage().parse("{ a: 'b' }", new AsyncCallback<JsonElement>() {
+      public void onSuccess(JsonElement result) {
+        fail("JSON.parse accepted lenient JSON");
+      }
+
+      public void onFailure(Throwable caught) {
+        assertTrue(caught instanceof JsonParseException);
+        finishTest();
+      }
+    });
+    delayTestFinish(5000);
+  }
+
+  public void testTerminate() {
+
+    JsonParseWorker worker = JsonParseWorker.createInPage();
+    worker.parse("[1]", new AsyncCallback<JsonElement>() {
+      public void onSuccess(JsonElement result) {
+        fail("terminated worker answered");
+      }
+
+      public void onFailure(Throwable caught) {
+        fail("terminated worker failed");
+      }
+    });
+    worker.terminate();
+    assertTrue(worker.isTerminated());
+    assertEquals(0, worker.getPendingCount());
+    try {
+      worker.parse("[2]", null);
+      fail();
+    } catch (IllegalStateException expected) {
+    }
+
+    new Timer() {
+      @Override
+      public void run() {
+        finishTest();
+      }
+    }.schedule(200);
+    delayTestFinish(5000);
+  }
+}
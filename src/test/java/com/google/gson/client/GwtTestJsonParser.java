@@ -18,6 +18,10 @@ package com.google.gson.client;
 
 import com.google.gson.*;
 import com.google.gwt.junit.client.GWTTestCase;
+import com.google.gwt.user.client.Timer;
+import com.google.gwt.user.client.rpc.AsyncCallback;
+
+import java.util.Map;
 
 public class GwtTestJsonParser extends GWTTestCase {
 
@@ -121,4 +125,344 @@ public class GwtTestJsonParser extends GWTTestCase {
     assertEquals(6, i);
 
   }
+
+  public void testRepeatedAccessReturnsSameWrapper() {
+
+    JsonParser parser = new JsonParser();
+    JsonObject object = parser.parse("{ name: 'Alex', tags: ['a', {b: 1}], address: { city: 'Kabul' } }")
+        .getAsJsonObject();
+
+    assertSame(object.get("name"), object.get("name"));
+    assertSame(object.get("address"), object.getAsJsonObject("address"));
+    assertSame(object.getAsJsonArray("tags").get(1), object.getAsJsonArray("tags").get(1));
+    assertSame(object.getAsJsonArray("tags").get(0), object.getAsJsonArray("tags").iterator().next());
+
+    for (Map.Entry<String, JsonElement> entry : object.entrySet()) {
+      assertSame(entry.getKey(), object.get(entry.getKey()), entry.getValue());
+    }
+  }
+
+  public void testMutationReplacesCachedWrapper() {
+
+    JsonObject object = new JsonObject();
+    JsonPrimitive first = new JsonPrimitive("first");
+    object.add("value", first);
+    assertSame(first, object.get("value"));
+
+    object.addProperty("value", "second");
+    assertEquals("second", object.get("value").getAsString());
+
+    object.remove("value");
+    assertFalse(object.has("value"));
+    assertNull(object.get("value"));
+
+    JsonArray array = new JsonArray();
+    JsonObject element = new JsonObject();
+    array.add(new JsonPrimitive(1));
+    array.add(element);
+    assertSame(element, array.get(1));
+    element.addProperty("x", 42);
+    assertEquals(42, array.get(1).getAsJsonObject().get("x").getAsInt());
+  }
+
+  public void testStrictJson() {
+
+    JsonParser parser = new JsonParser();
+    JsonObject object = parser.parse("{\"name\":\"Alex\",\"tags\":[1,\"two\",null],\"nested\":{\"ok\":true}}")
+        .getAsJsonObject();
+
+    assertEquals("Alex", object.get("name").getAsString());
+    assertEquals(3, object.getAsJsonArray("tags").size());
+    assertTrue(object.getAsJsonArray("tags").get(2).isJsonNull());
+    assertTrue(object.getAsJsonObject("nested").get("ok").getAsBoolean());
+  }
+
+  public void testPrimitiveDocuments() {
+
+    JsonParser parser = new JsonParser();
+    assertEquals(42, parser.parse("42").getAsInt());
+    assertEquals("foo", parser.parse("\"foo\"").getAsString());
+    assertTrue(parser.parse("true").getAsBoolean());
+    assertTrue(parser.parse("null").isJsonNull());
+  }
+
+  public void testMalformedJson() {
+
+    try {
+      new JsonParser().parse("{ name: ");
+      fail("expected JsonParseException");
+    } catch (JsonParseException expected) {
+    }
+  }
+
+  public void testParsedDocumentToString() {
+
+    JsonElement elem = new JsonParser().parse("{\"a\":[1,2.5,\"x\"],\"b\":{\"c\":null,\"d\":false}}");
+
+    assertEquals("{\"a\":[1,2.5,\"x\"], \"b\":{\"c\":null, \"d\":false}}", elem.toString());
+    assertEquals("[1,2.5,\"x\"]", elem.getAsJsonObject().get("a").toString());
+    assertEquals("2.5", elem.getAsJsonObject().getAsJsonArray("a").get(1).toString());
+  }
+
+  public void testPrototypePropertiesAreNotMembers() {
+
+    JsonObject object = new JsonParser().parse("{ name: 'Alex' }").getAsJsonObject();
+
+    assertFalse(object.has("toString"));
+    assertNull(object.get("toString"));
+    assertNull(object.get("constructor"));
+    assertEquals(1, object.entrySet().size());
+  }
+
+  public void testBuiltTreeReadsBack() {
+
+    JsonArray tags = new JsonArray();
+    tags.add(new JsonPrimitive("a"));
+    tags.add(null);
+    tags.add(new JsonPrimitive(false));
+
+    JsonObject object = new JsonObject();
+    object.addProperty("n", 1.5);
+    object.add("tags", tags);
+
+    JsonObject copy = new JsonParser().parse(object.toString()).getAsJsonObject();
+    assertEquals(1.5, copy.get("n").getAsDouble());
+    assertEquals(3, copy.getAsJsonArray("tags").size());
+    assertEquals("a", copy.getAsJsonArray("tags").get(0).getAsString());
+    assertTrue(copy.getAsJsonArray("tags").get(1).isJsonNull());
+    assertFalse(copy.getAsJsonArray("tags").get(2).getAsBoolean());
+    assertEquals(object.get("n"), copy.get("n"));
+  }
+
+  public void testParseAsync() {
+
+    // small enough to parse quickly in HtmlUnit, large enough to take several 1 ms slices
+    StringBuilder json = new StringBuilder("{ rows: [");
+    for (int i = 0; i < 200; i++) {
+      json.append(i > 0 ? "," : "").append("{\"id\":").append(i).append(",\"name\":'row ").append(i)
+          .append("',\"ok\":").append(i % 2 == 0).append(",\"x\":null}");
+    }
+    json.append("], count: 200 }");
+
+    final double[] lastProgress = { 0 };
+    JsonParseRequest request = new JsonParser().parseAsync(json.toString(), 1, new AsyncCallback<JsonElement>() {
+      public void onSuccess(JsonElement result) {
+        JsonObject object = result.getAsJsonObject();
+        assertEquals(200, object.get("count").getAsInt());
+        assertEquals(200, object.getAsJsonArray("rows").size());
+        JsonObject row = object.getAsJsonArray("rows").get(199).getAsJsonObject();
+        assertEquals(199, row.get("id").getAsInt());
+        assertEquals("row 199", row.get("name").getAsString());
+        assertFalse(row.get("ok").getAsBoolean());
+        assertTrue(row.get("x").isJsonNull());
+        assertTrue(lastProgress[0] > 0);
+        finishTest();
+      }
+
+      public void onFailure(Throwable caught) {
+        fail(caught.toString());
+      }
+    });
+    // Cast from an Object: the JVM loads this class with Gson, which has no JsonParseRequest, and
+    // verifying a call that passes an implementation of ProgressListener would load that interface
+    Object listener = new JsonParseRequest.ProgressListener() {
+      public void onProgress(JsonParseRequest request) {
+        assertTrue(request.getProgress() >= lastProgress[0]);
+        assertTrue(request.getProgress() <= 1);
+        lastProgress[0] = request.getProgress();
+      }
+    };
+    request.setProgressListener((JsonParseRequest.ProgressListener) listener);
+    assertTrue(request.isPending());
+    delayTestFinish(20000);
+  }
+
+  public void testParseAsyncMalformed() {
+
+    new JsonParser().parseAsync("{ name: 'Alex', tags: [1, 2 }", new AsyncCallback<JsonElement>() {
+      public void onSuccess(JsonElement result) {
+        fail("expected a JsonParseException");
+      }
+
+      public void onFailure(Throwable caught) {
+        assertTrue(caught instanceof JsonParseException);
+        finishTest();
+      }
+    });
+    delayTestFinish(5000);
+  }
+
+  public void testParseAsyncMalformedNumber() {
+
+    final JsonParseRequest[] request = new JsonParseRequest[1];
+    request[0] = new JsonParser().parseAsync("[1, 012]", new AsyncCallback<JsonElement>() {
+      public void onSuccess(JsonElement result) {
+        fail("expected a JsonParseException");
+      }
+
+      public void onFailure(Throwable caught) {
+        assertTrue(caught instanceof JsonParseException);
+        assertTrue(caught.getCause() instanceof NumberFormatException);
+        assertFalse(request[0].isPending());
+        finishTest();
+      }
+    });
+    delayTestFinish(5000);
+  }
+
+  public void testParseAsyncCancel() {
+
+    JsonParseRequest request = new JsonParser().parseAsync("[1, 2, 3]", new AsyncCallback<JsonElement>() {
+      public void onSuccess(JsonElement result) {
+        fail("cancelled request completed");
+      }
+
+      public void onFailure(Throwable caught) {
+        fail("cancelled request failed");
+      }
+    });
+    request.cancel();
+    assertFalse(request.isPending());
+
+    new Timer() {
+      @Override
+      public void run() {
+        finishTest();
+      }
+    }.schedule(200);
+    delayTestFinish(5000);
+  }
+
+  public void testLosslessNumbers() {
+    JsonParser parser = new JsonParser();
+    parser.setLosslessNumbers(true);
+    JsonObject object = parser.parse("{ id: 1234567890123456789, small: 42, neg: -9007199254740993 }")
+        .getAsJsonObject();
+
+    assertEquals(1234567890123456789L, object.get("id").getAsLong());
+    assertEquals("1234567890123456789", object.get("id").getAsString());
+    assertEquals(-9007199254740993L, object.get("neg").getAsLong());
+    assertEquals(42, object.get("small").getAsInt());
+    assertEquals(new JsonPrimitive(42), object.get("small"));
+    assertEquals(new JsonPrimitive(42).hashCode(), object.get("small").hashCode());
+    assertEquals("{\"id\":1234567890123456789, \"small\":42, \"neg\":-9007199254740993}", object.toString());
+
+    JsonArray copy = new JsonArray();
+    copy.add(object.get("id"));
+    assertEquals(1234567890123456789L, copy.get(0).getAsLong());
+  }
+
+  public void testLosslessNumbersInSuccessiveParses() {
+    JsonParser parser = new JsonParser();
+    parser.setLosslessNumbers(true);
+    for (int i = 0; i < 3; i++) {
+      assertEquals("[1234567890123456789,42]", parser.parse("[1234567890123456789, 42]").toString());
+    }
+  }
+
+  public void testLosslessNumbersAfterDigitsInStrings() {
+    JsonParser parser = new JsonParser();
+    parser.setLosslessNumbers(true);
+    JsonObject object = parser.parse("{ phone: \"12345678901234567\", quote: \"\\\"\","
+        + " name: 'it\\'s', id: 9007199254740993 }").getAsJsonObject();
+
+    assertEquals("12345678901234567", object.get("phone").getAsString());
+    assertEquals("\"", object.get("quote").getAsString());
+    assertEquals(9007199254740993L, object.get("id").getAsLong());
+    assertEquals("[\"12345678901234567890\"]",
+        parser.parse("[\"12345678901234567890\"]").toString());
+  }
+
+  public void testProjection() {
+    String json = "[{ \"id\": 1, \"name\": \"a\", \"owner\": { \"name\": \"x\", \"age\": 3 },"
+        + " \"tags\": [\"p\", {\"q\": \"}]\\\"\"}] },"
+        + " { id: 2, 'name': 'b', skipped: [[1, 2], {}], owner: null }]";
+    JsonArray rows = new JsonParser().parse(json, new FieldSelector("id", "owner.name"))
+        .getAsJsonArray();
+
+    assertEquals(2, rows.size());
+    assertEquals("{\"id\":1, \"owner\":{\"name\":\"x\"}}", rows.get(0).toString());
+    assertEquals("{\"id\":2, \"owner\":null}", rows.get(1).toString());
+    assertEquals(1, rows.get(0).getAsJsonObject().get("id").getAsInt());
+  }
+
+  public void testProjectionWildcards() {
+    String json = "{ a: { x: 1, y: 2 }, b: { x: 3, z: { w: 4 } }, c: 5 }";
+
+    JsonObject object = new JsonParser().parse(json, new FieldSelector("*.x", "b.z"))
+        .getAsJsonObject();
+    assertEquals("{\"a\":{\"x\":1}, \"b\":{\"x\":3, \"z\":{\"w\":4}}, \"c\":5}",
+        object.toString());
+
+    assertEquals("{}", new JsonParser().parse(json, new FieldSelector()).toString());
+  }
+
+  public void testProjectionKeepsLosslessNumbers() {
+    JsonParser parser = new JsonParser();
+    parser.setLosslessNumbers(true);
+    JsonObject object = parser.parse("{ id: 1234567890123456789, other: 1 }",
+        new FieldSelector("id")).getAsJsonObject();
+    assertEquals(1234567890123456789L, object.get("id").getAsLong());
+    assertFalse(object.has("other"));
+  }
+
+  public void testProjectionMalformed() {
+    String[] malformed = { "{ a: 1", "{ a: [1, 2 }", "{ a: 'x }", "[1] 2", "{ a 1 }" };
+    for (String json : malformed) {
+      try {
+        new JsonParser().parse(json, new FieldSelector("b"));
+        fail(json);
+      } catch (JsonParseException expected) {
+      }
+    }
+  }
+
+  public void testLongPrimitive() {
+    JsonPrimitive id = new JsonPrimitive(1234567890123456789L);
+    assertEquals(1234567890123456789L, id.getAsLong());
+    assertEquals("1234567890123456789", id.toString());
+    assertEquals(id, new JsonPrimitive(1234567890123456789L));
+  }
+
+  public void testInternStrings() {
+    StringBuilder longValue = new StringBuilder();
+    for (int i = 0; i < 10; i++) {
+      longValue.append("0123456789");
+    }
+    String json = "[{ status: 'ACTIVE', note: '" + longValue + "' }, "
+        + "{ status: 'ACTIVE', note: '" + longValue + "' }, { status: 'CLOSED' }]";
+    JsonParser parser = new JsonParser();
+    parser.setInternStrings(true);
+    JsonArray rows = parser.parse(json).getAsJsonArray();
+
+    assertTrue(parser.isInternStrings());
+    assertSame(rows.get(0).getAsJsonObject().get("status"),
+        rows.get(1).getAsJsonObject().get("status"));
+    assertNotSame(rows.get(0).getAsJsonObject().get("note"),
+        rows.get(1).getAsJsonObject().get("note"));
+    assertEquals("CLOSED", rows.get(2).getAsJsonObject().get("status").getAsString());
+    assertEquals(new JsonParser().parse(json), rows);
+
+    JsonArray projected = parser.parse(json, new FieldSelector("status")).getAsJsonArray();
+    assertSame(rows.get(0).getAsJsonObject().get("status"),
+        projected.get(1).getAsJsonObject().get("status"));
+  }
+
+  public void testInternStringsAsync() {
+    JsonParser parser = new JsonParser();
+    parser.setInternStrings(true);
+    parser.parseAsync("['kg', 'kg', 'm']", new AsyncCallback<JsonElement>() {
+      public void onSuccess(JsonElement result) {
+        JsonArray units = result.getAsJsonArray();
+        assertSame(units.get(0), units.get(1));
+        assertEquals("[\"kg\",\"kg\",\"m\"]", units.toString());
+        finishTest();
+      }
+
+      public void onFailure(Throwable caught) {
+        fail(caught.toString());
+      }
+    });
+    delayTestFinish(5000);
+  }
 }
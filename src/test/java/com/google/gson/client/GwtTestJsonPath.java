@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2011 bedatadriven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.google.gson.client;
+
+import com.google.gson.*;
+import com.google.gwt.junit.client.GWTTestCase;
+
+import java.util.List;
+
+public class GwtTestJsonPath extends GWTTestCase {
+
+  private static final String STORE = "{ store: { book: ["
+      + "{ title: 'Sayings', price: 8.95, tags: ['quotes'] },"
+      + "{ title: 'Sword', price: 12.99 },"
+      + "{ title: 'Moby Dick', price: 8.99, isbn: '0-553' }"
+      + "], 'a/b': { '~x': 1 }, bicycle: { color: 'red', price: 19.95 } } }";
+
+  @Override
+  public String getModuleName() {
+    return "com.google.gson.GsonTest";
+  }
+
+  private JsonElement store() {
+    return new JsonParser().parse(STORE);
+  }
+
+  public void testPointer() {
+
+    JsonElement store = store();
+    assertEquals("Sword", JsonPath.compile("/store/book/1/title").find(store).getAsString());
+    assertEquals(1, JsonPath.compile("/store/a~1b/~0x").find(store).getAsInt());
+    assertSame(store, JsonPath.compile("").find(store));
+    assertNull(JsonPath.compile("/store/book/3").find(store));
+    assertNull(JsonPath.compile("/store/book/01").find(store));
+    assertNull(JsonPath.compile("/store/missing/title").find(store));
+  }
+
+  public void testMembersAndIndices() {
+
+    JsonElement store = store();
+    assertEquals("red", JsonPath.compile("$.store.bicycle.color").find(store).getAsString());
+    assertEquals("red", JsonPath.compile("$['store']['bicycle']['color']").find(store).getAsString());
+    assertEquals("Moby Dick", JsonPath.compile("$.store.book[-1].title").find(store).getAsString());
+    assertEquals("quotes", JsonPath.compile("$.store.book[0].tags[0]").find(store).getAsString());
+    assertNull(JsonPath.compile("$.store.book[0].isbn").find(store));
+  }
+
+  public void testWildcards() {
+
+    List<JsonElement> titles = JsonPath.compile("$.store.book[*].title").findAll(store());
+    assertEquals(3, titles.size());
+    assertEquals("Sayings", titles.get(0).getAsString());
+    assertEquals("Moby Dick", titles.get(2).getAsString());
+
+    assertEquals(3, JsonPath.compile("$.store.*").findAll(store()).size());
+  }
+
+  public void testDescendants() {
+
+    List<JsonElement> prices = JsonPath.compile("$..price").findAll(store());
+    assertEquals(4, prices.size());
+    assertEquals(19.95, prices.get(3).getAsDouble());
+  }
+
+  public void testFilters() {
+
+    JsonElement store = store();
+    List<JsonElement> cheap = JsonPath.compile("$.store.book[?(@.price < 10)].title").findAll(store);
+    assertEquals(2, cheap.size());
+    assertEquals("Sayings", cheap.get(0).getAsString());
+    assertEquals("Moby Dick", cheap.get(1).getAsString());
+
+    assertEquals("Moby Dick",
+        JsonPath.compile("$.store.book[?(@.isbn)].title").find(store).getAsString());
+    assertEquals("Sword",
+        JsonPath.compile("$.store.book[?(@.title == 'Sword')].title").find(store).getAsString());
+    assertEquals(2, JsonPath.compile("$.store.book[?(@.title != 'Sword')]").findAll(store).size());
+    assertEquals(1, JsonPath.compile("$.store.book[?(@.tags[0] == \"quotes\")]").findAll(store).size());
+  }
+
+  public void testFiltersReadLosslessNumbers() {
+
+    JsonParser parser = new JsonParser();
+    parser.setLosslessNumbers(true);
+    JsonElement rows = parser.parse("[{ id: 9007199254740993 }, { id: 7 }]");
+
+    List<JsonElement> large = JsonPath.compile("$[?(@.id > 1000)]").findAll(rows);
+    assertEquals(1, large.size());
+    assertEquals(9007199254740993L, large.get(0).getAsJsonObject().get("id").getAsLong());
+  }
+
+  public void testResultsShareValues() {
+
+    JsonElement store = store();
+    JsonObject bicycle = JsonPath.compile("$.store.bicycle").find(store).getAsJsonObject();
+    bicycle.addProperty("color", "blue");
+    assertEquals("blue", store.getAsJsonObject().getAsJsonObject("store")
+        .getAsJsonObject("bicycle").get("color").getAsString());
+  }
+
+  public void testResultsAreTheDocumentsElements() {
+
+    JsonObject document = store().getAsJsonObject();
+    JsonObject snapshot = document.snapshot();
+    JsonObject bicycle = JsonPath.compile("$..bicycle").find(document).getAsJsonObject();
+    assertSame(document.getAsJsonObject("store").get("bicycle"), bicycle);
+
+    bicycle.addProperty("gears", 21);
+    assertEquals(21, document.getAsJsonObject("store").getAsJsonObject("bicycle")
+        .get("gears").getAsInt());
+    assertFalse(snapshot.getAsJsonObject("store").getAsJsonObject("bicycle").has("gears"));
+    assertTrue(JsonPath.compile("/store/bicycle").find(snapshot.freeze()).isFrozen());
+  }
+
+  public void testCompiledPathsAreCached() {
+
+    assertSame(JsonPath.compile("$.a[0]"), JsonPath.compile("$.a[0]"));
+  }
+
+  public void testInvalidPaths() {
+
+    String[] invalid = { "store", "$.", "$[x]", "$.a[?(@.b ~ 1)]", "$['a" };
+    for (String expression : invalid) {
+      try {
+        JsonPath.compile(expression);
+        fail(expression);
+      } catch (IllegalArgumentException expected) {
+      }
+    }
+  }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2011 bedatadriven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.gson.client;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+import com.google.gwt.junit.client.GWTTestCase;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+public class GwtTestJsonReader extends GWTTestCase {
+
+  @Override
+  public String getModuleName() {
+    return "com.google.gson.GsonTest";
+  }
+
+  public void testReadObject() throws IOException {
+    JsonReader reader = new JsonReader(new StringReader(
+        "{\"name\":\"Alex\",\"age\":28,\"married\":true,\"assignment\":null,\"alias\":[\"Al\",13]}"));
+
+    reader.beginObject();
+    assertEquals("name", reader.nextName());
+    assertEquals("Alex", reader.nextString());
+    assertEquals("age", reader.nextName());
+    assertEquals(JsonToken.NUMBER, reader.peek());
+    assertEquals(28, reader.nextInt());
+    assertEquals("married", reader.nextName());
+    assertTrue(reader.nextBoolean());
+    assertEquals("assignment", reader.nextName());
+    assertEquals(JsonToken.NULL, reader.peek());
+    reader.nextNull();
+    assertEquals("alias", reader.nextName());
+    reader.beginArray();
+    assertEquals("Al", reader.nextString());
+    assertEquals(13L, reader.nextLong());
+    assertFalse(reader.hasNext());
+    reader.endArray();
+    reader.endObject();
+    assertEquals(JsonToken.END_DOCUMENT, reader.peek());
+  }
+
+  public void testSkipValue() throws IOException {
+    JsonReader reader = new JsonReader(new StringReader(
+        "[{\"skip\":{\"deep\":[1,[2,{\"x\":\"\\\"quoted\\\"\"}]]},\"keep\":\"\\u00e9t\\u00e9\"}, 42.5]"));
+
+    reader.beginArray();
+    reader.beginObject();
+    assertEquals("skip", reader.nextName());
+    reader.skipValue();
+    assertEquals("keep", reader.nextName());
+    assertEquals("\u00e9t\u00e9", reader.nextString());
+    reader.endObject();
+    assertEquals(42.5, reader.nextDouble());
+    reader.endArray();
+  }
+
+  public void testLongInputSpansBuffer() throws IOException {
+    StringBuilder json = new StringBuilder("[");
+    for (int i = 0; i < 2000; i++) {
+      if (i > 0) {
+        json.append(",");
+      }
+      json.append("\"value ").append(i).append("\"");
+    }
+    json.append("]");
+
+    JsonReader reader = new JsonReader(new StringReader(json.toString()));
+    reader.beginArray();
+    int count = 0;
+    while (reader.hasNext()) {
+      assertEquals("value " + count, reader.nextString());
+      count++;
+    }
+    reader.endArray();
+    assertEquals(2000, count);
+  }
+
+  public void testLenient() throws IOException {
+    JsonReader reader = new JsonReader(new StringReader("{ name: 'Alex', age: 28 }"));
+    reader.setLenient(true);
+
+    reader.beginObject();
+    assertEquals("name", reader.nextName());
+    assertEquals("Alex", reader.nextString());
+    assertEquals("age", reader.nextName());
+    assertEquals(28, reader.nextInt());
+    reader.endObject();
+  }
+
+  public void testStrictRejectsMalformedJson() throws IOException {
+    JsonReader reader = new JsonReader(new StringReader("{ name: 'Alex' }"));
+    reader.beginObject();
+    try {
+      reader.nextName();
+      fail("expected MalformedJsonException");
+    } catch (MalformedJsonException expected) {
+    }
+  }
+}
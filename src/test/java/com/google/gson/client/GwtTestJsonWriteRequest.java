@@ -0,0 +1,176 @@
+/*
+ * Copyright (C) 2011 bedatadriven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.google.gson.client;
+
+import com.google.gson.*;
+import com.google.gwt.junit.client.GWTTestCase;
+import com.google.gwt.user.client.Timer;
+
+import java.util.ConcurrentModificationException;
+
+public class GwtTestJsonWriteRequest extends GWTTestCase {
+
+  @Override
+  public String getModuleName() {
+    return "com.google.gson.GsonTest";
+  }
+
+  /**
+   * Collects the chunks of a request that is expected to succeed.
+   */
+  private abstract class Collector implements JsonWriteRequest.Callback {
+    final StringBuilder text = new StringBuilder();
+
+    public void onChunk(String chunk) {
+      assertTrue(chunk.length() > 0);
+      text.append(chunk);
+    }
+
+    public void onFailure(Throwable caught) {
+      fail(caught.toString());
+    }
+  }
+
+  /**
+   * The request started by the last call to {@link #write}.
+   */
+  private JsonWriteRequest request;
+
+  /**
+   * Starts writing {@code element}. The JVM loads this class with Gson, which has no
+   * JsonWriteRequest, so no method may mention it in its signature, and the callback is passed
+   * as an Object and cast here: verifying a call that passes an implementation of
+   * JsonWriteRequest.Callback would load that interface.
+   */
+  private void write(JsonElement element, Object callback) {
+    request = JsonWriteRequest.write(element, (JsonWriteRequest.Callback) callback);
+  }
+
+  /**
+   * Starts writing {@code element} in slices of {@code sliceMillis}, see
+   * {@link #write(JsonElement, Object)}.
+   */
+  private void write(JsonElement element, int sliceMillis, Object callback) {
+    request = JsonWriteRequest.write(element, sliceMillis, (JsonWriteRequest.Callback) callback);
+  }
+
+  public void testWriteAsync() {
+
+    // small enough to write quickly in HtmlUnit, large enough to take several 1 ms slices
+    StringBuilder json = new StringBuilder("{ rows: [");
+    for (int i = 0; i < 200; i++) {
+      json.append(i == 0 ? "" : ",").append("{ id: ").append(i).append(", name: 'row\\n").append(i)
+          .append("', tags: [true, null, {}, []] }");
+    }
+    json.append("], total: 200 }");
+    final JsonElement document = new JsonParser().parse(json.toString());
+
+    write(document, 1, new Collector() {
+      public void onSuccess() {
+        assertEquals(document.toString(), text.toString());
+        finishTest();
+      }
+    });
+    assertTrue(request.isPending());
+    delayTestFinish(20000);
+  }
+
+  public void testWritePrimitive() {
+
+    write(new JsonPrimitive("a\"b"), new Collector() {
+      public void onSuccess() {
+        assertEquals("\"a\\\"b\"", text.toString());
+        finishTest();
+      }
+    });
+    delayTestFinish(5000);
+  }
+
+  public void testChangeFailsRequest() {
+
+    JsonObject document = new JsonParser().parse("{ a: { b: [1, 2] } }").getAsJsonObject();
+    JsonArray b = document.getAsJsonObject("a").getAsJsonArray("b");
+
+    write(document, new JsonWriteRequest.Callback() {
+      public void onChunk(String chunk) {
+        fail("wrote a changed element");
+      }
+
+      public void onSuccess() {
+        fail("wrote a changed element");
+      }
+
+      public void onFailure(Throwable caught) {
+        assertTrue(caught instanceof ConcurrentModificationException);
+        finishTest();
+      }
+    });
+    b.add(new JsonPrimitive(3));
+
+    assertEquals("{\"a\":{\"b\":[1,2,3]}}", document.toString());
+    delayTestFinish(5000);
+  }
+
+  public void testChangeThroughLaterWrapperFailsRequest() {
+
+    JsonObject document = new JsonParser().parse("{ a: { b: 1 } }").getAsJsonObject();
+
+    write(document, new JsonWriteRequest.Callback() {
+      public void onChunk(String chunk) {
+        fail("wrote a changed element");
+      }
+
+      public void onSuccess() {
+        fail("wrote a changed element");
+      }
+
+      public void onFailure(Throwable caught) {
+        assertTrue(caught instanceof ConcurrentModificationException);
+        finishTest();
+      }
+    });
+    document.getAsJsonObject("a").addProperty("c", 2);
+
+    delayTestFinish(5000);
+  }
+
+  public void testCancel() {
+
+    write(new JsonParser().parse("[1, 2, 3]"),
+        new Collector() {
+          @Override
+          public void onChunk(String chunk) {
+            fail("cancelled request wrote");
+          }
+
+          public void onSuccess() {
+            fail("cancelled request completed");
+          }
+        });
+    request.cancel();
+    assertFalse(request.isPending());
+
+    new Timer() {
+      @Override
+      public void run() {
+        finishTest();
+      }
+    }.schedule(200);
+    delayTestFinish(5000);
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2011 bedatadriven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.gson.client;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonWriter;
+import com.google.gwt.junit.client.GWTTestCase;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+public class GwtTestJsonWriter extends GWTTestCase {
+
+  @Override
+  public String getModuleName() {
+    return "com.google.gson.GsonTest";
+  }
+
+  public void testWriteObject() throws IOException {
+    StringWriter out = new StringWriter();
+    JsonWriter writer = new JsonWriter(out);
+
+    writer.beginObject();
+    writer.name("name").value("Alex");
+    writer.name("age").value(28);
+    writer.name("married").value(true);
+    writer.name("assignment").nullValue();
+    writer.name("alias").beginArray().value("Al").value(Integer.valueOf(13)).endArray();
+    writer.endObject();
+    writer.close();
+
+    assertEquals("{\"name\":\"Alex\",\"age\":28,\"married\":true,\"assignment\":null,\"alias\":[\"Al\",13]}",
+        out.toString());
+  }
+
+  public void testEscaping() throws IOException {
+    StringWriter out = new StringWriter();
+    JsonWriter writer = new JsonWriter(out);
+
+    writer.beginArray();
+    writer.value("quote\" backslash\\ tab\t newline\n control\u0001 <html>");
+    writer.endArray();
+
+    assertEquals("[\"quote\\\" backslash\\\\ tab\\t newline\\n control\\u0001 <html>\"]", out.toString());
+
+    JsonObject parsed = new JsonParser().parse("{\"value\":" + out.toString() + "}").getAsJsonObject();
+    assertEquals("quote\" backslash\\ tab\t newline\n control\u0001 <html>",
+        parsed.getAsJsonArray("value").get(0).getAsString());
+  }
+
+  public void testHtmlSafe() throws IOException {
+    StringWriter out = new StringWriter();
+    JsonWriter writer = new JsonWriter(out);
+    writer.setHtmlSafe(true);
+
+    writer.beginArray().value("<a href='x'>&</a>").endArray();
+
+    assertEquals("[\"\\u003ca href\\u003d\\u0027x\\u0027\\u003e\\u0026\\u003c/a\\u003e\"]", out.toString());
+  }
+
+  public void testNestingProblemIsRejected() throws IOException {
+    JsonWriter writer = new JsonWriter(new StringWriter());
+    writer.beginObject();
+    try {
+      writer.value("no name");
+      fail("expected IllegalStateException");
+    } catch (IllegalStateException expected) {
+    }
+  }
+}
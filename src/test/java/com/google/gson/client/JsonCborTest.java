@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2011 bedatadriven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.gson.client;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import org.junit.Test;
+
+import java.math.BigInteger;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks {@link JsonCbor} against Gson on the server, with the examples of RFC 7049 appendix A
+ * that JSON can express. {@link GwtTestJsonCbor} checks the same bytes in the browser.
+ */
+public class JsonCborTest {
+
+  @Test
+  public void testIntegers() {
+
+    assertEncoding(new JsonPrimitive(0), "00");
+    assertEncoding(new JsonPrimitive(23), "17");
+    assertEncoding(new JsonPrimitive(24), "1818");
+    assertEncoding(new JsonPrimitive(1000), "1903e8");
+    assertEncoding(new JsonPrimitive(1000000), "1a000f4240");
+    assertEncoding(new JsonPrimitive(1000000000000L), "1b000000e8d4a51000");
+    assertEncoding(new JsonPrimitive(-1000), "3903e7");
+    assertEncoding(new JsonPrimitive(Long.MAX_VALUE), "1b7fffffffffffffff");
+    assertEncoding(new JsonPrimitive(Long.MIN_VALUE), "3b7fffffffffffffff");
+  }
+
+  @Test
+  public void testFloats() {
+
+    assertEncoding(new JsonPrimitive(-0.0), "f98000");
+    assertEncoding(new JsonPrimitive(1.5), "f93e00");
+    assertEncoding(new JsonPrimitive(5.960464477539063e-8), "f90001");
+    assertEncoding(new JsonPrimitive(100000.5), "fa47c35040");
+    assertEncoding(new JsonPrimitive(3.4028234663852886e+38), "fa7f7fffff");
+    assertEncoding(new JsonPrimitive(1.1), "fb3ff199999999999a");
+    assertEncoding(new JsonPrimitive(-4.1), "fbc010666666666666");
+    assertEncoding(new JsonPrimitive(1.0e+300), "fb7e37e43c8800759c");
+    assertEncoding(new JsonPrimitive(Double.MIN_VALUE), "fb0000000000000001");
+  }
+
+  @Test
+  public void testIntegersBeyondLong() {
+
+    byte[] bytes = JsonCbor.encode(new JsonPrimitive(new BigInteger("18446744073709551615")));
+    assertThat(toHex(bytes), equalTo("1bffffffffffffffff"));
+    bytes = JsonCbor.encode(new JsonPrimitive(new BigInteger("-18446744073709551615")));
+    assertThat(toHex(bytes), equalTo("3bfffffffffffffffe"));
+  }
+
+  @Test
+  public void testOtherValues() {
+
+    assertEncoding(new JsonPrimitive(true), "f5");
+    assertEncoding(new JsonNull(), "f6");
+    assertEncoding(new JsonPrimitive("IETF"), "6449455446");
+    assertEncoding(new JsonPrimitive("\u00fc\u6c34\ud800\udd51"), "69c3bce6b0b4f0908591");
+    assertEncoding(new JsonParser().parse("{\"a\":1,\"b\":[2,3]}"), "a26161016162820203");
+  }
+
+  @Test
+  public void testBase64() {
+
+    JsonElement document = new JsonParser().parse("{\"a\":[1,2.5,\"x\"],\"b\":null}");
+    String base64 = JsonCbor.encodeBase64(document);
+
+    assertThat(base64, equalTo("omFhgwH5QQBheGFi9g=="));
+    assertThat(JsonCbor.decodeBase64(base64), equalTo(document));
+  }
+
+  @Test
+  public void testMalformedBase64() {
+
+    for (String base64 : new String[] { "g*E=", "g\u00e9E=", "g", "gw===" }) {
+      try {
+        JsonCbor.decodeBase64(base64);
+        fail(base64);
+      } catch (JsonParseException expected) {
+      }
+    }
+  }
+
+  @Test
+  public void testMalformed() {
+
+    assertMalformed("83 01");
+    assertMalformed("a1 01 01");
+    assertMalformed("9f ff");
+    assertMalformed("01 02");
+  }
+
+  private static void assertEncoding(JsonElement element, String hex) {
+    byte[] bytes = JsonCbor.encode(element);
+    assertThat(toHex(bytes), equalTo(hex));
+    assertThat(JsonCbor.decode(bytes), equalTo(element));
+  }
+
+  private static void assertMalformed(String hex) {
+    String[] digits = hex.split(" ");
+    byte[] bytes = new byte[digits.length];
+    for (int i = 0; i < digits.length; i++) {
+      bytes[i] = (byte) Integer.parseInt(digits[i], 16);
+    }
+    try {
+      JsonCbor.decode(bytes);
+      fail(hex);
+    } catch (JsonParseException expected) {
+    }
+  }
+
+  private static String toHex(byte[] bytes) {
+    StringBuilder hex = new StringBuilder();
+    for (byte b : bytes) {
+      hex.append(Integer.toHexString((b & 0xff) | 0x100).substring(1));
+    }
+    return hex.toString();
+  }
+}